@@ -0,0 +1,376 @@
+package frc.robot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Discrete event simulation of a 1 Mbps CAN bus carrying a declared set of CTRE devices.
+ *
+ * Every periodic frame on the bus is a source with a period, a random phase and a
+ * little clock drift.  When the bus goes idle the pending frame with the lowest
+ * 29-bit arbitration id wins and holds the bus for its length in bits, which is how
+ * CAN arbitration works.  A source whose next frame comes due before the last one was
+ * sent loses the older one, the device overwrote it, and that is counted as dropped.
+ *
+ * Frames are 8 data bytes with worst case bit stuffing, 160 bits, the same figure
+ * StatusFramePlanner budgets with.  Ids are built like the real ones, device type,
+ * manufacturer, API and device number, so the relative priority is right: the
+ * roboRIO heartbeat first, then motor controller control frames, then status frames
+ * by device type, frame and device number.
+ *
+ * A setup file has one line per device or frame...
+ *
+ *	talon 1									# a device with its default frames
+ *	victor 7
+ *	talon 1 Status_2_Feedback0 5			# setStatusFramePeriod(Status_2_Feedback0, 5)
+ *	talon 1 Control_6_MotProfAddTrajPoint 5	# changeMotionControlFramePeriod(5)
+ *	pigeon 3 CondStatus_9_SixDeg_YPR 5
+ *
+ * Kinds are talon, victor, pigeon, canifier, pdp and pcm, the roboRIO heartbeat is
+ * always there.  A period of 0 turns a frame off.  Default periods match StatusFramePlanner.
+ *
+ * Run with...
+ *   ./gradlew canbus -Psetup=canbus/SixTalonArcadeDrive.can -Pseconds=10
+ * and to find how many more of a device the bus can take...
+ *   ./gradlew canbus -Psetup=canbus/SixTalonArcadeDrive.can -Psweep=victor
+ */
+public class CanBusSim {
+
+	static final int kBitRate = 1000000;
+	/** 29-bit id, 8 data bytes and worst case bit stuffing, in bits (= us at 1 Mbps) */
+	static final int kBitsPerFrame = 160;
+	/** Each device's clock is off by up to this much, so phases slide past each other */
+	static final double kMaxDrift = 0.002;
+	/** Latency over this fraction of a frame's period is reported as at risk */
+	static final double kRiskFraction = 0.5;
+	static final long kSeed = 1234;
+
+	/* FRC CAN device types and manufacturers */
+	static final int kTypeRobotController = 1;
+	static final int kTypeMotorController = 2;
+	static final int kTypeGyro = 4;
+	static final int kTypePowerDistribution = 8;
+	static final int kTypePneumatics = 9;
+	static final int kTypeMisc = 10;
+	static final int kManufacturerNI = 1;
+	static final int kManufacturerCTRE = 4;
+
+	/** A kind of device, its frames with API numbers and default periods */
+	static class Kind {
+		final String name;
+		final int type;
+		final String[] frames;
+		final int[] api;
+		final int[] defaultMs;
+
+		Kind(String name, int type, String[] frames, int[] api, int[] defaultMs) {
+			this.name = name;
+			this.type = type;
+			this.frames = frames;
+			this.api = api;
+			this.defaultMs = defaultMs;
+		}
+	}
+
+	/* Status_n is API 79 + n, Control_n is n - 1, as in the CTRE ids */
+	static final Kind[] kKinds = {
+		new Kind("talon", kTypeMotorController,
+				new String[] { "Control_3_General", "Control_6_MotProfAddTrajPoint",
+					"Status_1_General", "Status_2_Feedback0", "Status_3_Quadrature", "Status_4_AinTempVbat",
+					"Status_8_PulseWidth", "Status_9_MotProfBuffer", "Status_10_Targets", "Status_11_UartGadgeteer",
+					"Status_12_Feedback1", "Status_13_Base_PIDF0", "Status_14_Turn_PIDF1", "Status_17_Targets1" },
+				new int[] { 2, 5, 80, 81, 82, 83, 87, 88, 89, 90, 91, 92, 93, 96 },
+				new int[] { 10, 0, 10, 20, 160, 160, 160, 0, 160, 250, 160, 160, 160, 0 }),
+		new Kind("victor", kTypeMotorController,
+				new String[] { "Control_3_General", "Control_6_MotProfAddTrajPoint",
+					"Status_1_General", "Status_2_Feedback0", "Status_4_AinTempVbat", "Status_9_MotProfBuffer",
+					"Status_10_Targets", "Status_12_Feedback1", "Status_13_Base_PIDF0", "Status_14_Turn_PIDF1",
+					"Status_17_Targets1" },
+				new int[] { 2, 5, 80, 81, 83, 88, 89, 91, 92, 93, 96 },
+				new int[] { 10, 0, 10, 20, 160, 0, 160, 160, 160, 160, 0 }),
+		new Kind("pigeon", kTypeGyro,
+				new String[] { "CondStatus_1_General", "CondStatus_2_GeneralCompass", "CondStatus_3_GeneralAccel",
+					"CondStatus_6_SensorFusion", "CondStatus_9_SixDeg_YPR", "CondStatus_10_SixDeg_Quat",
+					"CondStatus_11_GyroAccum", "RawStatus_4_Mag", "BiasedStatus_2_Gyro", "BiasedStatus_4_Mag",
+					"BiasedStatus_6_Accel" },
+				new int[] { 80, 81, 82, 85, 88, 89, 90, 100, 101, 102, 103 },
+				new int[] { 10, 0, 0, 0, 10, 0, 20, 0, 0, 0, 0 }),
+		new Kind("canifier", kTypeMisc,
+				new String[] { "Status_1_General", "Status_2_General", "Status_3_PwmInputs0", "Status_4_PwmInputs1",
+					"Status_5_PwmInputs2", "Status_6_PwmInputs3", "Status_8_Misc" },
+				new int[] { 80, 81, 82, 83, 84, 85, 87 },
+				new int[] { 100, 20, 100, 100, 100, 100, 100 }),
+		new Kind("pdp", kTypePowerDistribution,
+				new String[] { "Status_1", "Status_2", "Status_3", "Status_Energy" },
+				new int[] { 80, 81, 82, 93 },
+				new int[] { 25, 25, 25, 100 }),
+		new Kind("pcm", kTypePneumatics,
+				new String[] { "Status_1_General", "Status_3_SolFaults" },
+				new int[] { 80, 82 },
+				new int[] { 20, 50 }),
+	};
+
+	/** One periodic frame on the bus */
+	static class Source {
+		final String name;
+		final int id;
+		final int periodMs;
+		/* simulated, in us */
+		long periodUs;
+		long nextReleaseUs;
+		long pendingSinceUs = -1;
+
+		/* results */
+		long sent = 0;
+		long dropped = 0;
+		long worstLatencyUs = 0;
+		long totalLatencyUs = 0;
+
+		Source(String name, int id, int periodMs) {
+			this.name = name;
+			this.id = id;
+			this.periodMs = periodMs;
+		}
+	}
+
+	/** Declared devices, by kind and number, with their frame periods */
+	static class Setup {
+		final List<Kind> kinds = new ArrayList<>();
+		final List<Integer> numbers = new ArrayList<>();
+		final List<int[]> periods = new ArrayList<>();
+
+		/** @return index of the device, added with default periods if it's new */
+		int device(Kind kind, int number) {
+			for (int i = 0; i < kinds.size(); ++i) {
+				if (kinds.get(i) == kind && numbers.get(i) == number)
+					return i;
+			}
+			kinds.add(kind);
+			numbers.add(number);
+			periods.add(kind.defaultMs.clone());
+			return kinds.size() - 1;
+		}
+
+		Setup copy() {
+			Setup setup = new Setup();
+			for (int i = 0; i < kinds.size(); ++i) {
+				setup.kinds.add(kinds.get(i));
+				setup.numbers.add(numbers.get(i));
+				setup.periods.add(periods.get(i).clone());
+			}
+			return setup;
+		}
+
+		/** Every frame that is on, sorted by arbitration id, highest priority first */
+		Source[] sources() {
+			List<Source> sources = new ArrayList<>();
+			/* the roboRIO heartbeat is always there */
+			sources.add(new Source("rio Heartbeat", arbId(kTypeRobotController, kManufacturerNI, 0x061, 0), 20));
+			for (int i = 0; i < kinds.size(); ++i) {
+				Kind kind = kinds.get(i);
+				int number = numbers.get(i);
+				int[] ms = periods.get(i);
+				for (int f = 0; f < kind.frames.length; ++f) {
+					if (ms[f] > 0)
+						sources.add(new Source(kind.name + " " + number + " " + kind.frames[f],
+								arbId(kind.type, kManufacturerCTRE, kind.api[f], number), ms[f]));
+				}
+			}
+			sources.sort((a, b) -> Integer.compareUnsigned(a.id, b.id));
+			return sources.toArray(new Source[0]);
+		}
+	}
+
+	static int arbId(int type, int manufacturer, int api, int number) {
+		return (type << 24) | (manufacturer << 16) | (api << 6) | (number & 0x3F);
+	}
+
+	static Kind kind(String name) {
+		for (Kind kind : kKinds) {
+			if (kind.name.equals(name))
+				return kind;
+		}
+		return null;
+	}
+
+	/**
+	 * Read a setup file.
+	 *
+	 * @return the setup, null if a line was bad (already printed)
+	 */
+	static Setup load(String path) {
+		List<String> lines;
+		try {
+			lines = Files.readAllLines(Paths.get(path));
+		} catch (IOException e) {
+			System.out.println("Could not read " + path + ": " + e.getMessage());
+			return null;
+		}
+		Setup setup = new Setup();
+		for (int n = 0; n < lines.size(); ++n) {
+			String line = lines.get(n);
+			int hash = line.indexOf('#');
+			if (hash >= 0)
+				line = line.substring(0, hash);
+			line = line.trim();
+			if (line.isEmpty())
+				continue;
+			String[] words = line.split("\\s+");
+			Kind kind = kind(words[0]);
+			if (kind == null || (words.length != 2 && words.length != 4)) {
+				System.out.println(path + ":" + (n + 1) + ": expected <kind> <number> [<frame> <periodMs>]");
+				return null;
+			}
+			int device = setup.device(kind, Integer.parseInt(words[1]));
+			if (words.length == 4) {
+				int f = Arrays.asList(kind.frames).indexOf(words[2]);
+				if (f < 0) {
+					System.out.println(path + ":" + (n + 1) + ": " + kind.name + " has no frame " + words[2]
+							+ ", one of " + Arrays.toString(kind.frames));
+					return null;
+				}
+				setup.periods.get(device)[f] = Integer.parseInt(words[3]);
+			}
+		}
+		return setup;
+	}
+
+	/** Result of one run */
+	static class Result {
+		Source[] sources;
+		double seconds;
+		double utilization;
+		double predicted;
+		long sent;
+		long dropped;
+		int atRisk;
+	}
+
+	/**
+	 * Run the bus for a while.
+	 *
+	 * @param seconds	simulated time
+	 */
+	static Result run(Setup setup, double seconds) {
+		Source[] sources = setup.sources();
+		Random random = new Random(kSeed);
+		for (Source source : sources) {
+			double drift = 1 + (random.nextDouble() * 2 - 1) * kMaxDrift;
+			source.periodUs = Math.round(source.periodMs * 1000 * drift);
+			source.nextReleaseUs = (long) (random.nextDouble() * source.periodUs);
+		}
+
+		long endUs = (long) (seconds * 1e6);
+		long busyUs = 0;
+		long nowUs = 0;
+		while (nowUs < endUs) {
+			/* everything due by now is pending, overwriting an instance that never went out */
+			long nextUs = Long.MAX_VALUE;
+			for (Source source : sources) {
+				while (source.nextReleaseUs <= nowUs) {
+					if (source.pendingSinceUs >= 0)
+						++source.dropped;
+					source.pendingSinceUs = source.nextReleaseUs;
+					source.nextReleaseUs += source.periodUs;
+				}
+				nextUs = Math.min(nextUs, source.nextReleaseUs);
+			}
+
+			/* arbitration, sources are sorted so the first pending one has the lowest id */
+			Source winner = null;
+			for (Source source : sources) {
+				if (source.pendingSinceUs >= 0) {
+					winner = source;
+					break;
+				}
+			}
+			if (winner == null) {
+				nowUs = nextUs; /* bus idle until the next release */
+				continue;
+			}
+
+			long doneUs = nowUs + kBitsPerFrame * 1000000L / kBitRate;
+			long latencyUs = doneUs - winner.pendingSinceUs;
+			winner.worstLatencyUs = Math.max(winner.worstLatencyUs, latencyUs);
+			winner.totalLatencyUs += latencyUs;
+			++winner.sent;
+			winner.pendingSinceUs = -1;
+			busyUs += doneUs - nowUs;
+			nowUs = doneUs;
+		}
+
+		Result result = new Result();
+		result.sources = sources;
+		result.seconds = seconds;
+		result.utilization = busyUs / (double) nowUs;
+		for (Source source : sources) {
+			result.predicted += 1000.0 / source.periodMs * kBitsPerFrame / kBitRate;
+			result.sent += source.sent;
+			result.dropped += source.dropped;
+			if (source.dropped > 0 || source.worstLatencyUs > source.periodMs * 1000 * kRiskFraction)
+				++result.atRisk;
+		}
+		return result;
+	}
+
+	static void print(Result result) {
+		System.out.println(String.format("%-44s %10s %6s %8s %8s %9s %9s %6s", "frame", "id", "ms", "sent",
+				"dropped", "avg us", "worst us", "risk"));
+		for (Source source : result.sources) {
+			double worstOfPeriod = source.worstLatencyUs / (source.periodMs * 1000.0);
+			String risk = (source.dropped > 0) ? "DROP" : (worstOfPeriod > kRiskFraction) ? "high" : "";
+			System.out.println(String.format("%-44s 0x%08X %6d %8d %8d %9.0f %9d %6s", source.name, source.id,
+					source.periodMs, source.sent, source.dropped,
+					source.totalLatencyUs / (double) Math.max(1, source.sent), source.worstLatencyUs, risk));
+		}
+		System.out.println(String.format("Simulated %.1f s, %d frames/s, utilization %.1f%% (predicted %.1f%%)",
+				result.seconds, Math.round(result.sent / result.seconds), result.utilization * 100, result.predicted * 100));
+		System.out.println("Dropped frames: " + result.dropped + ", frames at risk: " + result.atRisk
+				+ " (dropped, or worst latency over " + Math.round(kRiskFraction * 100) + "% of the period)");
+	}
+
+	public static void main(String... args) {
+		if (args.length < 1) {
+			System.out.println("usage: CanBusSim <setup.can> [simulated seconds] [kind to sweep]");
+			return;
+		}
+		Setup setup = load(args[0]);
+		double seconds = (args.length > 1) ? Double.parseDouble(args[1]) : 10;
+		String sweep = (args.length > 2 && !args[2].isEmpty()) ? args[2] : null;
+		if (setup == null)
+			return; /* load() already said why */
+
+		long start = System.nanoTime();
+		Result result = run(setup, seconds);
+		print(result);
+		System.out.println(String.format("Ran in %.2f s", (System.nanoTime() - start) / 1e9));
+
+		if (sweep == null)
+			return;
+		Kind kind = kind(sweep);
+		if (kind == null) {
+			System.out.println("No kind " + sweep);
+			return;
+		}
+		/* add one more at a time with default frames, numbered from 62 down, until something is at risk */
+		int added = 0;
+		while (added < 62) {
+			Setup more = setup.copy();
+			for (int i = 0; i <= added; ++i)
+				more.device(kind, 62 - i);
+			Result next = run(more, seconds);
+			if (next.atRisk > result.atRisk || next.utilization > 0.9) {
+				System.out.println(String.format("Sweep: %d more %s fit, one more puts %d frame(s) at risk at %.1f%% utilization",
+						added, kind.name, next.atRisk - result.atRisk, next.utilization * 100));
+				return;
+			}
+			++added;
+		}
+		System.out.println("Sweep: " + added + " more " + kind.name + " fit, out of device numbers");
+	}
+}
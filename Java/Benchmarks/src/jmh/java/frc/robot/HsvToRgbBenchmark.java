@@ -0,0 +1,51 @@
+package frc.robot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import frc.robot.Framework.HsvToRgb;
+import frc.robot.Framework.HsvToRgbTable;
+
+/** One TaskHSV frame worth of colour conversion, sweeping the hue like TaskAnimateLEDStrip */
+@State(Scope.Thread)
+public class HsvToRgbBenchmark {
+
+	float _hue = 0;
+	float[] _rgb = new float[3];
+	HsvToRgbTable _table = new HsvToRgbTable();
+
+	private float nextHue() {
+		_hue += 1;
+		if (_hue >= 360)
+			_hue = 0;
+		return _hue;
+	}
+
+	/** old allocating API, for comparison */
+	@SuppressWarnings("deprecation")
+	@Benchmark
+	public float[] convert() {
+		return HsvToRgb.convert(nextHue(), 1.0f, 0.05f);
+	}
+
+	@Benchmark
+	public float[] convertInto() {
+		return HsvToRgb.convert(nextHue(), 1.0f, 0.05f, _rgb);
+	}
+
+	@Benchmark
+	public int convertPacked() {
+		return HsvToRgb.convertPacked(nextHue(), 1.0f, 0.05f);
+	}
+
+	@Benchmark
+	public float[] lookup() {
+		return _table.lookup(nextHue(), 1.0f, 0.05f, _rgb);
+	}
+
+	@Benchmark
+	public int lookupPacked() {
+		return _table.lookupPacked(nextHue(), 1.0f, 0.05f);
+	}
+}
@@ -0,0 +1,49 @@
+package frc.robot;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.ctre.phoenix.motion.MotionProfileStatus;
+import com.ctre.phoenix.motion.SetValueMotionProfile;
+
+/**
+ * Console formatting done by Instrumentation.process() (MotionProfile example) and
+ * Instrum.loop() (Simple examples) each time they print, written to a null stream
+ * so only the formatting is measured.
+ */
+@State(Scope.Thread)
+public class InstrumentationBenchmark {
+
+	PrintStream _out = new PrintStream(new OutputStream() {
+		public void write(int b) { }
+		public void write(byte[] b, int off, int len) { }
+	});
+	MotionProfileStatus _status = new MotionProfileStatus();
+
+	@Setup
+	public void setup() {
+		_status.topBufferRem = 2048;
+		_status.topBufferCnt = 12;
+		_status.btmBufferCnt = 20;
+		_status.activePointValid = true;
+		_status.outputEnable = SetValueMotionProfile.Enable;
+		_status.timeDurMs = 10;
+	}
+
+	/** one row of Instrumentation.process() */
+	@Benchmark
+	public void processRow() {
+		Instrumentation.printRow(_out, _status, 1234.0, 56.0);
+	}
+
+	/** one print of Instrum.loop() */
+	@Benchmark
+	public void instrumLoop() {
+		_out.println(Instrum.format(_status));
+	}
+}
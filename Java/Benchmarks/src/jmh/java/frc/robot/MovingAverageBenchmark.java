@@ -0,0 +1,61 @@
+package frc.robot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import frc.robot.Framework.MovingAverage;
+import frc.robot.Framework.MovingAverageDouble;
+
+/**
+ * MovingAverage.process() plus min/max on a full window, TaskHSV uses a capacity of 10.
+ * The cost per sample should not grow with capacity.
+ */
+@State(Scope.Thread)
+public class MovingAverageBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	public int capacity;
+
+	MovingAverage _average;
+	MovingAverageDouble _averageDouble;
+	MovingAverageDouble _averageKahan;
+	float _input = 0;
+
+	@Setup
+	public void setup() {
+		_average = new MovingAverage(capacity);
+		_averageDouble = new MovingAverageDouble(capacity);
+		_averageKahan = new MovingAverageDouble(capacity, true);
+		/* fill the window so every process() also pops */
+		for (int i = 0; i < capacity; ++i) {
+			_average.process(i);
+			_averageDouble.process(i);
+			_averageKahan.process(i);
+		}
+	}
+
+	private float nextInput() {
+		_input += 0.25f;
+		if (_input > 1000)
+			_input = 0;
+		return _input;
+	}
+
+	@Benchmark
+	public float process() {
+		return _average.process(nextInput()) + _average.getMinimum() + _average.getMaximum();
+	}
+
+	@Benchmark
+	public double processDouble() {
+		return _averageDouble.process(nextInput()) + _averageDouble.getMinimum() + _averageDouble.getMaximum();
+	}
+
+	@Benchmark
+	public double processKahan() {
+		return _averageKahan.process(nextInput()) + _averageKahan.getMinimum() + _averageKahan.getMaximum();
+	}
+}
@@ -0,0 +1,134 @@
+package frc.robot;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.ctre.phoenix.motion.BufferedTrajectoryPointStream;
+import com.ctre.phoenix.motion.TrajectoryPoint;
+
+/**
+ * Rotations/RPM to sensor-unit conversion of a whole profile.  startFilling() runs
+ * MotionProfileExample.fill() over every point, writeTrajectoryBuffer() runs the
+ * TrajectoryBuffer calls Robot.initBuffer() in MotionProfileArc_Simple is made of
+ * (initBuffer() itself belongs to a TimedRobot, which can't be built off the roboRIO).
+ *
+ * transformPoints() and transformBuffer() compare the conversion alone, starting
+ * from a profile already decoded into memory: one TrajectoryPoint per point against
+ * TrajectoryBuffer's one pass per field.
+ */
+@State(Scope.Thread)
+public class ProfileConversionBenchmark {
+
+	static final double kSensorUnitsPerRotation = Constants.kSensorUnitsPerRotation;
+	/* MotionProfileArc_Simple's Constants.kTurnUnitsPerDeg, that Constants can't share a source set with this one */
+	static final double kTurnUnitsPerDeg = 8192.0 / 360.0;
+
+	@Param({ "185", "541", "2000" })
+	public int points;
+
+	File _file;
+	ProfileFile _profile;
+	TrajectoryPoint _point = new TrajectoryPoint();
+	BufferedTrajectoryPointStream _bufferedStream = new BufferedTrajectoryPointStream();
+	TrajectoryPoint[] _decodedPoints;
+	TrajectoryPoint[] _points;
+	TrajectoryBuffer _decoded;
+	TrajectoryBuffer _trajectory;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		/* trapezoid-ish profile, the values don't matter, only the count */
+		ArrayList<double[]> rows = new ArrayList<double[]>();
+		double pos = 0;
+		for (int i = 0; i < points; ++i) {
+			double vel = Math.min(i, points - 1 - i) * 0.5;
+			pos += vel / 60000.0 * 10;
+			rows.add(new double[] { pos, vel, 10 });
+		}
+		_file = File.createTempFile("bench", ".mp");
+		ProfileFileWriter.write(_file.getPath(), rows);
+		_profile = ProfileFile.open(_file);
+		_decodedPoints = new TrajectoryPoint[points];
+		_points = new TrajectoryPoint[points];
+		ProfileFile.Point next = new ProfileFile.Point();
+		for (int i = 0; i < points; ++i) {
+			_profile.get(i, next);
+			_decodedPoints[i] = new TrajectoryPoint();
+			_decodedPoints[i].position = next.position;
+			_decodedPoints[i].velocity = next.velocity;
+			_decodedPoints[i].timeDur = next.durationMs;
+			_points[i] = new TrajectoryPoint();
+		}
+		_decoded = new TrajectoryBuffer(points);
+		_decoded.load(_profile);
+		_trajectory = new TrajectoryBuffer(points);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		_file.delete();
+	}
+
+	/** MotionProfile example, MotionProfileExample.feed() with unlimited room and no push */
+	@Benchmark
+	public TrajectoryPoint startFilling() {
+		int totalCnt = _profile.size();
+		Iterator<ProfileFile.Point> it = _profile.iterator();
+		for (int i = 0; i < totalCnt; ++i)
+			MotionProfileExample.fill(_point, it.next(), i == 0, (i + 1) == totalCnt);
+		return _point;
+	}
+
+	/** MotionProfileArc_Simple example, Robot.initBuffer() */
+	@Benchmark
+	public BufferedTrajectoryPointStream writeTrajectoryBuffer() {
+		double finalTurnDeg = 90.0;
+		_trajectory.load(_profile);
+		_trajectory.scale(kSensorUnitsPerRotation, kSensorUnitsPerRotation / 600.0);
+		_trajectory.rampAuxiliary(finalTurnDeg * kTurnUnitsPerDeg);
+		_point.auxiliaryVel = 0;
+		_point.auxiliaryArbFeedFwd = 0;
+		_point.profileSlotSelect0 = 0;
+		_point.profileSlotSelect1 = 1;
+		_point.useAuxPID = true;
+		_bufferedStream.Clear();
+		_trajectory.write(_bufferedStream, _point, false);
+		return _bufferedStream;
+	}
+
+	/** Conversion alone, one TrajectoryPoint per point */
+	@Benchmark
+	public TrajectoryPoint[] transformPoints() {
+		double finalTurnDeg = 90.0;
+		int totalCnt = _decodedPoints.length;
+		for (int i = 0; i < totalCnt; ++i) {
+			TrajectoryPoint next = _decodedPoints[i];
+			TrajectoryPoint point = _points[i];
+			point.timeDur = next.timeDur;
+			point.position = next.position * kSensorUnitsPerRotation;
+			point.velocity = next.velocity * kSensorUnitsPerRotation / 600.0;
+			point.auxiliaryPos = finalTurnDeg * (i + 1) / totalCnt * kTurnUnitsPerDeg;
+		}
+		return _points;
+	}
+
+	/** Conversion alone, TrajectoryBuffer */
+	@Benchmark
+	public TrajectoryBuffer transformBuffer() {
+		double finalTurnDeg = 90.0;
+		_trajectory.copy(_decoded);
+		_trajectory.scale(kSensorUnitsPerRotation, kSensorUnitsPerRotation / 600.0);
+		_trajectory.rampAuxiliary(finalTurnDeg * kTurnUnitsPerDeg);
+		return _trajectory;
+	}
+}
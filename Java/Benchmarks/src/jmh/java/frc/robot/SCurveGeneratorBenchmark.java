@@ -0,0 +1,22 @@
+package frc.robot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/** Building a profile on the robot with SCurveGenerator, point counts roughly match the shipped files */
+@State(Scope.Thread)
+public class SCurveGeneratorBenchmark {
+
+	/** rotations, at 120RPM / 75RPM/s / 750RPM/s^2 and 10ms points */
+	@Param({ "1", "6", "20" })
+	public double distanceRot;
+
+	SCurveGenerator _generator = new SCurveGenerator(2048);
+
+	@Benchmark
+	public ProfileFile generate() {
+		return _generator.generate(distanceRot, 120, 75, 750, 10);
+	}
+}
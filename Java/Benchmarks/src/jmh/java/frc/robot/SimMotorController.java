@@ -0,0 +1,476 @@
+package frc.robot;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motion.MotionProfileStatus;
+import com.ctre.phoenix.motion.SetValueMotionProfile;
+import com.ctre.phoenix.motion.TrajectoryPoint;
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.DemandType;
+import com.ctre.phoenix.motorcontrol.IMotorController;
+import com.ctre.phoenix.motorcontrol.StatusFrame;
+
+/**
+ * Physics-backed IMotorController for running the examples headless on a desktop.
+ *
+ * It is a dynamic proxy, so no JNI or CAN bus is needed.  It keeps state and
+ * advances in simulated time, one 1ms step per update() tick, the same rate as the
+ * Talon's closed loop...
+ *
+ * - A first order motor, output percent drives the sensor velocity toward
+ *   output * free speed with the given time constant.
+ * - Closed loop P, D and F from config_kP/kD/kF for MotionProfile, MotionProfileArc,
+ *   Position and Velocity, plus arbitrary feed forward.  kI is ignored.
+ * - Sensor 1 is a second axis driven by the auxiliary PID.  In the arc examples it
+ *   stands in for the remote Pigeon yaw, which is only ever read through the Talon.
+ * - The motion profile top buffer (API side) and bottom buffer (in the Talon).
+ *   processMotionProfileBuffer() moves points down, the executer drains the bottom
+ *   buffer at each point's timeDur plus the base period, and flags an underrun
+ *   when it runs dry before the last point.
+ * - Status frame timing.  Getters return the value latched at the last time the
+ *   matching status frame was sent, at the period from setStatusFramePeriod(), so
+ *   code sees the same staleness it would on the robot.
+ *
+ * setInverted, sensor phase, remote sensors and followers are not modelled.
+ */
+public class SimMotorController implements InvocationHandler {
+
+	/** Points the API side top buffer holds */
+	public static final int kTopBufferCapacity = 2048;
+	/** Points the Talon's own buffer holds */
+	public static final int kBottomBufferCapacity = 128;
+
+	/** Status frames, numbered as in StatusFrame, with roughly the firmware default periods */
+	static final int kGeneral = 1, kFeedback0 = 2, kMotProfBuffer = 9, kTargets = 10, kFeedback1 = 12,
+			kBasePIDF0 = 13, kTurnPIDF1 = 14, kTargets1 = 17, kNumFrames = 18;
+	static final int[] kDefaultFramePeriodMs = new int[kNumFrames];
+	static {
+		java.util.Arrays.fill(kDefaultFramePeriodMs, 160);
+		kDefaultFramePeriodMs[kGeneral] = 10;
+		kDefaultFramePeriodMs[kFeedback0] = 20;
+	}
+
+	/* Motor model */
+	private final double _freeSpeed; /* sensor units per 100ms at full output */
+	private final double _timeConstantSec;
+
+	/* Plant state, [0] is the primary sensor, [1] the auxiliary */
+	private final double[] _pos = new double[2];
+	private final double[] _vel = new double[2];
+	private final double[] _lastErr = new double[2];
+	private double _output;
+
+	/* Configs */
+	private final double[] _kP = new double[4], _kD = new double[4], _kF = new double[4];
+	private final double[] _closedLoopPeak = { 1, 1, 1, 1 };
+	private double _peakFwd = 1, _peakRev = -1;
+	private final int[] _slot = new int[2];
+	private int _basePeriodMs = 0;
+	private final int[] _framePeriodMs = kDefaultFramePeriodMs.clone();
+
+	/* Demand */
+	private ControlMode _mode = ControlMode.PercentOutput;
+	private double _demand0, _demand1;
+	private DemandType _demandType = DemandType.Neutral;
+
+	/* Motion profile buffers, rings of preallocated points since callers reuse theirs */
+	private final TrajectoryPoint[] _top = newPoints(kTopBufferCapacity);
+	private int _topHead, _topCnt;
+	private final TrajectoryPoint[] _btm = newPoints(kBottomBufferCapacity);
+	private int _btmHead, _btmCnt;
+	private final TrajectoryPoint _active = new TrajectoryPoint();
+	private boolean _activeValid;
+	private int _activeElapsedMs;
+	private boolean _hasUnderrun, _isUnderrun;
+
+	/* Latched status frame values */
+	private long _timeMs;
+	private final long[] _sentAt = new long[kNumFrames];
+	private double _sentPos0, _sentVel0, _sentPos1, _sentVel1, _sentOutput, _sentErr0, _sentErr1;
+	private double _sentTrajPos0, _sentTrajVel0, _sentTrajHeading, _sentTrajArbFF0;
+	private double _sentTrajPos1, _sentTrajVel1, _sentTrajArbFF1;
+	private final MotionProfileStatus _sentStatus = new MotionProfileStatus();
+
+	/** Running totals for soak tests */
+	public long pointsExecuted = 0;
+	public long underrunEvents = 0;
+	public double maxTrackingError = 0;
+
+	/** A motor that matches the examples' gains, about 7200 units/100ms free speed */
+	public SimMotorController() {
+		this(7200, 0.05);
+	}
+
+	/**
+	 * @param freeSpeed			sensor units per 100ms at full output
+	 * @param timeConstantSec	time to reach 63% of a step in output
+	 */
+	public SimMotorController(double freeSpeed, double timeConstantSec) {
+		_freeSpeed = freeSpeed;
+		_timeConstantSec = timeConstantSec;
+		for (int i = 0; i < kNumFrames; ++i)
+			_sentAt[i] = -_framePeriodMs[i];
+	}
+
+	/** @return a new simulated controller and the IMotorController view of it */
+	public static IMotorController create(SimMotorController handler) {
+		return (IMotorController) Proxy.newProxyInstance(IMotorController.class.getClassLoader(),
+				new Class<?>[] { IMotorController.class }, handler);
+	}
+
+	/** Advance simulated time, in 1ms steps */
+	public void update(int ms) {
+		for (int i = 0; i < ms; ++i)
+			step();
+	}
+
+	/** @return simulated time since construction */
+	public long getTimeMs() {
+		return _timeMs;
+	}
+
+	/** @return primary sensor position right now, not the latched status frame value */
+	public double getTruePosition() {
+		return _pos[0];
+	}
+
+	private void step() {
+		boolean profiling = (_mode == ControlMode.MotionProfile || _mode == ControlMode.MotionProfileArc);
+		if (profiling)
+			executeProfile();
+
+		/* closed loop, every 1ms */
+		double output;
+		double turn = 0;
+		if (_mode == ControlMode.PercentOutput) {
+			output = _demand0;
+			if (_demandType == DemandType.ArbitraryFeedForward)
+				output += _demand1;
+		} else if (profiling) {
+			SetValueMotionProfile en = SetValueMotionProfile.valueOf((int) _demand0);
+			if (en == SetValueMotionProfile.Disable || !_activeValid) {
+				output = 0;
+			} else {
+				output = pid(0, _active.profileSlotSelect0, _active.position, _active.velocity) + _active.arbFeedFwd;
+				if (_active.useAuxPID) {
+					turn = pid(1, _active.profileSlotSelect1, _active.auxiliaryPos, _active.auxiliaryVel);
+					output += turn;
+				}
+				double err = Math.abs(_active.position - _pos[0]);
+				if (err > maxTrackingError)
+					maxTrackingError = err;
+			}
+		} else if (_mode == ControlMode.Position) {
+			output = pid(0, _slot[0], _demand0, 0);
+		} else if (_mode == ControlMode.Velocity) {
+			output = pid(0, _slot[0], _pos[0] + (_demand0 - _vel[0]), _demand0);
+		} else {
+			output = 0;
+		}
+		if (output > _peakFwd)
+			output = _peakFwd;
+		if (output < _peakRev)
+			output = _peakRev;
+		_output = output;
+
+		/*
+		 * plant, like the distance and heading of a drive train, the primary axis
+		 * only sees the primary PID's share and the aux axis the auxiliary's
+		 */
+		integrate(0, output - turn);
+		integrate(1, turn);
+
+		++_timeMs;
+		sendFrames();
+	}
+
+	/** Talon units, output = (kP * err + kD * dErr + kF * target velocity) / 1023 */
+	private double pid(int pidIdx, int slot, double targetPos, double targetVel) {
+		double err = targetPos - _pos[pidIdx];
+		double out = (_kP[slot] * err + _kD[slot] * (err - _lastErr[pidIdx]) + _kF[slot] * targetVel) / 1023.0;
+		_lastErr[pidIdx] = err;
+		double peak = _closedLoopPeak[slot];
+		return Math.max(-peak, Math.min(peak, out));
+	}
+
+	private void integrate(int axis, double output) {
+		double dt = 0.001;
+		_vel[axis] += (output * _freeSpeed - _vel[axis]) * dt / _timeConstantSec;
+		_pos[axis] += _vel[axis] * dt * 10; /* velocity is per 100ms */
+	}
+
+	private void executeProfile() {
+		SetValueMotionProfile en = SetValueMotionProfile.valueOf((int) _demand0);
+		if (en != SetValueMotionProfile.Enable)
+			return; /* Disable and Hold both freeze the executer */
+
+		boolean done = _activeValid && _activeElapsedMs >= _active.timeDur + _basePeriodMs;
+		if (!_activeValid || (done && !_active.isLastPoint)) {
+			if (_btmCnt > 0) {
+				copy(_btm[_btmHead], _active);
+				_btmHead = (_btmHead + 1) % kBottomBufferCapacity;
+				--_btmCnt;
+				_activeValid = true;
+				_activeElapsedMs = 0;
+				_isUnderrun = false;
+				++pointsExecuted;
+				if (_active.zeroPos) {
+					_pos[0] = 0;
+					_lastErr[0] = 0;
+				}
+			} else if (_activeValid) {
+				/* ran dry before the last point, keep servoing the old one */
+				if (!_isUnderrun)
+					++underrunEvents;
+				_isUnderrun = true;
+				_hasUnderrun = true;
+			}
+		}
+		if (_activeValid)
+			++_activeElapsedMs;
+	}
+
+	private void sendFrames() {
+		for (int f = 0; f < kNumFrames; ++f) {
+			if (_timeMs - _sentAt[f] < _framePeriodMs[f])
+				continue;
+			_sentAt[f] = _timeMs;
+			switch (f) {
+				case kGeneral:
+					_sentOutput = _output;
+					break;
+				case kFeedback0:
+					_sentPos0 = _pos[0];
+					_sentVel0 = _vel[0];
+					break;
+				case kFeedback1:
+					_sentPos1 = _pos[1];
+					_sentVel1 = _vel[1];
+					break;
+				case kBasePIDF0:
+					_sentErr0 = _lastErr[0];
+					break;
+				case kTurnPIDF1:
+					_sentErr1 = _lastErr[1];
+					break;
+				case kTargets:
+					_sentTrajPos0 = _activeValid ? _active.position : 0;
+					_sentTrajVel0 = _activeValid ? _active.velocity : 0;
+					_sentTrajHeading = _activeValid ? _active.headingDeg : 0;
+					_sentTrajArbFF0 = _activeValid ? _active.arbFeedFwd : 0;
+					break;
+				case kTargets1:
+					_sentTrajPos1 = _activeValid ? _active.auxiliaryPos : 0;
+					_sentTrajVel1 = _activeValid ? _active.auxiliaryVel : 0;
+					_sentTrajArbFF1 = _activeValid ? _active.auxiliaryArbFeedFwd : 0;
+					break;
+				case kMotProfBuffer:
+					_sentStatus.btmBufferCnt = _btmCnt;
+					_sentStatus.hasUnderrun = _hasUnderrun;
+					_sentStatus.isUnderrun = _isUnderrun;
+					_sentStatus.activePointValid = _activeValid;
+					_sentStatus.isLast = _activeValid && _active.isLastPoint;
+					_sentStatus.profileSlotSelect = _active.profileSlotSelect0;
+					_sentStatus.profileSlotSelect1 = _active.profileSlotSelect1;
+					_sentStatus.timeDurMs = _active.timeDur + _basePeriodMs;
+					break;
+			}
+		}
+	}
+
+	public Object invoke(Object proxy, Method method, Object[] args) {
+		String name = method.getName();
+		Class<?> type = method.getReturnType();
+		switch (name) {
+			/* Motion profile */
+			case "pushMotionProfileTrajectory":
+				if (_topCnt >= kTopBufferCapacity)
+					return ErrorCode.BufferFull;
+				copy((TrajectoryPoint) args[0], _top[(_topHead + _topCnt) % kTopBufferCapacity]);
+				++_topCnt;
+				return ErrorCode.OK;
+			case "processMotionProfileBuffer":
+				while (_topCnt > 0 && _btmCnt < kBottomBufferCapacity) {
+					copy(_top[_topHead], _btm[(_btmHead + _btmCnt) % kBottomBufferCapacity]);
+					_topHead = (_topHead + 1) % kTopBufferCapacity;
+					--_topCnt;
+					++_btmCnt;
+				}
+				return null;
+			case "clearMotionProfileTrajectories":
+				_topCnt = _btmCnt = 0;
+				_activeValid = false;
+				_isUnderrun = false;
+				return ErrorCode.OK;
+			case "clearMotionProfileHasUnderrun":
+				_hasUnderrun = false;
+				return ErrorCode.OK;
+			case "getMotionProfileTopLevelBufferCount":
+				return _topCnt;
+			case "isMotionProfileTopLevelBufferFull":
+				return _topCnt >= kTopBufferCapacity;
+			case "getMotionProfileStatus": {
+				MotionProfileStatus status = (MotionProfileStatus) args[0];
+				/* top buffer lives in the API, so it is always current */
+				status.topBufferCnt = _topCnt;
+				status.topBufferRem = kTopBufferCapacity - _topCnt;
+				status.btmBufferCnt = _sentStatus.btmBufferCnt;
+				status.hasUnderrun = _sentStatus.hasUnderrun;
+				status.isUnderrun = _sentStatus.isUnderrun;
+				status.activePointValid = _sentStatus.activePointValid;
+				status.isLast = _sentStatus.isLast;
+				status.profileSlotSelect = _sentStatus.profileSlotSelect;
+				status.profileSlotSelect1 = _sentStatus.profileSlotSelect1;
+				status.timeDurMs = _sentStatus.timeDurMs;
+				status.outputEnable = isProfiling() ? SetValueMotionProfile.valueOf((int) _demand0) : SetValueMotionProfile.Disable;
+				return ErrorCode.OK;
+			}
+			case "configMotionProfileTrajectoryPeriod":
+			case "changeMotionProfileTrajectoryPeriod":
+				_basePeriodMs = ((Number) args[0]).intValue();
+				return ErrorCode.OK;
+			case "getActiveTrajectoryPosition":
+				return box(type, pidIdx(args) == 0 ? _sentTrajPos0 : _sentTrajPos1);
+			case "getActiveTrajectoryVelocity":
+				return box(type, pidIdx(args) == 0 ? _sentTrajVel0 : _sentTrajVel1);
+			case "getActiveTrajectoryHeading":
+				return box(type, _sentTrajHeading);
+			case "getActiveTrajectoryArbFeedFwd":
+				return box(type, pidIdx(args) == 0 ? _sentTrajArbFF0 : _sentTrajArbFF1);
+
+			/* Demand */
+			case "set":
+				_mode = (ControlMode) args[0];
+				_demand0 = ((Number) args[1]).doubleValue();
+				_demandType = (args.length > 2) ? (DemandType) args[2] : DemandType.Neutral;
+				_demand1 = (args.length > 3) ? ((Number) args[3]).doubleValue() : 0;
+				return null;
+			case "neutralOutput":
+				_mode = ControlMode.PercentOutput;
+				_demand0 = _demand1 = 0;
+				return null;
+			case "getControlMode":
+				return _mode;
+
+			/* Sensors */
+			case "getSelectedSensorPosition":
+				return box(type, pidIdx(args) == 0 ? _sentPos0 : _sentPos1);
+			case "getSelectedSensorVelocity":
+				return box(type, pidIdx(args) == 0 ? _sentVel0 : _sentVel1);
+			case "setSelectedSensorPosition": {
+				int pidIdx = (args.length > 1) ? ((Number) args[1]).intValue() : 0;
+				_pos[pidIdx] = ((Number) args[0]).doubleValue();
+				_lastErr[pidIdx] = 0;
+				return ErrorCode.OK;
+			}
+			case "getClosedLoopError":
+				return box(type, pidIdx(args) == 0 ? _sentErr0 : _sentErr1);
+			case "getMotorOutputPercent":
+				return box(type, _sentOutput);
+			case "getMotorOutputVoltage":
+				return box(type, _sentOutput * 12);
+			case "getBusVoltage":
+				return box(type, 12);
+
+			/* Configs */
+			case "config_kP":
+				_kP[((Number) args[0]).intValue()] = ((Number) args[1]).doubleValue();
+				return ErrorCode.OK;
+			case "config_kD":
+				_kD[((Number) args[0]).intValue()] = ((Number) args[1]).doubleValue();
+				return ErrorCode.OK;
+			case "config_kF":
+				_kF[((Number) args[0]).intValue()] = ((Number) args[1]).doubleValue();
+				return ErrorCode.OK;
+			case "configClosedLoopPeakOutput":
+				_closedLoopPeak[((Number) args[0]).intValue()] = ((Number) args[1]).doubleValue();
+				return ErrorCode.OK;
+			case "configPeakOutputForward":
+				_peakFwd = ((Number) args[0]).doubleValue();
+				return ErrorCode.OK;
+			case "configPeakOutputReverse":
+				_peakRev = ((Number) args[0]).doubleValue();
+				return ErrorCode.OK;
+			case "selectProfileSlot":
+				_slot[((Number) args[1]).intValue()] = ((Number) args[0]).intValue();
+				return null;
+			case "setStatusFramePeriod": {
+				int frame = frameNumber(args[0]);
+				if (frame > 0 && frame < kNumFrames)
+					_framePeriodMs[frame] = Math.max(1, ((Number) args[1]).intValue());
+				return ErrorCode.OK;
+			}
+
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "equals":
+				return proxy == args[0];
+			case "toString":
+				return "SimMotorController";
+		}
+
+		/* everything else is accepted and ignored */
+		if (type == ErrorCode.class)
+			return ErrorCode.OK;
+		return box(type, 0);
+	}
+
+	private boolean isProfiling() {
+		return _mode == ControlMode.MotionProfile || _mode == ControlMode.MotionProfileArc;
+	}
+
+	private static int pidIdx(Object[] args) {
+		return (args == null || args.length == 0) ? 0 : ((Number) args[0]).intValue();
+	}
+
+	/** StatusFrame.Status_10_Targets => 10, works for StatusFrameEnhanced too */
+	private static int frameNumber(Object frame) {
+		String name = (frame instanceof StatusFrame) ? ((StatusFrame) frame).name() : frame.toString();
+		int start = name.indexOf('_') + 1;
+		int end = name.indexOf('_', start);
+		try {
+			return Integer.parseInt(name.substring(start, end < 0 ? name.length() : end));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/** Phoenix returns int for some signals and double for others, match the declaration */
+	private static Object box(Class<?> type, double value) {
+		if (type == int.class)
+			return (int) value;
+		if (type == double.class)
+			return value;
+		if (type == long.class)
+			return (long) value;
+		if (type == boolean.class)
+			return value != 0;
+		return null;
+	}
+
+	private static void copy(TrajectoryPoint from, TrajectoryPoint to) {
+		to.position = from.position;
+		to.velocity = from.velocity;
+		to.arbFeedFwd = from.arbFeedFwd;
+		to.auxiliaryPos = from.auxiliaryPos;
+		to.auxiliaryVel = from.auxiliaryVel;
+		to.auxiliaryArbFeedFwd = from.auxiliaryArbFeedFwd;
+		to.headingDeg = from.headingDeg;
+		to.profileSlotSelect0 = from.profileSlotSelect0;
+		to.profileSlotSelect1 = from.profileSlotSelect1;
+		to.timeDur = from.timeDur;
+		to.isLastPoint = from.isLastPoint;
+		to.zeroPos = from.zeroPos;
+		to.useAuxPID = from.useAuxPID;
+	}
+
+	private static TrajectoryPoint[] newPoints(int count) {
+		TrajectoryPoint[] points = new TrajectoryPoint[count];
+		for (int i = 0; i < count; ++i)
+			points[i] = new TrajectoryPoint();
+		return points;
+	}
+}
@@ -0,0 +1,190 @@
+package frc.robot;
+
+import java.io.File;
+
+import com.ctre.phoenix.motion.MotionProfileStatus;
+import com.ctre.phoenix.motion.SetValueMotionProfile;
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.IMotorController;
+
+/**
+ * Headless soak test of the MotionProfile example's MotionProfileExample against
+ * SimMotorController.
+ *
+ * Fires the profile over and over for the requested amount of simulated time, with
+ * the MotionProfilePump's processMotionProfileBuffer() calls and the 20ms robot loop
+ * interleaved in simulated time.  The pump is the real one with its Notifier left
+ * out, this loop calls processMotionProfileBuffer() at getPeriodMs() instead, and
+ * Instrumentation's per-loop and group start output is skipped since there is no HAL.  Reports how long each
+ * control() call took on this machine, how often a Talon's buffer ran dry, the worst
+ * start skew across the group and how many pump calls it took compared to a fixed 5ms
+ * pump.  Each firing can be a chain of several copies of the profile run back to back.
+ *
+ * Fails (exit code 1) if any Talon underran, if no profile completed, or if a Talon
+ * did not settle within kPositionToleranceRot of the end of the chain while in Hold.
+ *
+ * Run with...
+ *   ./gradlew soak -Pprofile=../MotionProfile/src/main/deploy/GeneratedMotionProfile.mp -Pminutes=10 -Ptalons=2 -Psegments=1
+ */
+public class SoakTest {
+
+	static final int kRobotLoopMs = 20;
+	/** The fixed pump MotionProfilePump replaced, for comparison */
+	static final int kFixedPumpMs = 5;
+	/** Time to sit in Hold between profiles */
+	static final int kPauseMs = 500;
+	/** Largest position error allowed at the end of the Hold, rotations */
+	static final double kPositionToleranceRot = 0.05;
+
+	/* MotionProfile example's Robot.disabledInit() */
+	static final int kTimeoutMs = Constants.kTimeoutMs;
+	static final double kSensorUnitsPerRotation = Constants.kSensorUnitsPerRotation;
+
+	public static void main(String... args) {
+		if (args.length < 1) {
+			System.out.println("usage: SoakTest <profile.mp> [simulated minutes] [talons] [segments]");
+			System.exit(2);
+		}
+		ProfileFile profile = ProfileFile.open(new File(args[0]));
+		double minutes = (args.length > 1) ? Double.parseDouble(args[1]) : 10;
+		int count = (args.length > 2) ? Integer.parseInt(args[2]) : 2;
+		int segments = (args.length > 3) ? Integer.parseInt(args[3]) : 1;
+		if (profile.size() == 0)
+			System.exit(2); /* ProfileFile already said why */
+		if (segments < 1 || segments > ProfileChain.kMaxSegments) {
+			System.out.println("segments must be 1 to " + ProfileChain.kMaxSegments);
+			System.exit(2);
+		}
+
+		/* a group of masters running the same profile, e.g. both sides of a drivetrain */
+		SimMotorController[] sims = new SimMotorController[Math.max(1, count)];
+		IMotorController[] talons = new IMotorController[sims.length];
+		for (int i = 0; i < sims.length; ++i) {
+			sims[i] = new SimMotorController();
+			talons[i] = SimMotorController.create(sims[i]);
+			talons[i].config_kP(0, 0.1, kTimeoutMs);
+			talons[i].config_kF(0, 1023.0 / 7200.0, kTimeoutMs);
+			talons[i].configClosedLoopPeakOutput(0, 1.0, kTimeoutMs);
+			talons[i].set(ControlMode.MotionProfile, SetValueMotionProfile.Disable.value);
+		}
+		SimMotorController sim = sims[0];
+
+		/* the soak loop calls processMotionProfileBuffer() at getPeriodMs() on the simulated clock */
+		MotionProfilePump pump = new MotionProfilePump(MotionProfileExample.kInitialLeadMs, talons) {
+			@Override
+			protected void applyPeriod(int periodMs) {
+			}
+		};
+		/* process() needs the HAL's clock, and the soak reports its own numbers */
+		Instrumentation instrumentation = new Instrumentation() {
+			@Override
+			public void process(MotionProfileStatus status, double pos, double vel, double heading) {
+			}
+
+			@Override
+			public void OnGroupStart(int[] depth, int[] leadMs, int skewMs) {
+			}
+		};
+		MotionProfileExample example = new MotionProfileExample(profile, pump, instrumentation, talons);
+		double chainEndRot = segments * profile.getFinalPosition();
+
+		long endMs = (long) (minutes * 60000);
+		long holdUntilMs = 0;
+		long[] loopUs = new long[(int) (endMs / kRobotLoopMs) + 1];
+		int loops = 0;
+		long lastPumpMs = 0;
+		long pumpCalls = 0;
+
+		boolean running = false;
+		int profilesDone = 0;
+		int profilesWithUnderrun = 0;
+		int maxStartSkewMs = 0;
+		long underrunsBefore = 0;
+		int settled = 0;
+		double maxSettleErrorRot = 0;
+
+		while (sim.getTimeMs() < endMs) {
+			long now = sim.getTimeMs();
+			/* MotionProfilePump's Notifier */
+			if (!pump.isParked() && now - lastPumpMs >= pump.getPeriodMs()) {
+				lastPumpMs = now;
+				++pumpCalls;
+				for (IMotorController talon : talons)
+					talon.processMotionProfileBuffer();
+			}
+
+			if (now % kRobotLoopMs == 0) {
+				/* fire again after sitting in Hold for a bit */
+				if (!running && now >= holdUntilMs) {
+					if (profilesDone > 0) {
+						/* every Talon should be holding the end of the chain by now */
+						for (SimMotorController s : sims) {
+							double err = Math.abs(s.getTruePosition() / kSensorUnitsPerRotation - chainEndRot);
+							maxSettleErrorRot = Math.max(maxSettleErrorRot, err);
+						}
+						++settled;
+					}
+					for (int i = 0; i < segments; ++i)
+						example.queue(profile);
+					example.startMotionProfile();
+					running = true;
+				}
+
+				long start = System.nanoTime();
+				example.control();
+				SetValueMotionProfile setValue = example.getSetValue();
+				for (IMotorController talon : talons)
+					talon.set(ControlMode.MotionProfile, setValue.value);
+				loopUs[loops++] = (System.nanoTime() - start) / 1000;
+
+				if (running && setValue == SetValueMotionProfile.Hold) {
+					/* every Talon reached the last point */
+					running = false;
+					++profilesDone;
+					maxStartSkewMs = Math.max(maxStartSkewMs, example.getStartSkewMs());
+					long underruns = 0;
+					for (SimMotorController s : sims)
+						underruns += s.underrunEvents;
+					if (underruns != underrunsBefore)
+						++profilesWithUnderrun;
+					underrunsBefore = underruns;
+					holdUntilMs = now + kPauseMs;
+				}
+			}
+			for (SimMotorController s : sims)
+				s.update(1);
+		}
+
+		long underrunEvents = 0;
+		for (SimMotorController s : sims)
+			underrunEvents += s.underrunEvents;
+
+		java.util.Arrays.sort(loopUs, 0, loops);
+		System.out.println("Simulated " + minutes + " minutes, " + loops + " robot loops, " + sims.length + " talons");
+		System.out.println("Profiles completed: " + profilesDone + " (" + segments + " segments each), with underrun: " + profilesWithUnderrun);
+		System.out.println("Points executed: " + sim.pointsExecuted + ", underrun events (all talons): " + underrunEvents);
+		System.out.println("Max start skew (ms): " + maxStartSkewMs);
+		System.out.println("Pump calls: " + pumpCalls + " (fixed " + kFixedPumpMs + "ms pump: " + (endMs / kFixedPumpMs) + ")"
+				+ ", lead (ms): " + pump.getLeadMs() + ", start threshold: " + pump.getStartThreshold()
+				+ ", drain (points/s): " + pump.getDrainRate());
+		System.out.println("control() us  p50: " + loopUs[loops / 2] + "  p99: " + loopUs[(int) (loops * 0.99)] + "  max: " + loopUs[loops - 1]);
+		System.out.println("Max tracking error (rotations): " + sim.maxTrackingError / kSensorUnitsPerRotation);
+		System.out.println("Max error holding the end of the chain (rotations): " + maxSettleErrorRot + " over " + settled
+				+ " holds, chain ends at: " + chainEndRot);
+
+		String failure = null;
+		if (profilesDone == 0)
+			failure = "no profile completed";
+		else if (underrunEvents > 0)
+			failure = underrunEvents + " underrun events";
+		else if (settled == 0)
+			failure = "no profile was held long enough to check its final position";
+		else if (maxSettleErrorRot > kPositionToleranceRot)
+			failure = "final position off by " + maxSettleErrorRot + " rotations, more than " + kPositionToleranceRot;
+		if (failure != null) {
+			System.out.println("FAIL: " + failure);
+			System.exit(1);
+		}
+		System.out.println("PASS");
+	}
+}
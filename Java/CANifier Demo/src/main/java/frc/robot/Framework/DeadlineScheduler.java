@@ -0,0 +1,353 @@
+/**
+ * DeadlineScheduler Class
+ *
+ * Framework Class, meaning it will be added to Phoenix API in the future.
+ *
+ * Periodic scheduler for ILoopables where each task has its own period and
+ * priority, replacing a ConcurrentScheduler that runs every task at one rate.
+ * Tasks run on a Notifier, which is woken by the FPGA timer, so they no longer
+ * depend on the robot loop.  Each wakeup runs every task that is due, highest
+ * priority first, then re-arms the Notifier for the next release.  Tasks are not
+ * preempted, so a long onLoop() still delays everything due behind it on its lane.
+ *
+ * Per task it records execution time, overruns (finished after the next release
+ * was due), skipped releases and a jitter histogram (how late the task started).
+ * Call printStats() to dump them to the console.
+ *
+ * Tasks are spread over lanes, each with its own Notifier thread, so with one
+ * lane per core independent tasks run in parallel and adding a task does not
+ * lengthen everyone else's loop.  Tasks on different lanes must not share
+ * plain fields, pass values through a SeqLockRecord instead.  A task added
+ * without a lane goes to the lane with the least work, counted as loops per
+ * second.
+ *
+ * onStart(), onLoop() and onStop() are all called from the task's lane thread.
+ * start()/stop() may be called from any thread, including from a task, and take
+ * effect on the lane's next wakeup.  Unlike ConcurrentScheduler, onStart()/onStop()
+ * are only called when the task actually changes state.
+ */
+package frc.robot.Framework;
+
+import com.ctre.phoenix.ILoopable;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
+
+public class DeadlineScheduler {
+	/** Number of jitter buckets, bucket n counts starts [2^(n-1), 2^n) us late */
+	public static final int kJitterBuckets = 16;
+	/** Longest the scheduler sleeps, so start/stop requests are picked up */
+	public static final long kMaxSleepUs = 20000;
+
+	/**
+	 * Timing for one task.  Written by the scheduler thread only, reading it from
+	 * another thread may see a sample that is half updated, which is fine for a report.
+	 */
+	public static class Stats {
+		public long runs;
+		public long overruns;
+		public long skipped;
+		public long lastExecUs;
+		public long maxExecUs;
+		public long totalExecUs;
+		public long maxJitterUs;
+		public final long[] jitterHistogram = new long[kJitterBuckets];
+
+		public void clear() {
+			runs = overruns = skipped = 0;
+			lastExecUs = maxExecUs = totalExecUs = maxJitterUs = 0;
+			for (int i = 0; i < kJitterBuckets; ++i)
+				jitterHistogram[i] = 0;
+		}
+
+		/** @return upper bound of the bucket holding the given fraction of starts, in us */
+		public long getJitterPercentileUs(double fraction) {
+			long target = (long) Math.ceil(runs * fraction);
+			long seen = 0;
+			for (int i = 0; i < kJitterBuckets; ++i) {
+				seen += jitterHistogram[i];
+				if (seen >= target && seen > 0)
+					return 1L << i;
+			}
+			return maxJitterUs;
+		}
+	}
+
+	private static class Entry {
+		final ILoopable loop;
+		final long periodUs;
+		final int priority;
+		final int lane;
+		final Stats stats = new Stats();
+
+		/* requested by start()/stop(), applied on the scheduler thread */
+		volatile boolean requested;
+		boolean enabled;
+		long nextReleaseUs;
+
+		Entry(ILoopable loop, long periodUs, int priority, int lane, boolean enabled) {
+			this.loop = loop;
+			this.periodUs = periodUs;
+			this.priority = priority;
+			this.lane = lane;
+			this.requested = enabled;
+			this.enabled = enabled;
+		}
+	}
+
+	/** One thread worth of tasks */
+	private class Lane implements Runnable {
+		/* Sorted highest priority first, replaced (never modified) when a task is added */
+		volatile Entry[] entries = new Entry[0];
+		final Notifier notifier = new Notifier(this);
+		/* loops per second of every task on this lane */
+		double load;
+
+		public void run() {
+			wakeup(this);
+		}
+	}
+
+	private final Lane[] _lanes;
+	/* Every entry of every lane, for lookups by task */
+	private volatile Entry[] _entries = new Entry[0];
+	private volatile boolean _running = false;
+
+	/** Run every task on one thread */
+	public DeadlineScheduler() {
+		this(1);
+	}
+
+	/** @param lanes threads to spread the tasks over, typically one per core */
+	public DeadlineScheduler(int lanes) {
+		_lanes = new Lane[Math.max(1, lanes)];
+		for (int i = 0; i < _lanes.length; ++i)
+			_lanes[i] = new Lane();
+	}
+
+	/**
+	 * Add a task, enabled, like ConcurrentScheduler.add().  onStart() is not called.
+	 * The task goes on the least loaded lane.
+	 *
+	 * @param loop		task to run
+	 * @param periodMs	how often to call onLoop()
+	 * @param priority	larger runs first when several tasks on a lane are due together
+	 */
+	public synchronized void add(ILoopable loop, double periodMs, int priority) {
+		int lane = 0;
+		for (int i = 1; i < _lanes.length; ++i) {
+			if (_lanes[i].load < _lanes[lane].load)
+				lane = i;
+		}
+		add(loop, periodMs, priority, lane);
+	}
+
+	/**
+	 * Add a task to a specific lane, enabled.  onStart() is not called.
+	 *
+	 * @param loop		task to run
+	 * @param periodMs	how often to call onLoop()
+	 * @param priority	larger runs first when several tasks on a lane are due together
+	 * @param lane		[0, getLaneCount()), tasks that share plain fields go on the same lane
+	 */
+	public synchronized void add(ILoopable loop, double periodMs, int priority, int lane) {
+		if (find(loop) != null)
+			return; /* already added, e.g. robotInit adding the full list */
+
+		Lane l = _lanes[lane];
+		Entry toAdd = new Entry(loop, Math.max(1, (long) (periodMs * 1000)), priority, lane, true);
+		toAdd.nextReleaseUs = RobotController.getFPGATime();
+		l.load += 1.0e6 / toAdd.periodUs;
+
+		Entry[] all = new Entry[_entries.length + 1];
+		System.arraycopy(_entries, 0, all, 0, _entries.length);
+		all[_entries.length] = toAdd;
+		_entries = all;
+
+		Entry[] entries = new Entry[l.entries.length + 1];
+		int i = 0;
+		for (Entry e : l.entries) {
+			if (toAdd != null && toAdd.priority > e.priority) {
+				entries[i++] = toAdd;
+				toAdd = null;
+			}
+			entries[i++] = e;
+		}
+		if (toAdd != null)
+			entries[i] = toAdd;
+		l.entries = entries;
+	}
+
+	/** Enable a task, its onStart() is called before its next onLoop() */
+	public void start(ILoopable loop) {
+		Entry e = find(loop);
+		if (e != null)
+			e.requested = true;
+	}
+
+	/** Disable a task, its onStop() is called on the next wakeup */
+	public void stop(ILoopable loop) {
+		Entry e = find(loop);
+		if (e != null)
+			e.requested = false;
+	}
+
+	public void startAll() {
+		for (Entry e : _entries)
+			e.requested = true;
+	}
+
+	public void stopAll() {
+		for (Entry e : _entries)
+			e.requested = false;
+	}
+
+	/** Begin running the tasks on the scheduler thread */
+	public synchronized void resume() {
+		if (_running)
+			return;
+		_running = true;
+		long now = RobotController.getFPGATime();
+		for (Entry e : _entries)
+			e.nextReleaseUs = now;
+		for (Lane l : _lanes)
+			l.notifier.startSingle(0);
+	}
+
+	/** Stop calling onLoop(), tasks keep their enabled state for the next resume() */
+	public synchronized void pause() {
+		_running = false;
+		for (Lane l : _lanes)
+			l.notifier.stop();
+	}
+
+	/** @return timing of a task, or null if it was never added */
+	public Stats getStats(ILoopable loop) {
+		Entry e = find(loop);
+		return (e == null) ? null : e.stats;
+	}
+
+	public void clearStats() {
+		for (Entry e : _entries)
+			e.stats.clear();
+	}
+
+	/** Print one line per task that has run, call it when disabled, not from a task */
+	public void printStats() {
+		for (Entry e : _entries) {
+			Stats s = e.stats;
+			if (s.runs == 0)
+				continue;
+			StringBuilder sb = new StringBuilder();
+			String name = e.loop.getClass().getSimpleName();
+			sb.append(name.isEmpty() ? e.loop.getClass().getName() : name);
+			sb.append(" lane:").append(e.lane);
+			sb.append(" period(ms):").append(e.periodUs / 1000.0);
+			sb.append(" runs:").append(s.runs);
+			sb.append(" exec(us) avg:").append(s.runs == 0 ? 0 : s.totalExecUs / s.runs);
+			sb.append(" max:").append(s.maxExecUs);
+			sb.append(" overruns:").append(s.overruns);
+			sb.append(" skipped:").append(s.skipped);
+			sb.append(" jitter(us) p50<").append(s.getJitterPercentileUs(0.5));
+			sb.append(" p99<").append(s.getJitterPercentileUs(0.99));
+			sb.append(" max:").append(s.maxJitterUs);
+			System.out.println(sb.toString());
+		}
+	}
+
+	public int getLaneCount() {
+		return _lanes.length;
+	}
+
+	private Entry find(ILoopable loop) {
+		for (Entry e : _entries) {
+			if (e.loop == loop)
+				return e;
+		}
+		return null;
+	}
+
+	/** Lane's Notifier callback, runs everything on the lane that is due and re-arms */
+	private void wakeup(Lane lane) {
+		if (!_running)
+			return;
+
+		Entry[] entries = lane.entries;
+		long now = RobotController.getFPGATime();
+
+		/* apply start/stop requests */
+		for (Entry e : entries) {
+			boolean requested = e.requested;
+			if (requested != e.enabled) {
+				e.enabled = requested;
+				if (requested) {
+					e.loop.onStart();
+					e.nextReleaseUs = now;
+				} else {
+					e.loop.onStop();
+				}
+			}
+		}
+
+		/*
+		 * Run the highest priority task that is due, then look again from the top,
+		 * a higher priority task may have come due while a slow one ran.
+		 */
+		boolean ranOne = true;
+		while (ranOne && _running) {
+			ranOne = false;
+			for (Entry e : entries) {
+				if (e.enabled && e.nextReleaseUs <= now) {
+					run(e, now);
+					now = RobotController.getFPGATime();
+					ranOne = true;
+					break;
+				}
+			}
+		}
+
+		/* sleep until the next release */
+		long wakeAt = now + kMaxSleepUs;
+		for (Entry e : entries) {
+			if (e.enabled && e.nextReleaseUs < wakeAt)
+				wakeAt = e.nextReleaseUs;
+		}
+		if (_running)
+			lane.notifier.startSingle(Math.max(0, wakeAt - now) / 1.0e6);
+	}
+
+	private void run(Entry e, long startUs) {
+		Stats s = e.stats;
+		long release = e.nextReleaseUs;
+
+		long jitter = startUs - release;
+		if (jitter > s.maxJitterUs)
+			s.maxJitterUs = jitter;
+		int bucket = 64 - Long.numberOfLeadingZeros(jitter);
+		s.jitterHistogram[Math.min(bucket, kJitterBuckets - 1)]++;
+
+		e.loop.onLoop();
+
+		long endUs = RobotController.getFPGATime();
+		long exec = endUs - startUs;
+		s.lastExecUs = exec;
+		s.totalExecUs += exec;
+		if (exec > s.maxExecUs)
+			s.maxExecUs = exec;
+		s.runs++;
+
+		/*
+		 * Next release stays on the original grid.  If we are already past it, run
+		 * it late, but skip any release whose own deadline has also gone by so a
+		 * slow task does not come back with a burst of catch-up loops.
+		 */
+		long next = release + e.periodUs;
+		if (endUs > next) {
+			s.overruns++;
+			long missed = (endUs - next) / e.periodUs;
+			s.skipped += missed;
+			next += missed * e.periodUs;
+		}
+		e.nextReleaseUs = next;
+	}
+}
@@ -5,6 +5,12 @@
  * 
  * Class containing function to handle the conversion of HSV values into
  * RGB values for color equivalency. 
+ * 
+ * The conversions are reentrant and do not allocate.  Either pass in the float[3]
+ * to fill, or get the color back packed as 0xRRGGBB.  Both go through a per-thread
+ * scratch array.  Each task (or LED strip) should own its buffer, so several can
+ * convert at once without racing.
+ * HsvToRgbTable trades a little precision for a lookup instead of the math.
  */
 package frc.robot.Framework;
 
@@ -15,10 +21,69 @@ public class HsvToRgb {
 	 * @param hDegrees  Hue in degrees
 	 * @param S         Saturation with range of 0 to 1
 	 * @param V         Value with range of 0 to 1
+	 * @return a new array of {R, G, B}, each with range of 0 to 1
+	 * @deprecated allocates every call, use convert(hDegrees, S, V, rgb) or convertPacked()
 	 */
-	static float RGB[] = new float[3];
-
+	@Deprecated
 	public static float[] convert(double hDegrees, double S, double V) {
+		return convert(hDegrees, S, V, new float[3]);
+	}
+
+	/**
+	 * Convert hue/saturation/and value into a packed RGB color
+	 * 
+	 * @param hDegrees  Hue in degrees
+	 * @param S         Saturation with range of 0 to 1
+	 * @param V         Value with range of 0 to 1
+	 * @return color as 0xRRGGBB
+	 */
+	public static int convertPacked(double hDegrees, double S, double V) {
+		double[] rgb = rgb(hDegrees, S, V);
+		return pack(rgb[0], rgb[1], rgb[2]);
+	}
+
+	/* rgb()'s result, one per thread so it doesn't allocate or race */
+	private static final ThreadLocal<double[]> _scratch = ThreadLocal.withInitial(() -> new double[3]);
+
+	/** @return 0xRRGGBB from components with range of 0 to 1 */
+	public static int pack(double R, double G, double B) {
+		return (toByte(R) << 16) | (toByte(G) << 8) | toByte(B);
+	}
+
+	/** @return component [0,255] from a packed color, as a range of 0 to 1 */
+	public static float unpack(int rgb, int shift) {
+		return ((rgb >> shift) & 0xFF) / 255f;
+	}
+
+	private static int toByte(double c) {
+		if (c <= 0)
+			return 0;
+		if (c >= 1)
+			return 255;
+		return (int) (c * 255 + 0.5);
+	}
+
+	/**
+	 * Convert hue/saturation/and value into RGB values
+	 * 
+	 * @param hDegrees  Hue in degrees
+	 * @param S         Saturation with range of 0 to 1
+	 * @param V         Value with range of 0 to 1
+	 * @param rgb       caller's array to fill with {R, G, B}, each with range of 0 to 1
+	 * @return rgb, for convenience
+	 */
+	public static float[] convert(double hDegrees, double S, double V, float[] rgb) {
+		double[] result = rgb(hDegrees, S, V);
+		/* Fill the caller's array, nothing shared between callers */
+		rgb[0] = (float) result[0];
+		rgb[1] = (float) result[1];
+		rgb[2] = (float) result[2];
+
+		return rgb;
+	}
+
+	/** @return this thread's scratch {R, G, B}, the math behind both conversions */
+	private static double[] rgb(double hDegrees, double S, double V) {
 		double R, G, B;
 		double H = hDegrees;
 
@@ -97,11 +162,11 @@ public class HsvToRgb {
 					break;
 			}
 		}
-		/* Since we can't pass by reference, return an array */
-		RGB[0] = (float) R;
-		RGB[1] = (float) G;
-		RGB[2] = (float) B;
+		double[] rgb = _scratch.get();
+		rgb[0] = R;
+		rgb[1] = G;
+		rgb[2] = B;
 
-		return RGB;
+		return rgb;
 	}
 }
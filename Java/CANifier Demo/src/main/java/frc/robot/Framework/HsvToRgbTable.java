@@ -0,0 +1,107 @@
+/**
+ * HsvToRgbTable Class
+ *
+ * Framework Class, meaning it will be added to Phoenix API in the future.
+ *
+ * Precomputed HsvToRgb for hue and saturation, quantized to the steps passed
+ * in.  Value only scales the color, so it is applied exactly with a multiply
+ * instead of being another table dimension.  The default 1 degree by 1/64
+ * saturation table is 360 x 65 packed colors, about 91KB, and is built once
+ * in the constructor.  Lookups are reentrant and do not allocate.
+ */
+package frc.robot.Framework;
+
+public class HsvToRgbTable {
+	private final int _hueSteps;
+	private final int _satSteps;
+	/* Packed 0xRRGGBB at full value, [hueIdx * (_satSteps + 1) + satIdx] */
+	private final int[] _table;
+
+	public HsvToRgbTable() {
+		this(360, 64);
+	}
+
+	/**
+	 * @param hueSteps	steps around the color wheel
+	 * @param satSteps	steps from 0 to 1 saturation
+	 */
+	public HsvToRgbTable(int hueSteps, int satSteps) {
+		_hueSteps = hueSteps;
+		_satSteps = satSteps;
+		_table = new int[_hueSteps * (_satSteps + 1)];
+
+		for (int h = 0; h < _hueSteps; ++h) {
+			for (int s = 0; s <= _satSteps; ++s) {
+				_table[h * (_satSteps + 1) + s] = HsvToRgb.convertPacked(h * 360.0 / _hueSteps, s / (double) _satSteps, 1);
+			}
+		}
+	}
+
+	/**
+	 * Look up hue/saturation/and value as a packed RGB color
+	 *
+	 * @param hDegrees  Hue in degrees
+	 * @param S         Saturation with range of 0 to 1
+	 * @param V         Value with range of 0 to 1
+	 * @return color as 0xRRGGBB
+	 */
+	public int lookupPacked(double hDegrees, double S, double V) {
+		int full = _table[index(hDegrees, S)];
+		if (V >= 1)
+			return full;
+		if (V <= 0)
+			return 0;
+
+		/* scale each byte by V, rounding to nearest */
+		int v = (int) (V * 256 + 0.5);
+		int r = (((full >> 16) & 0xFF) * v + 128) >> 8;
+		int g = (((full >> 8) & 0xFF) * v + 128) >> 8;
+		int b = ((full & 0xFF) * v + 128) >> 8;
+		return (r << 16) | (g << 8) | b;
+	}
+
+	/**
+	 * Look up hue/saturation/and value into RGB values
+	 *
+	 * @param hDegrees  Hue in degrees
+	 * @param S         Saturation with range of 0 to 1
+	 * @param V         Value with range of 0 to 1
+	 * @param rgb       caller's array to fill with {R, G, B}, each with range of 0 to 1
+	 * @return rgb, for convenience
+	 */
+	public float[] lookup(double hDegrees, double S, double V, float[] rgb) {
+		int full = _table[index(hDegrees, S)];
+		float v = (V <= 0) ? 0 : (V >= 1) ? 1 : (float) V;
+		/* scale the full value color so dim colors keep their precision */
+		rgb[0] = HsvToRgb.unpack(full, 16) * v;
+		rgb[1] = HsvToRgb.unpack(full, 8) * v;
+		rgb[2] = HsvToRgb.unpack(full, 0) * v;
+		return rgb;
+	}
+
+	private int index(double hDegrees, double S) {
+		/* nearest hue step, wrapped around the wheel */
+		int h = (int) Math.floor(hDegrees * _hueSteps / 360.0 + 0.5) % _hueSteps;
+		if (h < 0)
+			h += _hueSteps;
+
+		int s;
+		if (S <= 0)
+			s = 0;
+		else if (S >= 1)
+			s = _satSteps;
+		else
+			s = (int) (S * _satSteps + 0.5);
+
+		return h * (_satSteps + 1) + s;
+	}
+
+	// -------------- Properties --------------//
+	public int getHueSteps() {
+		return _hueSteps;
+	}
+
+	public int getSaturationSteps() {
+		return _satSteps;
+	}
+}
@@ -1,10 +1,15 @@
 /**
  * MovingAverage Class
- * 
+ *
  * Framework Class, meaning it will be added to Phoenix API in the future.
- * 
+ *
  * Class containing functions and variables related to the Moving Average of
  * a continous value/single.
+ *
+ * Every operation is O(1) (amortized for min/max) and nothing is allocated after
+ * construction.  The minimum and maximum of the window are tracked with monotonic
+ * deques of ring slots, so large windows cost the same per sample as small ones.
+ * See MovingAverageDouble for double precision and a compensated sum.
  */
  package frc.robot.Framework;
 
@@ -15,13 +20,24 @@ public class MovingAverage {
 	private int _cap;
 
 	private float _sum;
-	private float _min;
 
 	private float[] _d;
 
+	/* Ring slots of candidate minimums, values increase from head to tail */
+	private int[] _minQ;
+	private int _minHead;
+	private int _minCnt;
+
+	/* Ring slots of candidate maximums, values decrease from head to tail */
+	private int[] _maxQ;
+	private int _maxHead;
+	private int _maxCnt;
+
 	public MovingAverage(int capacity) {
 		_cap = capacity;
 		_d = new float[_cap];
+		_minQ = new int[_cap];
+		_maxQ = new int[_cap];
 		clear();
 	}
 
@@ -36,56 +52,64 @@ public class MovingAverage {
 		_cnt = 0;
 
 		_sum = 0;
+
+		_minHead = 0;
+		_minCnt = 0;
+		_maxHead = 0;
+		_maxCnt = 0;
 	}
 
 	public void push(float d) {
-		/* process it */
-		_sum += d;
-
 		/* if full, pop one */
 		if (_cnt >= _cap)
 			pop();
 
+		/* process it */
+		_sum += d;
+
+		/* drop candidates the new sample beats, they can never be the min/max again */
+		while (_minCnt > 0 && _d[_minQ[wrap(_minHead + _minCnt - 1)]] >= d)
+			--_minCnt;
+		while (_maxCnt > 0 && _d[_maxQ[wrap(_maxHead + _maxCnt - 1)]] <= d)
+			--_maxCnt;
+		_minQ[wrap(_minHead + _minCnt++)] = _in;
+		_maxQ[wrap(_maxHead + _maxCnt++)] = _in;
+
 		/* push new one */
 		_d[_in] = d;
 		if (++_in >= _cap)
 			_in = 0;
 		++_cnt;
-
-		/* calc new min - slow */
-		calcMin();
 	}
 
 	public void pop() {
+		if (_cnt <= 0)
+			return;
+
 		/* get the oldest */
 		float d = _d[_ou];
 
 		/* process it */
 		_sum -= d;
 
+		/* if the oldest was a candidate, it is at the head */
+		if (_minCnt > 0 && _minQ[_minHead] == _ou) {
+			_minHead = wrap(_minHead + 1);
+			--_minCnt;
+		}
+		if (_maxCnt > 0 && _maxQ[_maxHead] == _ou) {
+			_maxHead = wrap(_maxHead + 1);
+			--_maxCnt;
+		}
+
 		/* pop it */
 		if (++_ou >= _cap)
 			_ou = 0;
 		--_cnt;
 	}
 
-	private void calcMin() {
-		_min = Float.MAX_VALUE;
-
-		int ou = _ou;
-		int cnt = _cnt;
-		while (cnt > 0) {
-			float d = _d[ou];
-
-			/* process sample */
-			if (_min > d)
-				_min = d;
-
-			/* iterate */
-			if (++ou >= _cnt)
-				ou = 0;
-			--cnt;
-		}
+	private int wrap(int idx) {
+		return (idx >= _cap) ? idx - _cap : idx;
 	}
 
 	// -------------- Properties --------------//
@@ -97,7 +121,21 @@ public class MovingAverage {
 		return _cnt;
 	}
 
+	public int getCapacity() {
+		return _cap;
+	}
+
+	/** @return smallest sample in the window, Float.MAX_VALUE if empty */
 	public float getMinimum() {
-		return _min;
+		if (_minCnt == 0)
+			return Float.MAX_VALUE;
+		return _d[_minQ[_minHead]];
+	}
+
+	/** @return largest sample in the window, -Float.MAX_VALUE if empty */
+	public float getMaximum() {
+		if (_maxCnt == 0)
+			return -Float.MAX_VALUE;
+		return _d[_maxQ[_maxHead]];
 	}
 }
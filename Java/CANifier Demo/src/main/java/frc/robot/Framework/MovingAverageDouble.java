@@ -0,0 +1,166 @@
+/**
+ * MovingAverageDouble Class
+ *
+ * Framework Class, meaning it will be added to Phoenix API in the future.
+ *
+ * Double precision version of MovingAverage, with the same O(1) average,
+ * minimum and maximum.  A running sum drifts a little on every push/pop pair,
+ * which adds up when a filter runs at 1kHz for a whole event.  Construct with
+ * compensated = true to keep the sum with Kahan summation instead.
+ */
+package frc.robot.Framework;
+
+public class MovingAverageDouble {
+	private int _in;
+	private int _ou;
+	private int _cnt;
+	private int _cap;
+
+	private final boolean _compensated;
+	private double _sum;
+	/* Running compensation for lost low-order bits, only used if _compensated */
+	private double _c;
+
+	private double[] _d;
+
+	/* Ring slots of candidate minimums, values increase from head to tail */
+	private int[] _minQ;
+	private int _minHead;
+	private int _minCnt;
+
+	/* Ring slots of candidate maximums, values decrease from head to tail */
+	private int[] _maxQ;
+	private int _maxHead;
+	private int _maxCnt;
+
+	public MovingAverageDouble(int capacity) {
+		this(capacity, false);
+	}
+
+	/**
+	 * @param capacity		number of samples in the window
+	 * @param compensated	true to keep the sum with Kahan summation
+	 */
+	public MovingAverageDouble(int capacity, boolean compensated) {
+		_cap = capacity;
+		_compensated = compensated;
+		_d = new double[_cap];
+		_minQ = new int[_cap];
+		_maxQ = new int[_cap];
+		clear();
+	}
+
+	public double process(double input) {
+		push(input);
+		return _sum / _cnt;
+	}
+
+	public void clear() {
+		_in = 0;
+		_ou = 0;
+		_cnt = 0;
+
+		_sum = 0;
+		_c = 0;
+
+		_minHead = 0;
+		_minCnt = 0;
+		_maxHead = 0;
+		_maxCnt = 0;
+	}
+
+	public void push(double d) {
+		/* if full, pop one */
+		if (_cnt >= _cap)
+			pop();
+
+		/* process it */
+		add(d);
+
+		/* drop candidates the new sample beats, they can never be the min/max again */
+		while (_minCnt > 0 && _d[_minQ[wrap(_minHead + _minCnt - 1)]] >= d)
+			--_minCnt;
+		while (_maxCnt > 0 && _d[_maxQ[wrap(_maxHead + _maxCnt - 1)]] <= d)
+			--_maxCnt;
+		_minQ[wrap(_minHead + _minCnt++)] = _in;
+		_maxQ[wrap(_maxHead + _maxCnt++)] = _in;
+
+		/* push new one */
+		_d[_in] = d;
+		if (++_in >= _cap)
+			_in = 0;
+		++_cnt;
+	}
+
+	public void pop() {
+		if (_cnt <= 0)
+			return;
+
+		/* get the oldest */
+		double d = _d[_ou];
+
+		/* process it */
+		add(-d);
+
+		/* if the oldest was a candidate, it is at the head */
+		if (_minCnt > 0 && _minQ[_minHead] == _ou) {
+			_minHead = wrap(_minHead + 1);
+			--_minCnt;
+		}
+		if (_maxCnt > 0 && _maxQ[_maxHead] == _ou) {
+			_maxHead = wrap(_maxHead + 1);
+			--_maxCnt;
+		}
+
+		/* pop it */
+		if (++_ou >= _cap)
+			_ou = 0;
+		--_cnt;
+	}
+
+	private void add(double d) {
+		if (_compensated) {
+			double y = d - _c;
+			double t = _sum + y;
+			_c = (t - _sum) - y;
+			_sum = t;
+		} else {
+			_sum += d;
+		}
+	}
+
+	private int wrap(int idx) {
+		return (idx >= _cap) ? idx - _cap : idx;
+	}
+
+	// -------------- Properties --------------//
+	public double getSum() {
+		return _sum;
+	}
+
+	public double getAverage() {
+		return (_cnt == 0) ? 0 : _sum / _cnt;
+	}
+
+	public int getCount() {
+		return _cnt;
+	}
+
+	public int getCapacity() {
+		return _cap;
+	}
+
+	/** @return smallest sample in the window, Double.MAX_VALUE if empty */
+	public double getMinimum() {
+		if (_minCnt == 0)
+			return Double.MAX_VALUE;
+		return _d[_minQ[_minHead]];
+	}
+
+	/** @return largest sample in the window, -Double.MAX_VALUE if empty */
+	public double getMaximum() {
+		if (_maxCnt == 0)
+			return -Double.MAX_VALUE;
+		return _d[_maxQ[_maxHead]];
+	}
+}
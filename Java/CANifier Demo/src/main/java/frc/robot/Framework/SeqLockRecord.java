@@ -0,0 +1,115 @@
+/**
+ * SeqLockRecord Class
+ *
+ * Framework Class, meaning it will be added to Phoenix API in the future.
+ *
+ * A few doubles that one task writes and other tasks read, without locks and
+ * without torn updates.  A sequence number is made odd while the writer is
+ * updating and even again when it is done.  Readers copy the values out and
+ * retry if the sequence was odd or changed under them, so a reader never sees
+ * half of one update and half of another, and never blocks the writer.
+ *
+ * Meant for a single writer.  If two writers do overlap (say while the main
+ * loop switches which LED task is running) the second one spins until the
+ * first is done, so the record is never corrupted.
+ *
+ * Writer...
+ * 	record.beginWrite();
+ * 	record.set(0, a);
+ * 	record.set(1, b);
+ * 	record.endWrite();
+ *
+ * Reader...
+ * 	record.read(values);
+ */
+package frc.robot.Framework;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+public class SeqLockRecord {
+	private static final VarHandle SEQ;
+	static {
+		try {
+			SEQ = MethodHandles.lookup().findVarHandle(SeqLockRecord.class, "_seq", int.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/* odd while a write is in progress */
+	@SuppressWarnings("unused")
+	private volatile int _seq;
+	private final double[] _d;
+
+	public SeqLockRecord(int width) {
+		_d = new double[width];
+	}
+
+	/** Start an update, readers retry until endWrite() */
+	public void beginWrite() {
+		while (true) {
+			int s = (int) SEQ.getVolatile(this);
+			/* the CAS is a full fence, no value store can move above it */
+			if ((s & 1) == 0 && SEQ.compareAndSet(this, s, s + 1))
+				return;
+			Thread.onSpinWait();
+		}
+	}
+
+	/** Set one value, only between beginWrite() and endWrite() */
+	public void set(int idx, double value) {
+		_d[idx] = value;
+	}
+
+	/** Publish the update */
+	public void endWrite() {
+		/* release, so every value store is visible before the even sequence */
+		SEQ.setRelease(this, (int) SEQ.getOpaque(this) + 1);
+	}
+
+	/**
+	 * Copy a consistent set of values
+	 *
+	 * @param values	array of at least getWidth() to fill
+	 * @return values, for convenience
+	 */
+	public double[] read(double[] values) {
+		while (true) {
+			int s1 = (int) SEQ.getAcquire(this);
+			if ((s1 & 1) == 0) {
+				for (int i = 0; i < _d.length; ++i)
+					values[i] = _d[i];
+				/* value loads cannot move below the second sequence load */
+				VarHandle.loadLoadFence();
+				if ((int) SEQ.getOpaque(this) == s1)
+					return values;
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+	/** @return one value, read consistently (a double store is not atomic on the roboRIO) */
+	public double get(int idx) {
+		while (true) {
+			int s1 = (int) SEQ.getAcquire(this);
+			if ((s1 & 1) == 0) {
+				double value = _d[idx];
+				VarHandle.loadLoadFence();
+				if ((int) SEQ.getOpaque(this) == s1)
+					return value;
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+	// -------------- Properties --------------//
+	public int getWidth() {
+		return _d.length;
+	}
+
+	/** @return number of updates published so far, compare to see if anything changed */
+	public int getVersion() {
+		return ((int) SEQ.getAcquire(this)) >>> 1;
+	}
+}
@@ -0,0 +1,28 @@
+/** 
+ * Simple Class containing values shared between Tasks
+ * 
+ * Tasks may run on different threads (see Schedulers), so they do not write
+ * each other's fields.  Instead each shared value has one writer task that
+ * publishes it here, and any task can read it.  Use 'public static' because
+ * these are single objects.
+ */
+package frc.robot.Platform;
+
+import frc.robot.Framework.SeqLockRecord;
+
+public class Blackboard {
+	/**
+	 * LED strip target, written by whichever LED control task is running and
+	 * read by TaskHSV.
+	 */
+	public static SeqLockRecord HsvTarget = new SeqLockRecord(3);
+	public final static int kHue = 0;
+	public final static int kSaturation = 1;
+	public final static int kValue = 2;
+
+	/**
+	 * Pulse width in us of each CANifier PWM input, indexed by PWMChannel.value.
+	 * Written by TaskMeasurePulseSensors.
+	 */
+	public static SeqLockRecord PulseWidthsUs = new SeqLockRecord(4);
+}
@@ -3,7 +3,7 @@
  */
 package frc.robot.Platform;
 
-import com.ctre.phoenix.schedulers.ConcurrentScheduler;
+import frc.robot.Framework.DeadlineScheduler;
 
 public class Schedulers {
 	/**
@@ -11,6 +11,10 @@ public class Schedulers {
 	 * run the normal tasks. Additional schedulers could be
 	 * ConsecutiveSchedulers for entire autonomous movements or pre-configured
 	 * maneuvers. Use 'public static' because these are single objects.
+	 * 
+	 * PeriodicTasks runs each task at its own period, spread over one thread
+	 * per core (two on the roboRIO), see Robot.robotInit() for the periods.
+	 * Tasks share values through the Blackboard, not each other's fields.
 	 */
-	public static ConcurrentScheduler PeriodicTasks = new ConcurrentScheduler();
+	public static DeadlineScheduler PeriodicTasks = new DeadlineScheduler(Runtime.getRuntime().availableProcessors());
 }
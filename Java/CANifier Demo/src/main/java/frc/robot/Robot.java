@@ -59,25 +59,42 @@ import com.ctre.phoenix.ILoopable;
 import frc.robot.Platform.*;
 
 public class Robot extends TimedRobot {
+	/** Period and priority for tasks not listed in robotInit() */
+	static final double kDefaultPeriodMs = 20;
+	static final int kDefaultPriority = 0;
+
 	@Override
 	public void robotInit() {
         /* Factory Default all hardware to minimize unexpected behaviour */
         Hardware.canifier.configFactoryDefault();   // Not necessary for CANifier use
+
+		/* Pulse measurement is cheap and the LIDAR wants fresh readings, run it fastest */
+		Schedulers.PeriodicTasks.add(Tasks.taskMeasurePulseSensors, 5, 3);
+		Schedulers.PeriodicTasks.add(Tasks.taskLIDAR_ControlLEDStrip, 10, 2);
+		Schedulers.PeriodicTasks.add(Tasks.taskPWMmotorController, 10, 2);
+		Schedulers.PeriodicTasks.add(Tasks.taskMainLoop, 20, 1);
+
+		/* Everything else, such as the LED animation, at 50Hz */
+		for (ILoopable loop : Tasks.FullList) {
+			Schedulers.PeriodicTasks.add(loop, kDefaultPeriodMs, kDefaultPriority);
+		}
 	}
 
 	@Override
 	public void teleopInit() {
-		/* Add each task to the concurrent scheduler */
-		for (ILoopable loop : Tasks.FullList) {
-			Schedulers.PeriodicTasks.add(loop);
-		}
+		/* Tasks run on the scheduler's own thread from here on */
+		Schedulers.PeriodicTasks.resume();
 	}
 
 	@Override
 	public void teleopPeriodic() {
-		/** Run forever */
+		/* Nothing to do, the scheduler processes our tasks */
+	}
 
-		/* Process the concurrent scheduler which will process our tasks */
-		Schedulers.PeriodicTasks.process();
+	@Override
+	public void disabledInit() {
+		Schedulers.PeriodicTasks.pause();
+		/* How each task kept up with its period */
+		Schedulers.PeriodicTasks.printStats();
 	}
 }
@@ -2,12 +2,12 @@
  * TaskAnimateLEDStrip Class
  * 
  * ILoopable Task for cycling through HSV Color Wheel.
- * Updates values for taskHSV_ControlLedStrip, interacting with the TaskHSV.java when
- * running in concurrent scheduler.
+ * Publishes the HSV target to Blackboard.HsvTarget, which TaskHSV.java outputs
+ * when running in the scheduler.
  */
 package frc.robot.Tasks;
 
-import frc.robot.Platform.Tasks;
+import frc.robot.Platform.Blackboard;
 import com.ctre.phoenix.ILoopable;
 
 public class TaskAnimateLEDStrip implements ILoopable {
@@ -28,9 +28,11 @@ public class TaskAnimateLEDStrip implements ILoopable {
 		}
 
 		/* Update LEDStrip/HSV target */
-		Tasks.taskHSV_ControlLedStrip.Hue = _hue;
-		Tasks.taskHSV_ControlLedStrip.Saturation = 1.0f;    // Outer rim of HSV color wheel
-		Tasks.taskHSV_ControlLedStrip.Value = 0.05f;        // Hard-code the brightness
+		Blackboard.HsvTarget.beginWrite();
+		Blackboard.HsvTarget.set(Blackboard.kHue, _hue);
+		Blackboard.HsvTarget.set(Blackboard.kSaturation, 1.0f);    // Outer rim of HSV color wheel
+		Blackboard.HsvTarget.set(Blackboard.kValue, 0.05f);        // Hard-code the brightness
+		Blackboard.HsvTarget.endWrite();
 	}
 
 	public String toString() {
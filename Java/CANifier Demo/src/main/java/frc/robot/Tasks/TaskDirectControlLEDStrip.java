@@ -2,7 +2,7 @@
  * TaskDirectControlLEDStrip Class
  * 
  * ILoopable Task for manually controlling/selecting HSV value through gamepad joysticks.
- * Updates values for taskHSV_ControlLedStrip, interacting with the TaskHSV.java when in 
+ * Publishes the HSV target to Blackboard.HsvTarget, which TaskHSV.java outputs when in 
  * scheduler.
  * 
  * Controls:
@@ -38,9 +38,11 @@ public class TaskDirectControlLEDStrip implements ILoopable {
 		float saturation = (float) Math.sqrt(x * x + y * y);
 		saturation = (float) Util.cap(saturation, 1);
 		/* Pick a value of '1', how far away from black we want to be. */
-		Tasks.taskHSV_ControlLedStrip.Hue = theta;
-		Tasks.taskHSV_ControlLedStrip.Saturation = saturation;
-		Tasks.taskHSV_ControlLedStrip.Value = 1; /* scale down for brightness */
+		Blackboard.HsvTarget.beginWrite();
+		Blackboard.HsvTarget.set(Blackboard.kHue, theta);
+		Blackboard.HsvTarget.set(Blackboard.kSaturation, saturation);
+		Blackboard.HsvTarget.set(Blackboard.kValue, 1); /* scale down for brightness */
+		Blackboard.HsvTarget.endWrite();
 	}
                                                                                           
 	public String toString() {
@@ -2,11 +2,11 @@
  * TaskHSV Class
  * 
  * ILoopable Task for outputing HSV Values through CANifier onto LED Strips
- * Task contains Hue, Saturation, and Value variables which are updated by:
+ * Task reads Hue, Saturation, and Value from Blackboard.HsvTarget, which is updated by:
  *  - TaskAnimateLEDStrip
  *  - TaskDirectControlLEDStrip
  *  - TaskLIDAR_ControlLEDStrip
- * It takes those three variables and converts them into RGB values 
+ * It takes those three values and converts them into RGB values 
  * to be simply outputed by CANifier for the LED Strip
  */
 package frc.robot.Tasks;
@@ -17,10 +17,10 @@ import com.ctre.phoenix.ILoopable;
 import com.ctre.phoenix.CANifier;
 
 public class TaskHSV implements ILoopable {
-	public float Hue;
-	public float Saturation;
-	public float Value;
-	private static float _rgb[] = new float[3];
+	/* latest target from the blackboard, {hue, saturation, value} */
+	private double _hsv[] = new double[3];
+	/* our own buffer, HsvToRgb fills it in place */
+	private float _rgb[] = new float[3];
 
 	private MovingAverage _averageR = new MovingAverage(10);
 	private MovingAverage _averageG = new MovingAverage(10);
@@ -34,6 +34,11 @@ public class TaskHSV implements ILoopable {
 	public boolean isDone() { return false; }
 
 	public void onLoop() {
+		Blackboard.HsvTarget.read(_hsv);
+		double Hue = _hsv[Blackboard.kHue];
+		double Saturation = _hsv[Blackboard.kSaturation];
+		double Value = _hsv[Blackboard.kValue];
+
 		if (Saturation > 1) {
 			Saturation = 1;
 		}
@@ -46,7 +51,7 @@ public class TaskHSV implements ILoopable {
 			Value = 0;
 
 		/* Convert to HSV to RGB */
-		_rgb = HsvToRgb.convert(Hue, Saturation, Value);
+		HsvToRgb.convert(Hue, Saturation, Value, _rgb);
 
 		_rgb[0] = _averageR.process(_rgb[0]);
 		_rgb[1] = _averageG.process(_rgb[1]);
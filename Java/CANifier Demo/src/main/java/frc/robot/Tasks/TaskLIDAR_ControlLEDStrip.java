@@ -8,7 +8,7 @@
 package frc.robot.Tasks;
 
 import frc.robot.Framework.LinearInterpolation;
-import frc.robot.Platform.Tasks;
+import frc.robot.Platform.Blackboard;
 import com.ctre.phoenix.ILoopable;
 import com.ctre.phoenix.CANifier;
 
@@ -23,15 +23,16 @@ public class TaskLIDAR_ControlLEDStrip implements ILoopable {
 
 	public void onLoop() {
 		/* PWM values from TaskMeasurePulseSensors */
-		float pulse = (float) Tasks.taskMeasurePulseSensors
-				.getMeasuredPulseWidthsUs(CANifier.PWMChannel.PWMChannel3);
+		float pulse = (float) Blackboard.PulseWidthsUs.get(CANifier.PWMChannel.PWMChannel3.value);
 
 		/* Scale [0,8000] us to [0,360] Hue in Degrees */
 		float hue = LinearInterpolation.calculate(pulse, 0f, 0f, 8000f, 360f);
 
 		/* Update LEDStrip with LIDAR */
-		Tasks.taskHSV_ControlLedStrip.Hue = hue;
-		Tasks.taskHSV_ControlLedStrip.Saturation = 1;
-		Tasks.taskHSV_ControlLedStrip.Value = 0.05f;    // Hard Code the brightness
+		Blackboard.HsvTarget.beginWrite();
+		Blackboard.HsvTarget.set(Blackboard.kHue, hue);
+		Blackboard.HsvTarget.set(Blackboard.kSaturation, 1);
+		Blackboard.HsvTarget.set(Blackboard.kValue, 0.05f);    // Hard Code the brightness
+		Blackboard.HsvTarget.endWrite();
 	}
 }
@@ -3,9 +3,11 @@
  * 
  * ILoopable Task for measuring all PWM Channels on CANifier
  * Demonstates the ability to Read PWM inputs from CANifier when connected to sources.
+ * The pulse widths are published to Blackboard.PulseWidthsUs for other tasks.
  */
 package frc.robot.Tasks;
 
+import frc.robot.Platform.Blackboard;
 import frc.robot.Platform.Hardware;
 import com.ctre.phoenix.ILoopable;
 import com.ctre.phoenix.CANifier;
@@ -15,7 +17,7 @@ public class TaskMeasurePulseSensors implements ILoopable {
                                                      new double[]{0, 0}, new double[]{0, 0}};
 
 	public double getMeasuredPulseWidthsUs(CANifier.PWMChannel pwmCh) {
-		return _dutyCycleAndPeriods[pwmCh.value][0];
+		return Blackboard.PulseWidthsUs.get(pwmCh.value);
 	}
 
 	/* ILoopable */
@@ -35,6 +37,12 @@ public class TaskMeasurePulseSensors implements ILoopable {
 				_dutyCycleAndPeriods[2]);
 		Hardware.canifier.getPWMInput(CANifier.PWMChannel.PWMChannel3,
 				_dutyCycleAndPeriods[3]);
+
+		/* Publish for the tasks that use them */
+		Blackboard.PulseWidthsUs.beginWrite();
+		for (int i = 0; i < 4; ++i)
+			Blackboard.PulseWidthsUs.set(i, _dutyCycleAndPeriods[i][0]);
+		Blackboard.PulseWidthsUs.endWrite();
 	}
 
 	public String toString() {
@@ -0,0 +1,1357 @@
+/**
+ * Counts and times the calls the robot makes into Phoenix, per device and method.
+ *
+ * Every device call crosses JNI, even one that only reads a frame the API already has.
+ * Construct the device with the class here instead and the same code runs with its
+ * calls accounted...
+ *
+ *	TalonSRX _talon = new CallAccounting.Talon(1);		// instead of new TalonSRX(1)
+ *
+ * then print CallAccounting.report(), in disabledInit() say, for every device and
+ * method ranked by total time in the call, with calls per second, mean and max.
+ *
+ * A call with a nonzero timeoutMs waits up to that long for the device to answer.
+ * Made from a *Periodic() method it stalls the loop, so it's counted as blocking and
+ * the first one of each device and method is printed with where it came from.
+ * Blocking calls from *Init() and robotInit() are expected and not flagged.
+ *
+ * Only the methods these examples use are accounted, the rest go straight through.
+ * A call made from inside another accounted call, set() calling its longer overload,
+ * is counted once as the outer one.
+ *
+ * Opt in, the plain classes cost nothing.  An accounted call adds two nanoTime()
+ * reads and an uncontended lock, and is safe from Notifier threads.
+ */
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.ctre.phoenix.CANifier;
+import com.ctre.phoenix.CANifierStatusFrame;
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.VelocityPeriod;
+import com.ctre.phoenix.motion.MotionProfileStatus;
+import com.ctre.phoenix.motion.TrajectoryPoint;
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.DemandType;
+import com.ctre.phoenix.motorcontrol.FeedbackDevice;
+import com.ctre.phoenix.motorcontrol.FollowerType;
+import com.ctre.phoenix.motorcontrol.IMotorController;
+import com.ctre.phoenix.motorcontrol.NeutralMode;
+import com.ctre.phoenix.motorcontrol.RemoteSensorSource;
+import com.ctre.phoenix.motorcontrol.SensorTerm;
+import com.ctre.phoenix.motorcontrol.StatusFrame;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.can.TalonSRX;
+import com.ctre.phoenix.motorcontrol.can.VictorSPX;
+import com.ctre.phoenix.sensors.PigeonIMU;
+import com.ctre.phoenix.sensors.PigeonIMU_StatusFrame;
+
+public class CallAccounting {
+
+	/** Most accounted devices */
+	public static final int kMaxDevices = 16;
+	/** Most accounted methods, over every device type */
+	public static final int kMaxMethods = 64;
+
+	private static final String[] _deviceNames = new String[kMaxDevices];
+	private static int _deviceCount = 0;
+	private static final String[] _methodNames = new String[kMaxMethods];
+	private static int _methodCount = 0;
+
+	/* per device and method, guarded by the class */
+	private static final long[][] _calls = new long[kMaxDevices][kMaxMethods];
+	private static final long[][] _totalNs = new long[kMaxDevices][kMaxMethods];
+	private static final long[][] _maxNs = new long[kMaxDevices][kMaxMethods];
+	private static final long[][] _blocking = new long[kMaxDevices][kMaxMethods];
+	private static long _startNs = 0;
+
+	/* accounted calls this thread is inside of, so nested ones are skipped */
+	private static final ThreadLocal<int[]> _depth = ThreadLocal.withInitial(() -> new int[1]);
+
+	private static final int kSet = method("set");
+	private static final int kNeutralOutput = method("neutralOutput");
+	private static final int kFollow = method("follow");
+	private static final int kSetNeutralMode = method("setNeutralMode");
+	private static final int kSetInverted = method("setInverted");
+	private static final int kSetSensorPhase = method("setSensorPhase");
+	private static final int kGetSelectedSensorPosition = method("getSelectedSensorPosition");
+	private static final int kGetSelectedSensorVelocity = method("getSelectedSensorVelocity");
+	private static final int kSetSelectedSensorPosition = method("setSelectedSensorPosition");
+	private static final int kGetClosedLoopError = method("getClosedLoopError");
+	private static final int kGetMotorOutputPercent = method("getMotorOutputPercent");
+	private static final int kGetOutputCurrent = method("getOutputCurrent");
+	private static final int kGetBusVoltage = method("getBusVoltage");
+	private static final int kGetMotionProfileStatus = method("getMotionProfileStatus");
+	private static final int kPushMotionProfileTrajectory = method("pushMotionProfileTrajectory");
+	private static final int kProcessMotionProfileBuffer = method("processMotionProfileBuffer");
+	private static final int kClearMotionProfileTrajectories = method("clearMotionProfileTrajectories");
+	private static final int kClearMotionProfileHasUnderrun = method("clearMotionProfileHasUnderrun");
+	private static final int kChangeMotionControlFramePeriod = method("changeMotionControlFramePeriod");
+	private static final int kGetActiveTrajectoryPosition = method("getActiveTrajectoryPosition");
+	private static final int kGetActiveTrajectoryVelocity = method("getActiveTrajectoryVelocity");
+	private static final int kGetActiveTrajectoryHeading = method("getActiveTrajectoryHeading");
+	private static final int kConfigMotionProfileTrajectoryPeriod = method("configMotionProfileTrajectoryPeriod");
+	private static final int kConfig_kP = method("config_kP");
+	private static final int kConfig_kI = method("config_kI");
+	private static final int kConfig_kD = method("config_kD");
+	private static final int kConfig_kF = method("config_kF");
+	private static final int kConfig_IntegralZone = method("config_IntegralZone");
+	private static final int kConfigClosedLoopPeakOutput = method("configClosedLoopPeakOutput");
+	private static final int kConfigClosedLoopPeriod = method("configClosedLoopPeriod");
+	private static final int kConfigSelectedFeedbackSensor = method("configSelectedFeedbackSensor");
+	private static final int kConfigRemoteFeedbackFilter = method("configRemoteFeedbackFilter");
+	private static final int kConfigSensorTerm = method("configSensorTerm");
+	private static final int kConfigSelectedFeedbackCoefficient = method("configSelectedFeedbackCoefficient");
+	private static final int kConfigNeutralDeadband = method("configNeutralDeadband");
+	private static final int kConfigPeakOutputForward = method("configPeakOutputForward");
+	private static final int kConfigPeakOutputReverse = method("configPeakOutputReverse");
+	private static final int kConfigMotionCruiseVelocity = method("configMotionCruiseVelocity");
+	private static final int kConfigMotionAcceleration = method("configMotionAcceleration");
+	private static final int kConfigAuxPIDPolarity = method("configAuxPIDPolarity");
+	private static final int kConfigFactoryDefault = method("configFactoryDefault");
+	private static final int kSetStatusFramePeriod = method("setStatusFramePeriod");
+	private static final int kGetYawPitchRoll = method("getYawPitchRoll");
+	private static final int kGetRawGyro = method("getRawGyro");
+	private static final int kGetFusedHeading = method("getFusedHeading");
+	private static final int kGetGeneralStatus = method("getGeneralStatus");
+	private static final int kGetState = method("getState");
+	private static final int kSetYaw = method("setYaw");
+	private static final int kSetFusedHeading = method("setFusedHeading");
+	private static final int kSetAccumZAngle = method("setAccumZAngle");
+	private static final int kGetQuadraturePosition = method("getQuadraturePosition");
+	private static final int kGetQuadratureVelocity = method("getQuadratureVelocity");
+	private static final int kSetQuadraturePosition = method("setQuadraturePosition");
+	private static final int kConfigVelocityMeasurementPeriod = method("configVelocityMeasurementPeriod");
+	private static final int kConfigVelocityMeasurementWindow = method("configVelocityMeasurementWindow");
+	private static final int kSetLEDOutput = method("setLEDOutput");
+	private static final int kGetGeneralInput = method("getGeneralInput");
+	private static final int kGetPWMInput = method("getPWMInput");
+
+	/**
+	 * Every device and method called since boot, or since reset(), most total time first.
+	 */
+	public static synchronized String report() {
+		List<long[]> rows = new ArrayList<>();
+		long calls = 0, totalNs = 0, blocking = 0;
+		for (int d = 0; d < _deviceCount; ++d) {
+			for (int m = 0; m < _methodCount; ++m) {
+				if (_calls[d][m] == 0)
+					continue;
+				rows.add(new long[] { d, m });
+				calls += _calls[d][m];
+				totalNs += _totalNs[d][m];
+				blocking += _blocking[d][m];
+			}
+		}
+		rows.sort((a, b) -> Long.compare(_totalNs[(int) b[0]][(int) b[1]], _totalNs[(int) a[0]][(int) a[1]]));
+		double seconds = (_startNs == 0) ? 0 : (System.nanoTime() - _startNs) / 1e9;
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("CallAccounting: %d calls, %.1f ms in Phoenix over %.1f s, %d blocking in periodic%n",
+				calls, totalNs / 1e6, seconds, blocking));
+		sb.append(String.format("  %-10s %-36s %9s %8s %9s %9s %9s %8s%n", "device", "method", "calls", "per sec",
+				"total ms", "mean us", "max us", "blocking"));
+		for (long[] row : rows) {
+			int d = (int) row[0];
+			int m = (int) row[1];
+			sb.append(String.format("  %-10s %-36s %9d %8.1f %9.2f %9.1f %9.1f %8d%n", _deviceNames[d], _methodNames[m],
+					_calls[d][m], (seconds > 0) ? _calls[d][m] / seconds : 0, _totalNs[d][m] / 1e6,
+					_totalNs[d][m] / 1e3 / _calls[d][m], _maxNs[d][m] / 1e3, _blocking[d][m]));
+		}
+		return sb.toString();
+	}
+
+	/** Start counting again, from now */
+	public static synchronized void reset() {
+		for (int d = 0; d < kMaxDevices; ++d) {
+			Arrays.fill(_calls[d], 0);
+			Arrays.fill(_totalNs[d], 0);
+			Arrays.fill(_maxNs[d], 0);
+			Arrays.fill(_blocking[d], 0);
+		}
+		_startNs = System.nanoTime();
+	}
+
+	private static int method(String name) {
+		_methodNames[_methodCount] = name;
+		return _methodCount++;
+	}
+
+	/* a device, or -1 once there are too many and it goes unaccounted */
+	private static synchronized int device(String name) {
+		if (_deviceCount >= kMaxDevices) {
+			System.out.println("CallAccounting: no room for " + name);
+			return -1;
+		}
+		if (_startNs == 0)
+			_startNs = System.nanoTime();
+		_deviceNames[_deviceCount] = name;
+		return _deviceCount++;
+	}
+
+	/* start of an accounted call, its start time or -1 inside another one */
+	private static long begin() {
+		int[] depth = _depth.get();
+		return (depth[0]++ == 0) ? System.nanoTime() : -1;
+	}
+
+	/* end of an accounted call */
+	private static void end(int device, int method, long startNs, int timeoutMs) {
+		long ns = System.nanoTime() - startNs;
+		--_depth.get()[0];
+		if (startNs < 0 || device < 0)
+			return;
+		boolean blocking = timeoutMs > 0 && inPeriodic();
+		boolean first;
+		synchronized (CallAccounting.class) {
+			++_calls[device][method];
+			_totalNs[device][method] += ns;
+			if (ns > _maxNs[device][method])
+				_maxNs[device][method] = ns;
+			first = blocking && _blocking[device][method]++ == 0;
+		}
+		if (first) {
+			System.out.println("CallAccounting: " + _deviceNames[device] + " " + _methodNames[method] + " with timeout "
+					+ timeoutMs + " ms in a periodic method, from " + caller());
+		}
+	}
+
+	/* only walked for calls with a timeout, which are slow anyway */
+	private static boolean inPeriodic() {
+		String self = CallAccounting.class.getName();
+		return StackWalker.getInstance().walk(frames -> frames.filter(f -> !f.getClassName().startsWith(self))
+				.anyMatch(f -> f.getMethodName().endsWith("Periodic")));
+	}
+
+	/* first frame outside this class */
+	private static String caller() {
+		String self = CallAccounting.class.getName();
+		return StackWalker.getInstance().walk(frames -> frames.filter(f -> !f.getClassName().startsWith(self))
+				.findFirst().map(Object::toString).orElse("?"));
+	}
+
+	/** TalonSRX with its calls accounted */
+	public static class Talon extends TalonSRX {
+		private final int _device;
+
+		public Talon(int deviceNumber) {
+			super(deviceNumber);
+			_device = device("Talon " + deviceNumber);
+		}
+
+		@Override
+		public void set(ControlMode mode, double outputValue) {
+			long t = begin();
+			try {
+				super.set(mode, outputValue);
+			} finally {
+				end(_device, kSet, t, 0);
+			}
+		}
+
+		@Override
+		public void set(ControlMode mode, double demand0, DemandType demand1Type, double demand1) {
+			long t = begin();
+			try {
+				super.set(mode, demand0, demand1Type, demand1);
+			} finally {
+				end(_device, kSet, t, 0);
+			}
+		}
+
+		@Override
+		public void neutralOutput() {
+			long t = begin();
+			try {
+				super.neutralOutput();
+			} finally {
+				end(_device, kNeutralOutput, t, 0);
+			}
+		}
+
+		@Override
+		public void follow(IMotorController masterToFollow, FollowerType followerType) {
+			long t = begin();
+			try {
+				super.follow(masterToFollow, followerType);
+			} finally {
+				end(_device, kFollow, t, 0);
+			}
+		}
+
+		@Override
+		public void setNeutralMode(NeutralMode neutralMode) {
+			long t = begin();
+			try {
+				super.setNeutralMode(neutralMode);
+			} finally {
+				end(_device, kSetNeutralMode, t, 0);
+			}
+		}
+
+		@Override
+		public void setInverted(boolean invert) {
+			long t = begin();
+			try {
+				super.setInverted(invert);
+			} finally {
+				end(_device, kSetInverted, t, 0);
+			}
+		}
+
+		@Override
+		public void setSensorPhase(boolean phaseSensor) {
+			long t = begin();
+			try {
+				super.setSensorPhase(phaseSensor);
+			} finally {
+				end(_device, kSetSensorPhase, t, 0);
+			}
+		}
+
+		@Override
+		public int getSelectedSensorPosition(int pidIdx) {
+			long t = begin();
+			try {
+				return super.getSelectedSensorPosition(pidIdx);
+			} finally {
+				end(_device, kGetSelectedSensorPosition, t, 0);
+			}
+		}
+
+		@Override
+		public int getSelectedSensorVelocity(int pidIdx) {
+			long t = begin();
+			try {
+				return super.getSelectedSensorVelocity(pidIdx);
+			} finally {
+				end(_device, kGetSelectedSensorVelocity, t, 0);
+			}
+		}
+
+		@Override
+		public ErrorCode setSelectedSensorPosition(int sensorPos, int pidIdx, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.setSelectedSensorPosition(sensorPos, pidIdx, timeoutMs);
+			} finally {
+				end(_device, kSetSelectedSensorPosition, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public int getClosedLoopError(int pidIdx) {
+			long t = begin();
+			try {
+				return super.getClosedLoopError(pidIdx);
+			} finally {
+				end(_device, kGetClosedLoopError, t, 0);
+			}
+		}
+
+		@Override
+		public double getMotorOutputPercent() {
+			long t = begin();
+			try {
+				return super.getMotorOutputPercent();
+			} finally {
+				end(_device, kGetMotorOutputPercent, t, 0);
+			}
+		}
+
+		@Override
+		public double getOutputCurrent() {
+			long t = begin();
+			try {
+				return super.getOutputCurrent();
+			} finally {
+				end(_device, kGetOutputCurrent, t, 0);
+			}
+		}
+
+		@Override
+		public double getBusVoltage() {
+			long t = begin();
+			try {
+				return super.getBusVoltage();
+			} finally {
+				end(_device, kGetBusVoltage, t, 0);
+			}
+		}
+
+		@Override
+		public ErrorCode getMotionProfileStatus(MotionProfileStatus statusToFill) {
+			long t = begin();
+			try {
+				return super.getMotionProfileStatus(statusToFill);
+			} finally {
+				end(_device, kGetMotionProfileStatus, t, 0);
+			}
+		}
+
+		@Override
+		public ErrorCode pushMotionProfileTrajectory(TrajectoryPoint trajPt) {
+			long t = begin();
+			try {
+				return super.pushMotionProfileTrajectory(trajPt);
+			} finally {
+				end(_device, kPushMotionProfileTrajectory, t, 0);
+			}
+		}
+
+		@Override
+		public void processMotionProfileBuffer() {
+			long t = begin();
+			try {
+				super.processMotionProfileBuffer();
+			} finally {
+				end(_device, kProcessMotionProfileBuffer, t, 0);
+			}
+		}
+
+		@Override
+		public ErrorCode clearMotionProfileTrajectories() {
+			long t = begin();
+			try {
+				return super.clearMotionProfileTrajectories();
+			} finally {
+				end(_device, kClearMotionProfileTrajectories, t, 0);
+			}
+		}
+
+		@Override
+		public ErrorCode clearMotionProfileHasUnderrun(int timeoutMs) {
+			long t = begin();
+			try {
+				return super.clearMotionProfileHasUnderrun(timeoutMs);
+			} finally {
+				end(_device, kClearMotionProfileHasUnderrun, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode changeMotionControlFramePeriod(int periodMs) {
+			long t = begin();
+			try {
+				return super.changeMotionControlFramePeriod(periodMs);
+			} finally {
+				end(_device, kChangeMotionControlFramePeriod, t, 0);
+			}
+		}
+
+		@Override
+		public int getActiveTrajectoryPosition() {
+			long t = begin();
+			try {
+				return super.getActiveTrajectoryPosition();
+			} finally {
+				end(_device, kGetActiveTrajectoryPosition, t, 0);
+			}
+		}
+
+		@Override
+		public int getActiveTrajectoryVelocity() {
+			long t = begin();
+			try {
+				return super.getActiveTrajectoryVelocity();
+			} finally {
+				end(_device, kGetActiveTrajectoryVelocity, t, 0);
+			}
+		}
+
+		@Override
+		public double getActiveTrajectoryHeading() {
+			long t = begin();
+			try {
+				return super.getActiveTrajectoryHeading();
+			} finally {
+				end(_device, kGetActiveTrajectoryHeading, t, 0);
+			}
+		}
+
+		@Override
+		public ErrorCode configMotionProfileTrajectoryPeriod(int baseTrajDurationMs, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configMotionProfileTrajectoryPeriod(baseTrajDurationMs, timeoutMs);
+			} finally {
+				end(_device, kConfigMotionProfileTrajectoryPeriod, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode config_kP(int slotIdx, double value, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.config_kP(slotIdx, value, timeoutMs);
+			} finally {
+				end(_device, kConfig_kP, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode config_kI(int slotIdx, double value, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.config_kI(slotIdx, value, timeoutMs);
+			} finally {
+				end(_device, kConfig_kI, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode config_kD(int slotIdx, double value, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.config_kD(slotIdx, value, timeoutMs);
+			} finally {
+				end(_device, kConfig_kD, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode config_kF(int slotIdx, double value, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.config_kF(slotIdx, value, timeoutMs);
+			} finally {
+				end(_device, kConfig_kF, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode config_IntegralZone(int slotIdx, int izone, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.config_IntegralZone(slotIdx, izone, timeoutMs);
+			} finally {
+				end(_device, kConfig_IntegralZone, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configClosedLoopPeakOutput(int slotIdx, double percentOut, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configClosedLoopPeakOutput(slotIdx, percentOut, timeoutMs);
+			} finally {
+				end(_device, kConfigClosedLoopPeakOutput, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configClosedLoopPeriod(int slotIdx, int loopTimeMs, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configClosedLoopPeriod(slotIdx, loopTimeMs, timeoutMs);
+			} finally {
+				end(_device, kConfigClosedLoopPeriod, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configSelectedFeedbackSensor(FeedbackDevice feedbackDevice, int pidIdx, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configSelectedFeedbackSensor(feedbackDevice, pidIdx, timeoutMs);
+			} finally {
+				end(_device, kConfigSelectedFeedbackSensor, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configRemoteFeedbackFilter(int deviceID, RemoteSensorSource remoteSensorSource, int remoteOrdinal,
+				int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configRemoteFeedbackFilter(deviceID, remoteSensorSource, remoteOrdinal, timeoutMs);
+			} finally {
+				end(_device, kConfigRemoteFeedbackFilter, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configSensorTerm(SensorTerm sensorTerm, FeedbackDevice feedbackDevice, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configSensorTerm(sensorTerm, feedbackDevice, timeoutMs);
+			} finally {
+				end(_device, kConfigSensorTerm, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configSelectedFeedbackCoefficient(double coefficient, int pidIdx, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configSelectedFeedbackCoefficient(coefficient, pidIdx, timeoutMs);
+			} finally {
+				end(_device, kConfigSelectedFeedbackCoefficient, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configNeutralDeadband(double percentDeadband, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configNeutralDeadband(percentDeadband, timeoutMs);
+			} finally {
+				end(_device, kConfigNeutralDeadband, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configPeakOutputForward(double percentOut, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configPeakOutputForward(percentOut, timeoutMs);
+			} finally {
+				end(_device, kConfigPeakOutputForward, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configPeakOutputReverse(double percentOut, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configPeakOutputReverse(percentOut, timeoutMs);
+			} finally {
+				end(_device, kConfigPeakOutputReverse, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configMotionCruiseVelocity(int sensorUnitsPer100ms, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configMotionCruiseVelocity(sensorUnitsPer100ms, timeoutMs);
+			} finally {
+				end(_device, kConfigMotionCruiseVelocity, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configMotionAcceleration(int sensorUnitsPer100msPerSec, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configMotionAcceleration(sensorUnitsPer100msPerSec, timeoutMs);
+			} finally {
+				end(_device, kConfigMotionAcceleration, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configAuxPIDPolarity(boolean invert, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configAuxPIDPolarity(invert, timeoutMs);
+			} finally {
+				end(_device, kConfigAuxPIDPolarity, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configFactoryDefault(int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configFactoryDefault(timeoutMs);
+			} finally {
+				end(_device, kConfigFactoryDefault, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode setStatusFramePeriod(StatusFrame frame, int periodMs, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.setStatusFramePeriod(frame, periodMs, timeoutMs);
+			} finally {
+				end(_device, kSetStatusFramePeriod, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode setStatusFramePeriod(StatusFrameEnhanced frame, int periodMs, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.setStatusFramePeriod(frame, periodMs, timeoutMs);
+			} finally {
+				end(_device, kSetStatusFramePeriod, t, timeoutMs);
+			}
+		}
+	}
+
+	/** VictorSPX with its calls accounted, the same methods as Talon less the Talon only ones */
+	public static class Victor extends VictorSPX {
+		private final int _device;
+
+		public Victor(int deviceNumber) {
+			super(deviceNumber);
+			_device = device("Victor " + deviceNumber);
+		}
+
+		@Override
+		public void set(ControlMode mode, double outputValue) {
+			long t = begin();
+			try {
+				super.set(mode, outputValue);
+			} finally {
+				end(_device, kSet, t, 0);
+			}
+		}
+
+		@Override
+		public void set(ControlMode mode, double demand0, DemandType demand1Type, double demand1) {
+			long t = begin();
+			try {
+				super.set(mode, demand0, demand1Type, demand1);
+			} finally {
+				end(_device, kSet, t, 0);
+			}
+		}
+
+		@Override
+		public void neutralOutput() {
+			long t = begin();
+			try {
+				super.neutralOutput();
+			} finally {
+				end(_device, kNeutralOutput, t, 0);
+			}
+		}
+
+		@Override
+		public void follow(IMotorController masterToFollow, FollowerType followerType) {
+			long t = begin();
+			try {
+				super.follow(masterToFollow, followerType);
+			} finally {
+				end(_device, kFollow, t, 0);
+			}
+		}
+
+		@Override
+		public void setNeutralMode(NeutralMode neutralMode) {
+			long t = begin();
+			try {
+				super.setNeutralMode(neutralMode);
+			} finally {
+				end(_device, kSetNeutralMode, t, 0);
+			}
+		}
+
+		@Override
+		public void setInverted(boolean invert) {
+			long t = begin();
+			try {
+				super.setInverted(invert);
+			} finally {
+				end(_device, kSetInverted, t, 0);
+			}
+		}
+
+		@Override
+		public void setSensorPhase(boolean phaseSensor) {
+			long t = begin();
+			try {
+				super.setSensorPhase(phaseSensor);
+			} finally {
+				end(_device, kSetSensorPhase, t, 0);
+			}
+		}
+
+		@Override
+		public int getSelectedSensorPosition(int pidIdx) {
+			long t = begin();
+			try {
+				return super.getSelectedSensorPosition(pidIdx);
+			} finally {
+				end(_device, kGetSelectedSensorPosition, t, 0);
+			}
+		}
+
+		@Override
+		public int getSelectedSensorVelocity(int pidIdx) {
+			long t = begin();
+			try {
+				return super.getSelectedSensorVelocity(pidIdx);
+			} finally {
+				end(_device, kGetSelectedSensorVelocity, t, 0);
+			}
+		}
+
+		@Override
+		public ErrorCode setSelectedSensorPosition(int sensorPos, int pidIdx, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.setSelectedSensorPosition(sensorPos, pidIdx, timeoutMs);
+			} finally {
+				end(_device, kSetSelectedSensorPosition, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public int getClosedLoopError(int pidIdx) {
+			long t = begin();
+			try {
+				return super.getClosedLoopError(pidIdx);
+			} finally {
+				end(_device, kGetClosedLoopError, t, 0);
+			}
+		}
+
+		@Override
+		public double getMotorOutputPercent() {
+			long t = begin();
+			try {
+				return super.getMotorOutputPercent();
+			} finally {
+				end(_device, kGetMotorOutputPercent, t, 0);
+			}
+		}
+
+		@Override
+		public double getBusVoltage() {
+			long t = begin();
+			try {
+				return super.getBusVoltage();
+			} finally {
+				end(_device, kGetBusVoltage, t, 0);
+			}
+		}
+
+		@Override
+		public ErrorCode getMotionProfileStatus(MotionProfileStatus statusToFill) {
+			long t = begin();
+			try {
+				return super.getMotionProfileStatus(statusToFill);
+			} finally {
+				end(_device, kGetMotionProfileStatus, t, 0);
+			}
+		}
+
+		@Override
+		public ErrorCode pushMotionProfileTrajectory(TrajectoryPoint trajPt) {
+			long t = begin();
+			try {
+				return super.pushMotionProfileTrajectory(trajPt);
+			} finally {
+				end(_device, kPushMotionProfileTrajectory, t, 0);
+			}
+		}
+
+		@Override
+		public void processMotionProfileBuffer() {
+			long t = begin();
+			try {
+				super.processMotionProfileBuffer();
+			} finally {
+				end(_device, kProcessMotionProfileBuffer, t, 0);
+			}
+		}
+
+		@Override
+		public ErrorCode clearMotionProfileTrajectories() {
+			long t = begin();
+			try {
+				return super.clearMotionProfileTrajectories();
+			} finally {
+				end(_device, kClearMotionProfileTrajectories, t, 0);
+			}
+		}
+
+		@Override
+		public ErrorCode clearMotionProfileHasUnderrun(int timeoutMs) {
+			long t = begin();
+			try {
+				return super.clearMotionProfileHasUnderrun(timeoutMs);
+			} finally {
+				end(_device, kClearMotionProfileHasUnderrun, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode changeMotionControlFramePeriod(int periodMs) {
+			long t = begin();
+			try {
+				return super.changeMotionControlFramePeriod(periodMs);
+			} finally {
+				end(_device, kChangeMotionControlFramePeriod, t, 0);
+			}
+		}
+
+		@Override
+		public int getActiveTrajectoryPosition() {
+			long t = begin();
+			try {
+				return super.getActiveTrajectoryPosition();
+			} finally {
+				end(_device, kGetActiveTrajectoryPosition, t, 0);
+			}
+		}
+
+		@Override
+		public int getActiveTrajectoryVelocity() {
+			long t = begin();
+			try {
+				return super.getActiveTrajectoryVelocity();
+			} finally {
+				end(_device, kGetActiveTrajectoryVelocity, t, 0);
+			}
+		}
+
+		@Override
+		public double getActiveTrajectoryHeading() {
+			long t = begin();
+			try {
+				return super.getActiveTrajectoryHeading();
+			} finally {
+				end(_device, kGetActiveTrajectoryHeading, t, 0);
+			}
+		}
+
+		@Override
+		public ErrorCode configMotionProfileTrajectoryPeriod(int baseTrajDurationMs, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configMotionProfileTrajectoryPeriod(baseTrajDurationMs, timeoutMs);
+			} finally {
+				end(_device, kConfigMotionProfileTrajectoryPeriod, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode config_kP(int slotIdx, double value, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.config_kP(slotIdx, value, timeoutMs);
+			} finally {
+				end(_device, kConfig_kP, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode config_kI(int slotIdx, double value, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.config_kI(slotIdx, value, timeoutMs);
+			} finally {
+				end(_device, kConfig_kI, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode config_kD(int slotIdx, double value, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.config_kD(slotIdx, value, timeoutMs);
+			} finally {
+				end(_device, kConfig_kD, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode config_kF(int slotIdx, double value, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.config_kF(slotIdx, value, timeoutMs);
+			} finally {
+				end(_device, kConfig_kF, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode config_IntegralZone(int slotIdx, int izone, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.config_IntegralZone(slotIdx, izone, timeoutMs);
+			} finally {
+				end(_device, kConfig_IntegralZone, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configClosedLoopPeakOutput(int slotIdx, double percentOut, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configClosedLoopPeakOutput(slotIdx, percentOut, timeoutMs);
+			} finally {
+				end(_device, kConfigClosedLoopPeakOutput, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configClosedLoopPeriod(int slotIdx, int loopTimeMs, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configClosedLoopPeriod(slotIdx, loopTimeMs, timeoutMs);
+			} finally {
+				end(_device, kConfigClosedLoopPeriod, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configSelectedFeedbackSensor(FeedbackDevice feedbackDevice, int pidIdx, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configSelectedFeedbackSensor(feedbackDevice, pidIdx, timeoutMs);
+			} finally {
+				end(_device, kConfigSelectedFeedbackSensor, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configRemoteFeedbackFilter(int deviceID, RemoteSensorSource remoteSensorSource, int remoteOrdinal,
+				int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configRemoteFeedbackFilter(deviceID, remoteSensorSource, remoteOrdinal, timeoutMs);
+			} finally {
+				end(_device, kConfigRemoteFeedbackFilter, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configSensorTerm(SensorTerm sensorTerm, FeedbackDevice feedbackDevice, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configSensorTerm(sensorTerm, feedbackDevice, timeoutMs);
+			} finally {
+				end(_device, kConfigSensorTerm, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configSelectedFeedbackCoefficient(double coefficient, int pidIdx, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configSelectedFeedbackCoefficient(coefficient, pidIdx, timeoutMs);
+			} finally {
+				end(_device, kConfigSelectedFeedbackCoefficient, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configNeutralDeadband(double percentDeadband, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configNeutralDeadband(percentDeadband, timeoutMs);
+			} finally {
+				end(_device, kConfigNeutralDeadband, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configPeakOutputForward(double percentOut, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configPeakOutputForward(percentOut, timeoutMs);
+			} finally {
+				end(_device, kConfigPeakOutputForward, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configPeakOutputReverse(double percentOut, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configPeakOutputReverse(percentOut, timeoutMs);
+			} finally {
+				end(_device, kConfigPeakOutputReverse, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configMotionCruiseVelocity(int sensorUnitsPer100ms, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configMotionCruiseVelocity(sensorUnitsPer100ms, timeoutMs);
+			} finally {
+				end(_device, kConfigMotionCruiseVelocity, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configMotionAcceleration(int sensorUnitsPer100msPerSec, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configMotionAcceleration(sensorUnitsPer100msPerSec, timeoutMs);
+			} finally {
+				end(_device, kConfigMotionAcceleration, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configAuxPIDPolarity(boolean invert, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configAuxPIDPolarity(invert, timeoutMs);
+			} finally {
+				end(_device, kConfigAuxPIDPolarity, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configFactoryDefault(int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configFactoryDefault(timeoutMs);
+			} finally {
+				end(_device, kConfigFactoryDefault, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode setStatusFramePeriod(StatusFrame frame, int periodMs, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.setStatusFramePeriod(frame, periodMs, timeoutMs);
+			} finally {
+				end(_device, kSetStatusFramePeriod, t, timeoutMs);
+			}
+		}
+	}
+
+	/** PigeonIMU with its calls accounted */
+	public static class Pigeon extends PigeonIMU {
+		private final int _device;
+
+		public Pigeon(int deviceNumber) {
+			super(deviceNumber);
+			_device = device("Pigeon " + deviceNumber);
+		}
+
+		@Override
+		public ErrorCode getYawPitchRoll(double[] ypr_deg) {
+			long t = begin();
+			try {
+				return super.getYawPitchRoll(ypr_deg);
+			} finally {
+				end(_device, kGetYawPitchRoll, t, 0);
+			}
+		}
+
+		@Override
+		public ErrorCode getRawGyro(double[] xyz_dps) {
+			long t = begin();
+			try {
+				return super.getRawGyro(xyz_dps);
+			} finally {
+				end(_device, kGetRawGyro, t, 0);
+			}
+		}
+
+		@Override
+		public double getFusedHeading() {
+			long t = begin();
+			try {
+				return super.getFusedHeading();
+			} finally {
+				end(_device, kGetFusedHeading, t, 0);
+			}
+		}
+
+		@Override
+		public double getFusedHeading(FusionStatus toFill) {
+			long t = begin();
+			try {
+				return super.getFusedHeading(toFill);
+			} finally {
+				end(_device, kGetFusedHeading, t, 0);
+			}
+		}
+
+		@Override
+		public ErrorCode getGeneralStatus(GeneralStatus toFill) {
+			long t = begin();
+			try {
+				return super.getGeneralStatus(toFill);
+			} finally {
+				end(_device, kGetGeneralStatus, t, 0);
+			}
+		}
+
+		@Override
+		public PigeonState getState() {
+			long t = begin();
+			try {
+				return super.getState();
+			} finally {
+				end(_device, kGetState, t, 0);
+			}
+		}
+
+		@Override
+		public ErrorCode setYaw(double angleDeg) {
+			long t = begin();
+			try {
+				return super.setYaw(angleDeg);
+			} finally {
+				end(_device, kSetYaw, t, 0);
+			}
+		}
+
+		@Override
+		public ErrorCode setYaw(double angleDeg, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.setYaw(angleDeg, timeoutMs);
+			} finally {
+				end(_device, kSetYaw, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode setFusedHeading(double angleDeg, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.setFusedHeading(angleDeg, timeoutMs);
+			} finally {
+				end(_device, kSetFusedHeading, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode setAccumZAngle(double angleDeg, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.setAccumZAngle(angleDeg, timeoutMs);
+			} finally {
+				end(_device, kSetAccumZAngle, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode setStatusFramePeriod(PigeonIMU_StatusFrame statusFrame, int periodMs, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.setStatusFramePeriod(statusFrame, periodMs, timeoutMs);
+			} finally {
+				end(_device, kSetStatusFramePeriod, t, timeoutMs);
+			}
+		}
+	}
+
+	/** CANifier with its calls accounted */
+	public static class Canifier extends CANifier {
+		private final int _device;
+
+		public Canifier(int deviceNumber) {
+			super(deviceNumber);
+			_device = device("CANifier " + deviceNumber);
+		}
+
+		@Override
+		public int getQuadraturePosition() {
+			long t = begin();
+			try {
+				return super.getQuadraturePosition();
+			} finally {
+				end(_device, kGetQuadraturePosition, t, 0);
+			}
+		}
+
+		@Override
+		public int getQuadratureVelocity() {
+			long t = begin();
+			try {
+				return super.getQuadratureVelocity();
+			} finally {
+				end(_device, kGetQuadratureVelocity, t, 0);
+			}
+		}
+
+		@Override
+		public ErrorCode setQuadraturePosition(int newPosition, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.setQuadraturePosition(newPosition, timeoutMs);
+			} finally {
+				end(_device, kSetQuadraturePosition, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configVelocityMeasurementPeriod(VelocityPeriod period, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configVelocityMeasurementPeriod(period, timeoutMs);
+			} finally {
+				end(_device, kConfigVelocityMeasurementPeriod, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode configVelocityMeasurementWindow(int windowSize, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configVelocityMeasurementWindow(windowSize, timeoutMs);
+			} finally {
+				end(_device, kConfigVelocityMeasurementWindow, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode setLEDOutput(double percentOutput, LEDChannel ledChannel) {
+			long t = begin();
+			try {
+				return super.setLEDOutput(percentOutput, ledChannel);
+			} finally {
+				end(_device, kSetLEDOutput, t, 0);
+			}
+		}
+
+		@Override
+		public boolean getGeneralInput(GeneralPin inputPin) {
+			long t = begin();
+			try {
+				return super.getGeneralInput(inputPin);
+			} finally {
+				end(_device, kGetGeneralInput, t, 0);
+			}
+		}
+
+		@Override
+		public ErrorCode getPWMInput(PWMChannel pwmChannel, double[] dutyCycleAndPeriod) {
+			long t = begin();
+			try {
+				return super.getPWMInput(pwmChannel, dutyCycleAndPeriod);
+			} finally {
+				end(_device, kGetPWMInput, t, 0);
+			}
+		}
+
+		@Override
+		public double getBusVoltage() {
+			long t = begin();
+			try {
+				return super.getBusVoltage();
+			} finally {
+				end(_device, kGetBusVoltage, t, 0);
+			}
+		}
+
+		@Override
+		public ErrorCode configFactoryDefault(int timeoutMs) {
+			long t = begin();
+			try {
+				return super.configFactoryDefault(timeoutMs);
+			} finally {
+				end(_device, kConfigFactoryDefault, t, timeoutMs);
+			}
+		}
+
+		@Override
+		public ErrorCode setStatusFramePeriod(CANifierStatusFrame statusFrame, int periodMs, int timeoutMs) {
+			long t = begin();
+			try {
+				return super.setStatusFramePeriod(statusFrame, periodMs, timeoutMs);
+			} finally {
+				end(_device, kSetStatusFramePeriod, t, timeoutMs);
+			}
+		}
+	}
+}
@@ -53,9 +53,12 @@ import com.ctre.phoenix.motorcontrol.can.*;
 import com.ctre.phoenix.*;
 
 public class Robot extends TimedRobot {
+	/* Count and time every Phoenix call, see CallAccounting. false for the plain device classes */
+	static final boolean kAccountCalls = false;
+
 	/* Hardware */
-	CANifier _can = new CANifier(0);	// CANifier
-	TalonSRX _tal = new TalonSRX(1);	// Talon SRX
+	CANifier _can = kAccountCalls ? new CallAccounting.Canifier(0) : new CANifier(0);	// CANifier
+	TalonSRX _tal = kAccountCalls ? new CallAccounting.Talon(1) : new TalonSRX(1);		// Talon SRX
 	Joystick _joy = new Joystick(0);	// Joystick or Gamepad
 
 	/* Variable to keep track of loop count */
@@ -66,6 +69,15 @@ public class Robot extends TimedRobot {
 		/* Not used in this project */
 	}
 
+	@Override
+	public void disabledInit() {
+		/* Phoenix calls since the robot was last disabled (since boot the first time), then start over */
+		if (kAccountCalls) {
+			System.out.print(CallAccounting.report());
+			CallAccounting.reset();
+		}
+	}
+
 	@Override
 	public void teleopInit() {
 		/* Factory Default all hardware to prevent unexpected behaviour */
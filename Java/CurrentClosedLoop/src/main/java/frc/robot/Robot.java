@@ -57,9 +57,11 @@ public class Robot extends TimedRobot {
 	TalonSRX _talon = new TalonSRX(1);
 	Joystick _joy = new Joystick(0);
 	
-    /** Used to build string throughout loop */
-    StringBuilder _sb = new StringBuilder();
-	int _loops = 0;
+    /** Prints from a background thread, so the loop never waits on the console */
+    AsyncLogger _log = new AsyncLogger(64);
+	/** Output and current, plus error and target in Current Closed-loop, 5 lines per second */
+	int _logOutput = _log.site("\tout:%s%%\tcur:%sA", 5);
+	int _logClosedLoop = _log.site("\tout:%s%%\tcur:%sA\terrNative:%d\ttrg:%s", 5);
 
 	/**
 	 * This function is run when the robot is first started up and should be
@@ -102,16 +104,8 @@ public class Robot extends TimedRobot {
 		leftYstick = Deadband(leftYstick);		// Deadband stick to prevent noise
 		boolean button1 = _joy.getRawButton(1);	// Button used to enter Current Closed Loop
 
-		double motorOutput = _talon.getMotorOutputPercent();
-
-		/* Prepare line to print */
-		_sb.append("\tout:");
-		_sb.append(motorOutput);
-		_sb.append("%");	// Percent
-
-		_sb.append("\tcur:");
-		_sb.append(_talon.getOutputCurrent());
-		_sb.append("A");	// Amps
+		double motorOutput = _talon.getMotorOutputPercent();	// Percent
+		double current = _talon.getOutputCurrent();			// Amps
 
 		/** 
 		 * Hold Button 1 (X-Button) to run current closed loop
@@ -128,24 +122,16 @@ public class Robot extends TimedRobot {
 			_talon.set(ControlMode.PercentOutput, leftYstick);
 		}
 
-		/* If Talon is in Current Closed-loop, print some more info */
-		if (_talon.getControlMode() == ControlMode.Current) {
-			_sb.append("\terrNative:");
-			_sb.append(_talon.getClosedLoopError(0));
-			_sb.append("\ttrg:");
-			_sb.append(leftYstick * 40);
-		}
-
         /**
-		 * Print every ten loops, 
-         * printing too much too fast is generally bad for performance
+		 * Print, the sites' rate limit keeps it to every ten loops or so,
+         * printing too much too fast is generally bad for performance.
+		 * If Talon is in Current Closed-loop, print some more info.
 		 */
-		if (++_loops >= 10) {
-			_loops = 0;
-			System.out.println(_sb.toString());
-        }
-        /* Reset built string for next print */
-		_sb.setLength(0);
+		if (_talon.getControlMode() == ControlMode.Current) {
+			_log.log(_logClosedLoop, motorOutput, current, _talon.getClosedLoopError(0), leftYstick * 40);
+		} else {
+			_log.log(_logOutput, motorOutput, current);
+		}
 	}
 
 	/** Deadband 5 percent, used on the gamepad */
@@ -93,8 +93,17 @@ public class Robot extends TimedRobot {
 	/** Holds the current angle to servo to */
 	double _targetAngle = 0;
 	
-	/** Count loops to print every second or so */
-	int _printLoops = 0;
+	/** Prints from a background thread, so the loop never waits on the console */
+	AsyncLogger _log = new AsyncLogger(64);
+	/** Print block, once a second or so, one site for each angle state */
+	static final String kPrintBlock = "------------------------------------------\n"
+									+ "error: %s\n"
+									+ "angle: %s\n"
+									+ "rate: %s\n"
+									+ "noMotionBiasCount: %d\n"
+									+ "tempCompensationCount: %d\n";
+	int _logAngleGood = _log.site(kPrintBlock + "Angle is good\n------------------------------------------", 1);
+	int _logAngleBad = _log.site(kPrintBlock + "Angle is NOT GOOD\n------------------------------------------", 1);
 
 	public Robot() {
         /* Init Hardware */
@@ -227,19 +236,13 @@ public class Robot extends TimedRobot {
 		_rightFront.set(ControlMode.PercentOutput, -1. * right);
 		_rightRear.set(ControlMode.PercentOutput, -1. * right);
 
-		/* Prints for debugging */
-		if (++_printLoops > 50){
-			_printLoops = 0;
-			/* Create Print Block */
-			System.out.println("------------------------------------------");
-			System.out.println("error: " + (_targetAngle - currentAngle) );
-			System.out.println("angle: "+ currentAngle);
-			System.out.println("rate: "+ currentAngularRate);
-			System.out.println("noMotionBiasCount: "+ genStatus.noMotionBiasCount);
-			System.out.println("tempCompensationCount: "+ genStatus.tempCompensationCount);
-			System.out.println( angleIsGood ? "Angle is good" : "Angle is NOT GOOD");
-			System.out.println("------------------------------------------");
-		}
+		/* Prints for debugging, the site's rate limit keeps it to about once a second */
+		_log.log(angleIsGood ? _logAngleGood : _logAngleBad,
+				_targetAngle - currentAngle,
+				currentAngle,
+				currentAngularRate,
+				genStatus.noMotionBiasCount,
+				genStatus.tempCompensationCount);
     }
 
     /** 
@@ -108,6 +108,11 @@ public class Robot extends TimedRobot {
 
     /* Nonzero to block the config until success, zero to skip checking */
     final int kTimeoutMs = 30;
+
+	/* Prints from a background thread, so the loop never waits on the console */
+	AsyncLogger _log = new AsyncLogger(64);
+	/* Positions, at most 10 lines per second */
+	int _logPositions = _log.site("pulseWidPos:%d   =>    selSenPos:%d      pulseWidDeg:%s   =>    selSenDeg:%s", 10);
 	
     /**
 	 * If the measured travel has a discontinuity, Note the extremities or
@@ -160,12 +165,8 @@ public class Robot extends TimedRobot {
 		 * absolute and continuous. Show in sensor units and in rotation
 		 * degrees.
 		 */
-		System.out.print("pulseWidPos:" + pulseWidthWithoutOverflows +
-						 "   =>    " + "selSenPos:" + selSenPos);
-		System.out.print("      ");
-		System.out.print("pulseWidDeg:" + ToDeg(pulseWidthWithoutOverflows) +
-						 "   =>    " + "selSenDeg:" + ToDeg(selSenPos));
-		System.out.println();
+		_log.log(_logPositions, pulseWidthWithoutOverflows, selSenPos,
+				ToDeg(pulseWidthWithoutOverflows), ToDeg(selSenPos));
 	}
 
 	/**
@@ -208,7 +209,7 @@ public class Robot extends TimedRobot {
 	 * @param units CTRE mag encoder sensor units 
 	 * @return degrees rounded to tenths.
 	 */
-	String ToDeg(int units) {
+	double ToDeg(int units) {
 		double deg = units * 360.0 / 4096.0;
 
 		/* truncate to 0.1 res */
@@ -216,6 +217,6 @@ public class Robot extends TimedRobot {
 		deg = (int) deg;
 		deg /= 10;
 
-		return "" + deg;
+		return deg;
 	}
 }
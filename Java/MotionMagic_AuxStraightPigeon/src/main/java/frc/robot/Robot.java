@@ -90,9 +90,23 @@ public class Robot extends TimedRobot {
 	boolean _state = false;
 	double _targetAngle = 0;
 
+	/** Status frame periods, from what each part of the robot reads */
+	StatusFramePlanner _frames = new StatusFramePlanner();
+
 	@Override
 	public void robotInit() {
-		/* Not used in this project */
+		/* Every device on the bus, so the planner can predict the load */
+		_frames.add(_leftMaster, "leftMaster");
+		_frames.add(_rightMaster, "rightMaster");
+		_frames.add(_pidgey, "pidgey");
+
+		/* Frames each consumer reads, and the oldest the data may be in ms */
+		_frames.require(_rightMaster, StatusFrame.Status_12_Feedback1, 20, "target heading (aux sensor)");
+		_frames.require(_rightMaster, StatusFrame.Status_13_Base_PIDF0, 20, "distance closed loop");
+		_frames.require(_rightMaster, StatusFrame.Status_14_Turn_PIDF1, 20, "turn closed loop");
+		_frames.require(_rightMaster, StatusFrame.Status_10_Targets, 20, "Motion Magic targets");
+		_frames.require(_leftMaster, StatusFrame.Status_2_Feedback0, 5, "right Talon sums this sensor");
+		_frames.require(_pidgey, PigeonIMU_StatusFrame.CondStatus_9_SixDeg_YPR, 5, "right Talon aux PID yaw");
 	}
 
 	@Override
@@ -159,13 +173,8 @@ public class Robot extends TimedRobot {
 		_rightMaster.setInverted(true);
 		_rightMaster.setSensorPhase(true);
 		
-		/* Set status frame periods to ensure we don't have stale data */
-		_rightMaster.setStatusFramePeriod(StatusFrame.Status_12_Feedback1, 20, Constants.kTimeoutMs);
-		_rightMaster.setStatusFramePeriod(StatusFrame.Status_13_Base_PIDF0, 20, Constants.kTimeoutMs);
-		_rightMaster.setStatusFramePeriod(StatusFrame.Status_14_Turn_PIDF1, 20, Constants.kTimeoutMs);
-		_rightMaster.setStatusFramePeriod(StatusFrame.Status_10_Targets, 20, Constants.kTimeoutMs);
-		_leftMaster.setStatusFramePeriod(StatusFrame.Status_2_Feedback0, 5, Constants.kTimeoutMs);
-		_pidgey.setStatusFramePeriod(PigeonIMU_StatusFrame.CondStatus_9_SixDeg_YPR , 5, Constants.kTimeoutMs);
+		/* Set status frame periods to ensure we don't have stale data, declared in robotInit() */
+		_frames.apply(Constants.kTimeoutMs);
 
 		/* Configure neutral deadband */
 		_rightMaster.configNeutralDeadband(Constants.kNeutralDeadband, Constants.kTimeoutMs);
@@ -1,193 +1,30 @@
 package frc.robot;
 
 public class GeneratedMotionProfile {
-	public static final int kNumPoints = 185;
-	// Position (rotations) Velocity (RPM) Duration (ms)
-	public static double [][]Points = new double[][]{		
-		{0,	0	,10},
-		{4.76190476190476E-05,	0.571428571	,10},
-		{0.000214285714285714,	1.428571429	,10},
-		{0.000547619047619048,	2.571428571	,10},
-		{0.0010952380952381,	4			,10},
-		{0.0019047619047619,	5.714285714	,10},
-		{0.00302380952380952,	7.714285714	,10},
-		{0.0045,				10			,10},
-		{0.00638095238095238,	12.57142857	,10},
-		{0.00871428571428571,	15.42857143	,10},
-		{0.011547619047619,		18.57142857	,10},
-		{0.0149285714285714,	22			,10},
-		{0.0189047619047619,	25.71428571	,10},
-		{0.0235238095238095,	29.71428571	,10},
-		{0.0288333333333333,	34			,10},
-		{0.0348809523809524,	38.57142857	,10},
-		{0.0417142857142857,	43.42857143	,10},
-		{0.0493809523809524,	48.57142857	,10},
-		{0.0579285714285714,	54			,10},
-		{0.0674047619047619,	59.71428571	,10},
-		{0.0778571428571429,	65.71428571	,10},
-		{0.0893095238095238,	71.71428571	,10},
-		{0.101761904761905,	77.71428571	,10},
-		{0.115214285714286,	83.71428571	,10},
-		{0.129666666666667,	89.71428571	,10},
-		{0.145119047619048,	95.71428571	,10},
-		{0.161571428571429,	101.7142857	,10},
-		{0.17902380952381,	107.7142857	,10},
-		{0.19747619047619,	113.7142857	,10},
-		{0.216928571428571,	119.7142857	,10},
-		{0.237380952380952,	125.7142857	,10},
-		{0.258833333333333,	131.7142857	,10},
-		{0.281285714285714,	137.7142857	,10},
-		{0.304738095238095,	143.7142857	,10},
-		{0.329190476190476,	149.7142857	,10},
-		{0.354642857142857,	155.7142857	,10},
-		{0.381095238095238,	161.7142857	,10},
-		{0.408547619047619,	167.7142857	,10},
-		{0.437,				173.7142857	,10},
-		{0.466452380952381,	179.7142857	,10},
-		{0.496904761904762,	185.7142857	,10},
-		{0.528309523809524,	191.1428571	,10},
-		{0.560595238095238,	196.2857143	,10},
-		{0.593714285714286,	201.1428571	,10},
-		{0.627619047619048,	205.7142857	,10},
-		{0.662261904761905,	210			,10},
-		{0.697595238095238,	214			,10},
-		{0.733571428571429,	217.7142857	,10},
-		{0.770142857142857,	221.1428571	,10},
-		{0.807261904761905,	224.2857143	,10},
-		{0.844880952380952,	227.1428571	,10},
-		{0.882952380952381,	229.7142857	,10},
-		{0.921428571428571,	232			,10},
-		{0.960261904761905,	234			,10},
-		{0.999404761904762,	235.7142857	,10},
-		{1.03880952380952,	237.1428571	,10},
-		{1.07842857142857,	238.2857143	,10},
-		{1.11821428571429,	239.1428571	,10},
-		{1.15811904761905,	239.7142857	,10},
-		{1.19809523809524,	240	,10},
-		{1.23809523809524,	240	,10},
-		{1.27809523809524,	240	,10},
-		{1.31809523809524,	240	,10},
-		{1.35809523809524,	240	,10},
-		{1.39809523809524,	240	,10},
-		{1.43809523809524,	240	,10},
-		{1.47809523809524,	240	,10},
-		{1.51809523809524,	240	,10},
-		{1.55809523809524,	240	,10},
-		{1.59809523809524,	240	,10},
-		{1.63809523809524,	240	,10},
-		{1.67809523809524,	240	,10},
-		{1.71809523809524,	240	,10},
-		{1.75809523809524,	240	,10},
-		{1.79809523809524,	240	,10},
-		{1.83809523809524,	240	,10},
-		{1.87809523809524,	240	,10},
-		{1.91809523809524,	240	,10},
-		{1.95809523809524,	240	,10},
-		{1.99809523809524,	240	,10},
-		{2.03809523809524,	240	,10},
-		{2.07809523809524,	240	,10},
-		{2.11809523809524,	240	,10},
-		{2.15809523809524,	240	,10},
-		{2.19809523809524,	240	,10},
-		{2.23809523809524,	240	,10},
-		{2.27809523809524,	240	,10},
-		{2.31809523809524,	240	,10},
-		{2.35809523809524,	240	,10},
-		{2.39809523809524,	240	,10},
-		{2.43809523809524,	240	,10},
-		{2.47809523809524,	240	,10},
-		{2.51809523809524,	240	,10},
-		{2.55809523809524,	240	,10},
-		{2.59809523809524,	240	,10},
-		{2.63809523809524,	240	,10},
-		{2.67809523809524,	240	,10},
-		{2.71809523809524,	240	,10},
-		{2.75809523809524,	240	,10},
-		{2.79809523809524,	240	,10},
-		{2.83809523809524,	240	,10},
-		{2.87809523809524,	240	,10},
-		{2.91809523809524,	240	,10},
-		{2.95809523809524,	240	,10},
-		{2.99809523809524,	240	,10},
-		{3.03809523809524,	240	,10},
-		{3.07809523809524,	240	,10},
-		{3.11809523809524,	240	,10},
-		{3.15809523809524,	240	,10},
-		{3.19809523809524,	240	,10},
-		{3.23809523809524,	240	,10},
-		{3.27809523809524,	240	,10},
-		{3.31809523809524,	240	,10},
-		{3.35809523809524,	240	,10},
-		{3.39809523809524,	240	,10},
-		{3.43809523809524,	240	,10},
-		{3.47809523809524,	240	,10},
-		{3.51809523809524,	240	,10},
-		{3.55809523809524,	240	,10},
-		{3.59809523809524,	240	,10},
-		{3.63809523809524,	240	,10},
-		{3.67809523809524,	240	,10},
-		{3.71809523809524,	240	,10},
-		{3.75809523809524,	240	,10},
-		{3.79809523809524,	240	,10},
-		{3.83809523809524,	240	,10},
-		{3.87804761904762,	239.4285714	,10},
-		{3.91788095238095,	238.5714286	,10},
-		{3.95754761904762,	237.4285714	,10},
-		{3.997,				236			,10},
-		{4.03619047619048,	234.2857143	,10},
-		{4.07507142857143,	232.2857143	,10},
-		{4.11359523809524,	230			,10},
-		{4.15171428571429,	227.4285714	,10},
-		{4.18938095238095,	224.5714286	,10},
-		{4.22654761904762,	221.4285714	,10},
-		{4.26316666666667,	218			,10},
-		{4.29919047619048,	214.2857143	,10},
-		{4.33457142857143,	210.2857143	,10},
-		{4.36926190476191,	206			,10},
-		{4.40321428571429,	201.4285714	,10},
-		{4.43638095238095,	196.5714286	,10},
-		{4.46871428571429,	191.4285714	,10},
-		{4.50016666666667,	186			,10},
-		{4.53069047619048,	180.2857143	,10},
-		{4.5602380952381,	174.2857143	,10},
-		{4.58878571428572,	168.2857143	,10},
-		{4.61633333333334,	162.2857143	,10},
-		{4.64288095238095,	156.2857143	,10},
-		{4.66842857142857,	150.2857143	,10},
-		{4.69297619047619,	144.2857143	,10},
-		{4.71652380952381,	138.2857143	,10},
-		{4.73907142857143,	132.2857143	,10},
-		{4.76061904761905,	126.2857143	,10},
-		{4.78116666666667,	120.2857143	,10},
-		{4.80071428571429,	114.2857143	,10},
-		{4.81926190476191,	108.2857143	,10},
-		{4.83680952380953,	102.2857143	,10},
-		{4.85335714285714,	96.28571429	,10},
-		{4.86890476190476,	90.28571429	,10},
-		{4.88345238095238,	84.28571429	,10},
-		{4.897,				78.28571429	,10},
-		{4.90954761904762,	72.28571429	,10},
-		{4.92109523809524,	66.28571429	,10},
-		{4.93164285714286,	60.28571429	,10},
-		{4.94119047619048,	54.28571429	,10},
-		{4.94978571428572,	48.85714286	,10},
-		{4.9575,			43.71428571	,10},
-		{4.96438095238095,	38.85714286	,10},
-		{4.97047619047619,	34.28571429	,10},
-		{4.97583333333333,	30			,10},
-		{4.9805,			26			,10},
-		{4.98452380952381,	22.28571429	,10},
-		{4.98795238095238,	18.85714286	,10},
-		{4.99083333333334,	15.71428571	,10},
-		{4.99321428571429,	12.85714286	,10},
-		{4.99514285714286,	10.28571429	,10},
-		{4.99666666666667,	8			,10},
-		{4.99783333333334,	6			,10},
-		{4.99869047619048,	4.285714286	,10},
-		{4.99928571428572,	2.857142857	,10},
-		{4.99966666666667,	1.714285714	,10},
-		{4.99988095238095,	0.857142857	,10},
-		{4.99997619047619,	0.285714286	,10},
-		{5,	0	,10}};
+	/**
+	 * Profile file in src/main/deploy, 185 points.
+	 * Position (rotations) Velocity (RPM) Duration (ms)
+	 * Regenerate with ProfileFileWriter from the spreadsheet's .csv export.
+	 */
+	public static final String kFileName = "GeneratedMotionProfile.mp";
 
+	/**
+	 * Set to true to build an S-curve on the robot instead of loading kFileName.
+	 * The parameters below roughly match the shipped file.
+	 */
+	public static final boolean kGenerate = false;
+	public static final double kDistanceRot = 5;
+	public static final double kVelocityRPM = 240;
+	public static final double kAccelRPMPerSec = 600;
+	public static final double kJerkRPMPerSec2 = 6000;
+	public static final int kDurationMs = 10;
+
+	private static SCurveGenerator _generator = new SCurveGenerator(185);
+
+	/** @return the profile to fire, generated or from the deploy directory */
+	public static ProfileFile load() {
+		if (kGenerate)
+			return _generator.generate(kDistanceRot, kVelocityRPM, kAccelRPMPerSec, kJerkRPMPerSec2, kDurationMs);
+		return ProfileFile.open(kFileName);
+	}
 }
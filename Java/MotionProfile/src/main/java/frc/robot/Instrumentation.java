@@ -18,26 +18,45 @@
  * Hold            2048            0               0               1                                                                               5.0             0.0
  * 
  * ...where the columns are reprinted occasionally so you know whats up.
+ * 
+ * The printout only shows one sample every 200ms.  Every sample is also appended to the
+ * FlightRecorder file, decode it with FlightRecorderDecoder to look for underruns after a match.
+ *
+ * MotionProfileExample is given one, off the robot (the soak test) it gets a subclass
+ * that skips process() and OnGroupStart() since there is no HAL.
  */
 package frc.robot;
 
+import java.io.PrintStream;
+
 import com.ctre.phoenix.motion.*;
 
 public class Instrumentation {
 
-	static double timeout = 0;
-	static int count = 0;
+	double timeout = 0;
+	int count = 0;
 
 	private static final String[] _table = {" Dis ", " En  ", "Hold "};
 
-	public static void OnUnderrun() {
+	public void OnUnderrun() {
 		System.out.format("%s\n", "UNDERRUN");
 	}
 
-	public static void OnNoProgress() {
+	public void OnNoProgress() {
 		System.out.format("%s\n", "NOPROGRESS");
 	}
 
+	/**
+	 * Printed once per MP when every Talon in the group is running.
+	 * depth is each Talon's btmBufferCnt when the MP was enabled, lead is how
+	 * far it started ahead of the slowest Talon.
+	 */
+	public void OnGroupStart(int[] depth, int[] leadMs, int skewMs) {
+		System.out.format("%s skew(ms):%d\n", "GROUPSTART", skewMs);
+		for (int i = 0; i < depth.length; ++i)
+			System.out.format("\t%d: btmCnt:%d lead(ms):%d\n", i, depth[i], leadMs[i]);
+	}
+
 	static private String StrOutputEnable(SetValueMotionProfile sv) {
 		/* convert sv to string equiv */
 		if (sv == null)
@@ -47,8 +66,11 @@ public class Instrumentation {
 		return _table[sv.value];
 	}
 
-	public static void process(MotionProfileStatus status, double pos,
+	public void process(MotionProfileStatus status, double pos,
 			double vel, double heading) {
+		/* keep every sample, this is just a binary append */
+		FlightRecorder.record(status, pos, vel, heading);
+
 		double now = edu.wpi.first.wpilibj.Timer.getFPGATimestamp();
 
 		if ((now - timeout) > 0.2) {
@@ -59,36 +81,46 @@ public class Instrumentation {
 				count = 8;
 				/* every 8 loops, print our columns */
 
-				System.out.format("%-9s\t", "outEn");
-				System.out.format("%-9s\t", "topCnt");
-				System.out.format("%-9s\t", "topRem");
-				System.out.format("%-9s\t", "btmCnt");
-				System.out.format("%-9s\t", "IsValid");
-				System.out.format("%-9s\t", "HasUnder");
-				System.out.format("%-9s\t", "IsUnder");
-				System.out.format("%-9s\t", "IsLast");
-				System.out.format("%-9s\t", "targPos");
-				System.out.format("%-9s\t", "targVel");
-				System.out.format("%-9s\t", "SlotSel0");
-				System.out.format("%-9s\t", "timeDurMs");
-
-				System.out.format("\n");
+				printHeader(System.out);
 			}
 			/* every loop, print our values */
-			System.out.format("%-9s\t", StrOutputEnable(status.outputEnable));
-			System.out.format("%-9s\t", status.topBufferCnt);
-			System.out.format("%-9s\t", status.topBufferRem);
-			System.out.format("%-9s\t", status.btmBufferCnt);
-			System.out.format("%-9s\t", (status.activePointValid ? "1" : ""));
-			System.out.format("%-9s\t", (status.hasUnderrun ? "1" : ""));
-			System.out.format("%-9s\t", (status.isUnderrun ? "1" : ""));
-			System.out.format("%-9s\t", (status.isLast ? "1" : ""));
-			System.out.format("%-9s\t", pos);
-			System.out.format("%-9s\t", vel);
-			System.out.format("%-9s\t", status.profileSlotSelect);
-			System.out.format("%-9s\t", status.timeDurMs);
-
-			System.out.format("\n");
+			printRow(System.out, status, pos, vel);
 		}
 	}
+
+	/** Column names, separate from process() so the formatting can be benchmarked */
+	static void printHeader(PrintStream out) {
+		out.format("%-9s\t", "outEn");
+		out.format("%-9s\t", "topCnt");
+		out.format("%-9s\t", "topRem");
+		out.format("%-9s\t", "btmCnt");
+		out.format("%-9s\t", "IsValid");
+		out.format("%-9s\t", "HasUnder");
+		out.format("%-9s\t", "IsUnder");
+		out.format("%-9s\t", "IsLast");
+		out.format("%-9s\t", "targPos");
+		out.format("%-9s\t", "targVel");
+		out.format("%-9s\t", "SlotSel0");
+		out.format("%-9s\t", "timeDurMs");
+
+		out.format("\n");
+	}
+
+	/** One row of values */
+	static void printRow(PrintStream out, MotionProfileStatus status, double pos, double vel) {
+		out.format("%-9s\t", StrOutputEnable(status.outputEnable));
+		out.format("%-9s\t", status.topBufferCnt);
+		out.format("%-9s\t", status.topBufferRem);
+		out.format("%-9s\t", status.btmBufferCnt);
+		out.format("%-9s\t", (status.activePointValid ? "1" : ""));
+		out.format("%-9s\t", (status.hasUnderrun ? "1" : ""));
+		out.format("%-9s\t", (status.isUnderrun ? "1" : ""));
+		out.format("%-9s\t", (status.isLast ? "1" : ""));
+		out.format("%-9s\t", pos);
+		out.format("%-9s\t", vel);
+		out.format("%-9s\t", status.profileSlotSelect);
+		out.format("%-9s\t", status.timeDurMs);
+
+		out.format("\n");
+	}
 }
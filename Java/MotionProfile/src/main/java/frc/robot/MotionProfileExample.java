@@ -17,37 +17,56 @@
  * 
  * getControlMode, to check if we are in Motion Profile Control mode.
  * 
+ * Points are not pushed all at once.  Every control() call tops off the Talon's top buffer with only as
+ * many points as topBufferRem says will fit (capped at kMaxPointsPerLoop), so pushMotionProfileTrajectory()
+ * is called continuously while the Talon executes the motion profile.  The profile can be any length and
+ * the time spent in the robot loop stays bounded.
+ * 
+ * processMotionProfileBuffer() is called by a MotionProfilePump, which runs only as fast as the profile
+ * drains, parks itself when there is nothing to transfer, and picks how many points to buffer before
+ * the MP is enabled.
+ * 
+ * Any number of Talons can be driven from the one profile, e.g. both masters of a drivetrain or elevator.
+ * Each Talon gets its own buffer, they are all topped off in the same control() call, the MP is only
+ * enabled once every Talon has the pump's start threshold buffered, and getSetValue() is the same for all of them
+ * so Robot set()s them back to back in the same loop.  Once they are all running, the start skew between
+ * them is printed (see Instrumentation.OnGroupStart()).
+ * 
+ * Profiles can be chained with queue().  Queued profiles are streamed back to back as one MP (see
+ * ProfileChain), each one offset to start where the last ended, so only the first point zeros the
+ * sensor, only the last point is isLast, and the Talon never drops to Hold between them.  Underrun and
+ * isLast handling covers the whole chain.
+ * 
  * Example of advanced features not demonstrated here...
- * [1] Calling pushMotionProfileTrajectory() continuously while the Talon executes the motion profile, thereby keeping it going indefinitely.
- * [2] Instead of setting the sensor position to zero at the start of each MP, the program could offset the MP's position based on current position. 
+ * [1] Instead of setting the sensor position to zero at the start of each MP, the program could offset the MP's position based on current position. 
  */
 package frc.robot;
 
 
 import com.ctre.phoenix.motorcontrol.ControlMode;
-import com.ctre.phoenix.motorcontrol.can.*;
+import com.ctre.phoenix.motorcontrol.IMotorController;
 
-import edu.wpi.first.wpilibj.Notifier;
 import com.ctre.phoenix.motion.*;
 
 public class MotionProfileExample {
 
 	/**
-	 * The status of the motion profile executer and buffer inside the Talon.
+	 * The status of the motion profile executer and buffer inside each Talon.
 	 * Instead of creating a new one every time we call getMotionProfileStatus,
-	 * keep one copy.
+	 * keep one copy per Talon.  _status is the first Talon's, for instrumentation.
 	 */
-	private MotionProfileStatus _status = new MotionProfileStatus();
+	private MotionProfileStatus[] _statuses;
+	private MotionProfileStatus _status;
 
 	/** additional cache for holding the active trajectory point */
 	double _pos=0,_vel=0,_heading=0;
 
 	/**
-	 * reference to the talon we plan on manipulating. We will not changeMode()
+	 * references to the talons we plan on manipulating. We will not changeMode()
 	 * or call set(), just get motion profile status and make decisions based on
 	 * motion profile.
 	 */
-	private TalonSRX _talon;
+	private IMotorController[] _talons;
 	/**
 	 * State machine to make sure we let enough of the motion profile stream to
 	 * talon before we fire it.
@@ -75,45 +94,93 @@ public class MotionProfileExample {
 	 */
 	private SetValueMotionProfile _setValue = SetValueMotionProfile.Disable;
 	/**
-	 * How many trajectory points do we wait for before firing the motion
-	 * profile.
+	 * How long the buffered points should last before firing the motion
+	 * profile, to start with.  The pump adapts it (5 points of 10ms).
 	 */
-	private static final int kMinPointsInTalon = 5;
+	static final int kInitialLeadMs = 50;
 	/**
 	 * Just a state timeout to make sure we don't get stuck anywhere. Each loop
 	 * is about 20ms.
 	 */
 	private static final int kNumLoopsTimeout = 10;
-	
+
+	/** Profile to fire, mapped once (or generated, see GeneratedMotionProfile.kGenerate) and decoded as it's streamed */
+	private ProfileFile _profile;
+
 	/**
-	 * Lets create a periodic task to funnel our trajectory points into our talon.
-	 * It doesn't need to be very accurate, just needs to keep pace with the motion
-	 * profiler executer.  Now if you're trajectory points are slow, there is no need
-	 * to do this, just call _talon.processMotionProfileBuffer() in your teleop loop.
-	 * Generally speaking you want to call it at least twice as fast as the duration
-	 * of your trajectory points.  So if they are firing every 20ms, you should call 
-	 * every 10ms.
+	 * Most points to push into the top buffer in one control() call.  This bounds
+	 * how long the feeder can hold up the robot loop.  Each loop is about 20ms, so
+	 * this only has to beat the profile's point rate by a comfortable margin.
 	 */
-	class PeriodicRunnable implements java.lang.Runnable {
-	    public void run() {  _talon.processMotionProfileBuffer();    }
-	}
-	Notifier _notifer = new Notifier(new PeriodicRunnable());
+	private static final int kMaxPointsPerLoop = 64;
+
+	/** Profiles queued to run back to back, and the chain being streamed */
+	private ProfileChain _chain = new ProfileChain();
+	/** True while at least one Talon still has points of the chain to be pushed */
+	private boolean _feeding = false;
+	/** Index of the next point to push to each Talon, and total points in the chain so far */
+	private int[] _feedIndex;
+	private int _feedTotal = 0;
+	/** Temp point reused for every push */
+	private ProfileFile.Point _next = new ProfileFile.Point();
+	private TrajectoryPoint _point = new TrajectoryPoint();
+
+	/** Start report, filled in once every Talon is running the MP */
+	private boolean _startReported = false;
+	/** btmBufferCnt of each Talon in the loop the MP was enabled */
+	private int[] _startDepth;
+	/** How far each Talon is ahead of the slowest one, ms */
+	private int[] _startLeadMs;
+	private int _startSkewMs = 0;
 	
+	/**
+	 * Periodic task to funnel our trajectory points into our talons.  It keeps
+	 * pace with the motion profile executer (at least twice as fast as the
+	 * points are used) only while there is something to funnel.
+	 */
+	private MotionProfilePump _pump;
+
+	/** printfs and/or logging */
+	private Instrumentation _instrumentation;
 
 	/**
 	 * C'tor
 	 * 
-	 * @param talon
-	 *            reference to Talon object to fetch motion profile status from.
+	 * @param talons
+	 *            every Talon that runs the profile, each one is filled and
+	 *            started together.
 	 */
-	public MotionProfileExample(TalonSRX talon) {
-		_talon = talon;
-		/*
-		 * since our MP is 10ms per point, set the control frame rate and the
-		 * notifer to half that
-		 */
-		_talon.changeMotionControlFramePeriod(5);
-		_notifer.startPeriodic(0.005);
+	public MotionProfileExample(IMotorController... talons) {
+		/* the pump sets the control frame rate to match its own, parked until an MP starts */
+		this(GeneratedMotionProfile.load(), new MotionProfilePump(kInitialLeadMs, talons), new Instrumentation(), talons);
+	}
+
+	/**
+	 * C'tor for running off the roboRIO, e.g. the Benchmarks project's soak test.
+	 * 
+	 * @param profile
+	 *            profile startMotionProfile() fires when nothing is queued.
+	 * @param pump
+	 *            pump for the same talons, one that doesn't start a Notifier
+	 *            when the caller calls processMotionProfileBuffer() itself.
+	 * @param instrumentation
+	 *            what to report to, one that skips the HAL when there is none.
+	 * @param talons
+	 *            every Talon that runs the profile.
+	 */
+	MotionProfileExample(ProfileFile profile, MotionProfilePump pump, Instrumentation instrumentation,
+			IMotorController... talons) {
+		_profile = profile;
+		_talons = talons;
+		_statuses = new MotionProfileStatus[talons.length];
+		for (int i = 0; i < talons.length; ++i)
+			_statuses[i] = new MotionProfileStatus();
+		_status = _statuses[0];
+		_feedIndex = new int[talons.length];
+		_startDepth = new int[talons.length];
+		_startLeadMs = new int[talons.length];
+		_pump = pump;
+		_instrumentation = instrumentation;
 	}
 
 	/**
@@ -126,9 +193,14 @@ public class MotionProfileExample {
 		 * middle of an MP, and now we have the second half of a profile just
 		 * sitting in memory.
 		 */
-		_talon.clearMotionProfileTrajectories();
+		for (IMotorController talon : _talons)
+			talon.clearMotionProfileTrajectories();
 		/* When we do re-enter motionProfile control mode, stay disabled. */
 		_setValue = SetValueMotionProfile.Disable;
+		/* Nothing left to stream, and forget anything queued */
+		_feeding = false;
+		_chain.clear();
+		_pump.park();
 		/* When we do start running our state machine start at the beginning. */
 		_state = 0;
 		_loopTimeout = -1;
@@ -144,7 +216,7 @@ public class MotionProfileExample {
 	 */
 	public void control() {
 		/* Get the motion profile status every loop */
-		_talon.getMotionProfileStatus(_status);
+		readStatuses();
 
 		/*
 		 * track time, this is rudimentary but that's okay, we just want to make
@@ -159,20 +231,22 @@ public class MotionProfileExample {
 				 * something is wrong. Talon is not present, unplugged, breaker
 				 * tripped
 				 */
-				Instrumentation.OnNoProgress();
+				_instrumentation.OnNoProgress();
 			} else {
 				--_loopTimeout;
 			}
 		}
 
 		/* first check if we are in MP mode */
-		if (_talon.getControlMode() != ControlMode.MotionProfile) {
+		if (!allInMotionProfileMode()) {
 			/*
 			 * we are not in MP mode. We are probably driving the robot around
 			 * using gamepads or some other mode.
 			 */
 			_state = 0;
 			_loopTimeout = -1;
+			_feeding = false;
+			_pump.park();
 		} else {
 			/*
 			 * we are in MP control mode. That means: starting Mps, checking Mp
@@ -197,10 +271,13 @@ public class MotionProfileExample {
 						 * wait for MP to stream to Talon, really just the first few
 						 * points
 						 */
-					/* do we have a minimum numberof points in Talon */
-					if (_status.btmBufferCnt > kMinPointsInTalon) {
-						/* start (once) the motion profile */
+					/* do we have a minimum numberof points in every Talon */
+					if (minBottomBufferCount() > _pump.getStartThreshold()) {
+						/* start (once) the motion profile, in every Talon in the same loop */
 						_setValue = SetValueMotionProfile.Enable;
+						for (int i = 0; i < _talons.length; ++i)
+							_startDepth[i] = _statuses[i].btmBufferCnt;
+						_startReported = false;
 						/* MP will start once the control frame gets scheduled */
 						_state = 2;
 						_loopTimeout = kNumLoopsTimeout;
@@ -212,97 +289,297 @@ public class MotionProfileExample {
 					 * timeout. Really this is so that you can unplug your talon in
 					 * the middle of an MP and react to it.
 					 */
-					if (_status.isUnderrun == false) {
+					if (anyUnderrun() == false) {
 						_loopTimeout = kNumLoopsTimeout;
 					}
+					/* once they are all running, see how far apart they started */
+					if (_startReported == false && allRunning()) {
+						measureStartSkew();
+						_instrumentation.OnGroupStart(_startDepth, _startLeadMs, _startSkewMs);
+						_startReported = true;
+					}
 					/*
 					 * If we are executing an MP and the MP finished, start loading
 					 * another. We will go into hold state so robot servo's
 					 * position.
 					 */
-					if (_status.activePointValid && _status.isLast) {
+					if (allLast()) {
 						/*
 						 * because we set the last point's isLast to true, we will
-						 * get here when the MP is done
+						 * get here when the whole chain is done
 						 */
 						_setValue = SetValueMotionProfile.Hold;
 						_state = 0;
 						_loopTimeout = -1;
+						/* adapt the start threshold for next time, and stop pumping */
+						_pump.onFinished(anyHasUnderrun());
+						/* anything queued too late to join the chain starts the next one */
+						_bStart = _chain.hasQueued();
 					}
 					break;
 			}
 
-			/* Get the motion profile status every loop */
-			_talon.getMotionProfileStatus(_status);
-			_heading = _talon.getActiveTrajectoryHeading();
-			_pos = _talon.getActiveTrajectoryPosition();
-			_vel = _talon.getActiveTrajectoryVelocity();
+			/* Top off the Talon's buffer with whatever is left of the profile */
+			feed();
+
+			/*
+			 * The status was read at the top of the loop, and feed() kept its
+			 * top buffer counts up to date.  Reading it again here would only be
+			 * more JNI calls for the same CAN frame.
+			 */
+			_heading = _talons[0].getActiveTrajectoryHeading();
+			_pos = _talons[0].getActiveTrajectoryPosition();
+			_vel = _talons[0].getActiveTrajectoryVelocity();
+
+			/* pump as fast as the Talon that is furthest behind needs */
+			if (_state != 0) {
+				int idx = lowestBottomBuffer();
+				_pump.update(_statuses[idx], _feeding == false && topBuffersEmpty());
+			}
 
 			/* printfs and/or logging */
-			Instrumentation.process(_status, _pos, _vel, _heading);
+			_instrumentation.process(_status, _pos, _vel, _heading);
 		}
 	}
 
 	/** Start filling the MPs to all of the involved Talons. */
 	private void startFilling() {
-		/* since this example only has one talon, just update that one */
-		startFilling(GeneratedMotionProfile.Points, GeneratedMotionProfile.kNumPoints);
+
+		for (int i = 0; i < _talons.length; ++i) {
+			/* did we get an underrun condition since last time we checked ? */
+			if (_statuses[i].hasUnderrun) {
+				/* better log it so we know about it */
+				_instrumentation.OnUnderrun();
+				/*
+				 * clear the error. This flag does not auto clear, this way 
+				 * we never miss logging it.
+				 */
+				_talons[i].clearMotionProfileHasUnderrun(0);
+			}
+			/*
+			 * just in case we are interrupting another MP and there is still buffer
+			 * points in memory, clear it.
+			 */
+			_talons[i].clearMotionProfileTrajectories();
+
+			/* set the base trajectory period to zero, use the individual trajectory period below */
+			_talons[i].configMotionProfileTrajectoryPeriod(Constants.kBaseTrajPeriodMs, Constants.kTimeoutMs);
+
+			_feedIndex[i] = 0;
+		}
+
+		/* start streaming from the first point, feed() sends the rest as room frees up */
+		readStatuses();
+		_chain.begin();
+		_feeding = true;
+		_feedTotal = _chain.size();
+		_pump.onFill(_feedTotal, (_feedTotal > 0) ? _chain.get(0, _next).durationMs : 0);
+		feed();
 	}
 
-	private void startFilling(double[][] profile, int totalCnt) {
+	/**
+	 * Push as many of the remaining points as fit in each top buffer.  Uses the
+	 * topBufferRem from the last getMotionProfileStatus() call, minus whatever
+	 * we pushed since then, so we never overfill.
+	 */
+	private void feed() {
+		if (_feeding == false) {
+			/* nothing to send */
+			return;
+		}
 
-		/* create an empty point */
-		TrajectoryPoint point = new TrajectoryPoint();
+		/* pick up anything queued since the last loop, unless the last point already went out */
+		_chain.extend();
+		_feedTotal = _chain.size();
 
-		/* did we get an underrun condition since last time we checked ? */
-		if (_status.hasUnderrun) {
-			/* better log it so we know about it */
-			Instrumentation.OnUnderrun();
-			/*
-			 * clear the error. This flag does not auto clear, this way 
-			 * we never miss logging it.
-			 */
-			_talon.clearMotionProfileHasUnderrun(0);
+		boolean done = true;
+		for (int i = 0; i < _talons.length; ++i) {
+			feed(_talons[i], _statuses[i], i);
+			if (_feedIndex[i] < _feedTotal)
+				done = false;
 		}
-		/*
-		 * just in case we are interrupting another MP and there is still buffer
-		 * points in memory, clear it.
-		 */
-		_talon.clearMotionProfileTrajectories();
-
-		/* set the base trajectory period to zero, use the individual trajectory period below */
-		_talon.configMotionProfileTrajectoryPeriod(Constants.kBaseTrajPeriodMs, Constants.kTimeoutMs);
-		
-		/* This is fast since it's just into our TOP buffer */
-		for (int i = 0; i < totalCnt; ++i) {
-			double positionRot = profile[i][0];
-			double velocityRPM = profile[i][1];
+
+		if (done) {
+			/* whole chain is in every Talon */
+			_feeding = false;
+		}
+	}
+
+	private void feed(IMotorController talon, MotionProfileStatus status, int idx) {
+		int room = Math.min(status.topBufferRem, kMaxPointsPerLoop);
+		while (room > 0 && _feedIndex[idx] < _feedTotal) {
+			ProfileFile.Point next = _chain.get(_feedIndex[idx], _next); /* decoded from the mapped file, offset to follow the segment before */
 			/* for each point, fill our structure and pass it to API */
-			point.position = positionRot * Constants.kSensorUnitsPerRotation; //Convert Revolutions to Units
-			point.velocity = velocityRPM * Constants.kSensorUnitsPerRotation / 600.0; //Convert RPM to Units/100ms
-			point.headingDeg = 0; /* future feature - not used in this example*/
-			point.profileSlotSelect0 = 0; /* which set of gains would you like to use [0,3]? */
-			point.profileSlotSelect1 = 0; /* future feature  - not used in this example - cascaded PID [0,1], leave zero */
-			point.timeDur = (int)profile[i][2];
-			point.zeroPos = false;
-			if (i == 0)
-				point.zeroPos = true; /* set this to true on the first point */
-
-			point.isLastPoint = false;
-			if ((i + 1) == totalCnt)
-				point.isLastPoint = true; /* set this to true on the last point  */
-
-			_talon.pushMotionProfileTrajectory(point);
+			fill(_point, next, _feedIndex[idx] == 0, _chain.isLast(_feedIndex[idx]));
+
+			talon.pushMotionProfileTrajectory(_point);
+
+			++_feedIndex[idx];
+			--room;
+			/* account for the push until the next getMotionProfileStatus() */
+			--status.topBufferRem;
+			++status.topBufferCnt;
+		}
+	}
+
+	/**
+	 * Convert one profile point to sensor units.
+	 * 
+	 * @param first		first point of the chain, zeroes the position
+	 * @param last		last point of the chain
+	 */
+	static void fill(TrajectoryPoint point, ProfileFile.Point next, boolean first, boolean last) {
+		double positionRot = next.position;
+		double velocityRPM = next.velocity;
+		point.position = positionRot * Constants.kSensorUnitsPerRotation; //Convert Revolutions to Units
+		point.velocity = velocityRPM * Constants.kSensorUnitsPerRotation / 600.0; //Convert RPM to Units/100ms
+		point.headingDeg = 0; /* future feature - not used in this example*/
+		point.profileSlotSelect0 = 0; /* which set of gains would you like to use [0,3]? */
+		point.profileSlotSelect1 = 0; /* future feature  - not used in this example - cascaded PID [0,1], leave zero */
+		point.timeDur = next.durationMs;
+		point.zeroPos = first; /* set this to true on the first point of the chain */
+		point.isLastPoint = last; /* set this to true on the last point of the chain */
+	}
+
+	private void readStatuses() {
+		for (int i = 0; i < _talons.length; ++i)
+			_talons[i].getMotionProfileStatus(_statuses[i]);
+	}
+
+	private boolean allInMotionProfileMode() {
+		for (IMotorController talon : _talons) {
+			if (talon.getControlMode() != ControlMode.MotionProfile)
+				return false;
+		}
+		return true;
+	}
+
+	private int minBottomBufferCount() {
+		return _statuses[lowestBottomBuffer()].btmBufferCnt;
+	}
+
+	private int lowestBottomBuffer() {
+		int idx = 0;
+		for (int i = 1; i < _statuses.length; ++i) {
+			if (_statuses[i].btmBufferCnt < _statuses[idx].btmBufferCnt)
+				idx = i;
 		}
+		return idx;
 	}
+
+	/** feed() keeps topBufferCnt up to date between status reads */
+	private boolean topBuffersEmpty() {
+		for (MotionProfileStatus status : _statuses) {
+			if (status.topBufferCnt > 0)
+				return false;
+		}
+		return true;
+	}
+
+	private boolean anyUnderrun() {
+		for (MotionProfileStatus status : _statuses) {
+			if (status.isUnderrun)
+				return true;
+		}
+		return false;
+	}
+
+	private boolean anyHasUnderrun() {
+		for (MotionProfileStatus status : _statuses) {
+			if (status.hasUnderrun)
+				return true;
+		}
+		return false;
+	}
+
+	private boolean allRunning() {
+		for (MotionProfileStatus status : _statuses) {
+			if (status.activePointValid == false || status.outputEnable != SetValueMotionProfile.Enable)
+				return false;
+		}
+		return true;
+	}
+
+	private boolean allLast() {
+		for (MotionProfileStatus status : _statuses) {
+			if (status.activePointValid == false || status.isLast == false)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Points each Talon has executed are the points pushed minus the points still
+	 * buffered.  Every Talon got the same profile, so any difference is how much
+	 * earlier it started, good to about one point.
+	 */
+	private void measureStartSkew() {
+		int minExecuted = Integer.MAX_VALUE;
+		for (int i = 0; i < _talons.length; ++i)
+			minExecuted = Math.min(minExecuted, executed(i));
+
+		_startSkewMs = 0;
+		for (int i = 0; i < _talons.length; ++i) {
+			int ms = 0;
+			for (int pt = minExecuted; pt < executed(i); ++pt)
+				ms += _chain.get(pt, _next).durationMs;
+			_startLeadMs[i] = ms;
+			_startSkewMs = Math.max(_startSkewMs, ms);
+		}
+	}
+
+	private int executed(int idx) {
+		MotionProfileStatus status = _statuses[idx];
+		return _feedIndex[idx] - status.topBufferCnt - status.btmBufferCnt;
+	}
+
 	/**
 	 * Called by application to signal Talon to start the buffered MP (when it's
 	 * able to).
 	 */
 	void startMotionProfile() {
+		/* nothing queued, fire the example profile by itself */
+		if (_chain.hasQueued() == false)
+			_chain.queue(_profile);
 		_bStart = true;
 	}
 
+	/**
+	 * Queue a profile to run after the ones already queued.  While an MP is
+	 * streaming it is added to the end of it, as long as the last point has
+	 * not been sent yet.
+	 *
+	 * @return false if the queue is full
+	 */
+	boolean queue(ProfileFile profile) {
+		return _chain.queue(profile);
+	}
+
+	/** @return the example profile */
+	ProfileFile getProfile() {
+		return _profile;
+	}
+
+	/** @return the Talons in the group, set() every one of them with getSetValue() each loop */
+	IMotorController[] getTalons() {
+		return _talons;
+	}
+
+	/** @return btmBufferCnt of the Talon when the MP was enabled */
+	int getStartDepth(int idx) {
+		return _startDepth[idx];
+	}
+
+	/** @return how far the Talon started ahead of the slowest in the group, ms */
+	int getStartLeadMs(int idx) {
+		return _startLeadMs[idx];
+	}
+
+	/** @return largest start difference in the group for the last MP, ms */
+	int getStartSkewMs() {
+		return _startSkewMs;
+	}
+
 	/**
 	 * 
 	 * @return the output value to pass to Talon's set() routine. 0 for disable
@@ -0,0 +1,130 @@
+/**
+ * Several profiles streamed back to back as one long profile.
+ *
+ * Each segment's positions are offset by where the segments before it ended,
+ * so only the very first point of the chain sets zeroPos and only the very
+ * last sets isLastPoint.  The Talon runs straight from one segment into the
+ * next, with no Hold and no re-fill in between.  Segments should end at the
+ * speed the next one starts at, usually zero.
+ *
+ * Segments can be queued before the chain starts or while it streams, they are
+ * added to the chain until its last point has been handed out.  After that a
+ * queued segment waits for the next chain.
+ *
+ * Segments are kept by reference, so a profile from SCurveGenerator must not be
+ * regenerated while it is queued.
+ */
+package frc.robot;
+
+public class ProfileChain {
+
+	/** Most segments in one chain, and most waiting for the next */
+	public static final int kMaxSegments = 8;
+
+	/* Waiting to be added, ring */
+	private final ProfileFile[] _pending = new ProfileFile[kMaxSegments];
+	private int _pendingHead = 0;
+	private int _pendingCount = 0;
+
+	/* Streaming now */
+	private final ProfileFile[] _segments = new ProfileFile[kMaxSegments];
+	private final int[] _segmentStart = new int[kMaxSegments];
+	private final double[] _segmentOffsetRot = new double[kMaxSegments];
+	private int _segmentCount = 0;
+	private int _size = 0;
+	private double _endPositionRot = 0;
+	/* the last point has been handed out, nothing more can be added */
+	private boolean _sealed = false;
+
+	/**
+	 * Queue a segment.
+	 *
+	 * @return false if kMaxSegments are already waiting
+	 */
+	public boolean queue(ProfileFile profile) {
+		if (_pendingCount >= kMaxSegments) {
+			System.out.println("ProfileChain: queue is full");
+			return false;
+		}
+		_pending[(_pendingHead + _pendingCount) % kMaxSegments] = profile;
+		++_pendingCount;
+		return true;
+	}
+
+	/** @return true if a segment is waiting for a chain */
+	public boolean hasQueued() {
+		return _pendingCount > 0;
+	}
+
+	/** Start a new chain from the queued segments, the old one is dropped */
+	public void begin() {
+		_segmentCount = 0;
+		_size = 0;
+		_endPositionRot = 0;
+		_sealed = false;
+		extend();
+	}
+
+	/** Drop the chain and everything queued */
+	public void clear() {
+		for (int i = 0; i < kMaxSegments; ++i) {
+			_pending[i] = null;
+			_segments[i] = null;
+		}
+		_pendingCount = 0;
+		_segmentCount = 0;
+		_size = 0;
+		_sealed = false;
+	}
+
+	/** Add queued segments to the end of the chain, while it is still open */
+	public void extend() {
+		while (_pendingCount > 0 && !_sealed && _segmentCount < kMaxSegments) {
+			ProfileFile profile = _pending[_pendingHead];
+			_pending[_pendingHead] = null;
+			_pendingHead = (_pendingHead + 1) % kMaxSegments;
+			--_pendingCount;
+			if (profile.size() == 0)
+				continue;
+
+			_segments[_segmentCount] = profile;
+			_segmentStart[_segmentCount] = _size;
+			_segmentOffsetRot[_segmentCount] = _endPositionRot;
+			++_segmentCount;
+			_size += profile.size();
+			_endPositionRot += profile.getFinalPosition();
+		}
+	}
+
+	/** @return points in the chain so far */
+	public int size() {
+		return _size;
+	}
+
+	/**
+	 * Decode a point of the chain, with its segment's offset added.
+	 *
+	 * @param index	point index [0, size)
+	 * @param point	object to fill
+	 * @return point, for convenience
+	 */
+	public ProfileFile.Point get(int index, ProfileFile.Point point) {
+		int seg = _segmentCount - 1;
+		while (seg > 0 && _segmentStart[seg] > index)
+			--seg;
+		_segments[seg].get(index - _segmentStart[seg], point);
+		point.position += _segmentOffsetRot[seg];
+		return point;
+	}
+
+	/**
+	 * @return true if this is the last point of the chain.  Once that has been
+	 * 			asked and answered true, no more segments are added.
+	 */
+	public boolean isLast(int index) {
+		if (index + 1 != _size)
+			return false;
+		_sealed = true;
+		return true;
+	}
+}
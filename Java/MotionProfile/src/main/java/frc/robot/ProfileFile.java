@@ -0,0 +1,157 @@
+/**
+ * Motion profile loaded from a binary profile file in the deploy directory.
+ *
+ * Instead of compiling the points into a double[][] table, the profile is exported
+ * from the Motion Profile Generator as a .csv, converted with ProfileFileWriter, and
+ * placed in src/main/deploy.  GradleRIO copies it to /home/lvuser/deploy.
+ *
+ * The file is memory-mapped and each point is decoded only when it's read, so the
+ * heap and boot time stay the same no matter how many profiles are shipped.
+ * Profiles built on the robot (see SCurveGenerator) use the same layout in a heap
+ * buffer, so every fill path takes either.
+ *
+ * File layout (big endian)...
+ *
+ * int		magic		'MPF1'
+ * int		count		number of points
+ * count x	{ double position (rotations), double velocity (RPM), int duration (ms) }
+ */
+package frc.robot;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import edu.wpi.first.wpilibj.Filesystem;
+
+public class ProfileFile implements Iterable<ProfileFile.Point> {
+
+	/** File identifier, 'MPF1' */
+	public static final int kMagic = 0x4D504631;
+	/** Bytes taken by the magic and count */
+	public static final int kHeaderSize = 8;
+	/** Bytes taken by each point */
+	public static final int kPointSize = 20;
+
+	/**
+	 * One decoded point.  The iterator hands back the same object every call,
+	 * so copy the fields out if they need to outlive the next call to next().
+	 */
+	public static class Point {
+		public double position;		// rotations
+		public double velocity;		// RPM
+		public int durationMs;		// ms
+	}
+
+	private final ByteBuffer _buffer;
+	private final int _count;
+
+	private ProfileFile(ByteBuffer buffer, int count) {
+		_buffer = buffer;
+		_count = count;
+	}
+
+	/**
+	 * Open a profile from the deploy directory.
+	 *
+	 * @param fileName	name of the profile file, relative to the deploy directory
+	 * @return the profile, or an empty profile if the file could not be read
+	 */
+	public static ProfileFile open(String fileName) {
+		return open(new File(Filesystem.getDeployDirectory(), fileName));
+	}
+
+	/**
+	 * Open a profile file.
+	 *
+	 * @param file	profile file to map
+	 * @return the profile, or an empty profile if the file could not be read
+	 */
+	public static ProfileFile open(File file) {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return wrap(buffer, file.toString());
+		} catch (IOException e) {
+			System.out.println("Could not open profile " + file + ": " + e.getMessage());
+			return empty();
+		}
+	}
+
+	/**
+	 * Use a buffer that already holds a profile in the file layout.
+	 *
+	 * @param buffer	header and points, starting at index 0
+	 * @return the profile, or an empty profile if the buffer is not a valid profile
+	 */
+	public static ProfileFile wrap(ByteBuffer buffer) {
+		return wrap(buffer, "buffer");
+	}
+
+	private static ProfileFile wrap(ByteBuffer buffer, String name) {
+		if (buffer.capacity() < kHeaderSize || buffer.getInt(0) != kMagic) {
+			System.out.println("Profile " + name + " is not a motion profile file");
+			return empty();
+		}
+		int count = buffer.getInt(4);
+		if (count < 0 || buffer.capacity() < kHeaderSize + (long) count * kPointSize) {
+			System.out.println("Profile " + name + " is truncated");
+			return empty();
+		}
+		return new ProfileFile(buffer, count);
+	}
+
+	/** @return a profile with no points */
+	public static ProfileFile empty() {
+		return new ProfileFile(ByteBuffer.allocate(0), 0);
+	}
+
+	/** @return number of points in the profile */
+	public int size() {
+		return _count;
+	}
+
+	/**
+	 * Decode a single point.
+	 *
+	 * @param index	point index [0, size)
+	 * @param point	object to fill
+	 * @return point, for convenience
+	 */
+	public Point get(int index, Point point) {
+		int offset = kHeaderSize + index * kPointSize;
+		point.position = _buffer.getDouble(offset);
+		point.velocity = _buffer.getDouble(offset + 8);
+		point.durationMs = _buffer.getInt(offset + 16);
+		return point;
+	}
+
+	/** @return position of the last point in rotations, 0 if the profile is empty */
+	public double getFinalPosition() {
+		if (_count == 0)
+			return 0;
+		return _buffer.getDouble(kHeaderSize + (_count - 1) * kPointSize);
+	}
+
+	/** @return iterator that decodes one point per call to next() */
+	public Iterator<Point> iterator() {
+		return new Iterator<Point>() {
+			private final Point _point = new Point();
+			private int _index = 0;
+
+			public boolean hasNext() {
+				return _index < _count;
+			}
+
+			public Point next() {
+				if (_index >= _count)
+					throw new NoSuchElementException();
+				return get(_index++, _point);
+			}
+		};
+	}
+}
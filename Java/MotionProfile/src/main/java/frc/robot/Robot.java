@@ -35,14 +35,15 @@
  * This application is a TimedRobot project to demonstrate a minimal implementation not requiring the command 
  * framework, however these code excerpts could be moved into a command-based project.
  * 
- * The project also includes instrumentation.java which simply has debug printfs, and a MotionProfile.java which is generated
+ * The project also includes instrumentation.java which simply has debug printfs, and a profile file in src/main/deploy which is generated
  * in @link https://docs.google.com/spreadsheets/d/1PgT10EeQiR92LNXEOEe3VGn737P7WDP4t0CQxQgC8k0/edit#gid=1813770630&vpid=A1
- * or find Motion Profile Generator.xlsx in the Project folder.
+ * or find Motion Profile Generator.xlsx in the Project folder.  Export the points as .csv and convert with ProfileFileWriter.
  * 
  * Controls:
  * Button 5: When held, initialize motion pofile. Send Motion Profile to Talon while it is nuetral.
  * Button 6: If Button 5 is held, press to run motion profile, else do nothing. 
  * 	Hold final Motion Profile point until Motion Profile is fired again (Press Button 6 again)
+ * Button 7: If Button 5 is held, press to run the motion profile three times back to back.
  * Left Joystick Y-Axis: Throttle Talon SRX forward and reverse when no buttons are pressed.
  * 
  * Gains for Motion Profile may need to be adjusted in Constants.java
@@ -62,7 +63,10 @@ public class Robot extends TimedRobot {
 	TalonSRX _talon = new TalonSRX(1);	// Talon to Motion Profile
 	Joystick _joy = new Joystick(0);	// Joystick for testing
 
-	/** Some example logic on how one can manage an MP */
+	/**
+	 * Some example logic on how one can manage an MP.  To run the profile on
+	 * several masters together, pass them all, e.g. (_leftTalon, _rightTalon).
+	 */
 	MotionProfileExample _example = new MotionProfileExample(_talon);
 
 	/**
@@ -73,8 +77,17 @@ public class Robot extends TimedRobot {
 	boolean[] _previousBtns = {	false, false, false, false, false, 
 								false, false, false, false, false};
 
+	/** Run once after booting */
+	public void robotInit() {
+		/* Create the flight recorder file now, instead of in the first control loop */
+		FlightRecorder.open();
+	}
+
 	/** Run once after booting/enter-disable */
 	public void disabledInit() {
+		/* Save what the flight recorder captured while enabled */
+		FlightRecorder.flush();
+
 		/* Factory Default all hardware to prevent unexpected behaviour */
 		_talon.configFactoryDefault();
 
@@ -143,7 +156,9 @@ public class Robot extends TimedRobot {
 			 */
 			SetValueMotionProfile setOutput = _example.getSetValue();
 
-			_talon.set(ControlMode.MotionProfile, setOutput.value);
+			/* set every Talon in the group back to back, so they enable in the same loop */
+			for (IMotorController talon : _example.getTalons())
+				talon.set(ControlMode.MotionProfile, setOutput.value);
 
 			/**
 			 * If button 6 is pressed and was not pressed last time, In other words
@@ -154,6 +169,16 @@ public class Robot extends TimedRobot {
 				// --- We could start a MP if MP isn't already running ----//
 				_example.startMotionProfile();
 			}
+
+			/**
+			 * Button 7 runs the profile three times back to back, each one
+			 * picking up where the last one ended without stopping in between.
+			 */
+			if ((btns[7] == true) && (_previousBtns[7] == false)) {
+				for (int i = 0; i < 3; ++i)
+					_example.queue(_example.getProfile());
+				_example.startMotionProfile();
+			}
 		}
 
 		/* Save buttons states for on-press detection */
@@ -0,0 +1,94 @@
+package frc.robot;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import edu.wpi.first.wpilibj.Filesystem;
+
+/**
+ * Drivetrain feedforward, volts = kS * sign(v) + kV * v + kA * a, with v in
+ * rotations per second and a in rotations per second squared.
+ *
+ * Fit by FeedforwardCharacterizer and saved to kFileName in /home/lvuser, so it
+ * survives a reboot or a redeploy.  initBuffer() turns it into each trajectory
+ * point's arbFeedFwd.  With a fit the Talon's kF is set to zero, the kV term
+ * replaces it.
+ */
+public class Feedforward {
+
+	/** Voltage the arbitrary feedforward is scaled to, as a fraction of output */
+	public static final double kNominalVolts = 12.0;
+	public static final String kFileName = "feedforward.properties";
+
+	public final double kS;
+	public final double kV;
+	public final double kA;
+	/** Goodness of fit, 1 is perfect */
+	public final double rSquared;
+	/** Samples the fit used */
+	public final int samples;
+
+	public Feedforward(double kS, double kV, double kA, double rSquared, int samples) {
+		this.kS = kS;
+		this.kV = kV;
+		this.kA = kA;
+		this.rSquared = rSquared;
+		this.samples = samples;
+	}
+
+	/** @return volts to apply for the given velocity (rotations/s) and acceleration (rotations/s^2) */
+	public double calculate(double velocityRPS, double accelRPS2) {
+		return kS * Math.signum(velocityRPS) + kV * velocityRPS + kA * accelRPS2;
+	}
+
+	/** Set every point's arbFeedFwd, call while the buffer is still in RPM */
+	public void apply(TrajectoryBuffer buffer) {
+		buffer.feedforward(kS / kNominalVolts, kV / 60.0 / kNominalVolts, kA / 60.0 / kNominalVolts);
+	}
+
+	public String toString() {
+		return String.format("kS: %.4f V  kV: %.4f V/(rot/s)  kA: %.4f V/(rot/s^2)  r^2: %.4f  samples: %d",
+				kS, kV, kA, rSquared, samples);
+	}
+
+	/** @return the saved fit, or null if the robot has not been characterized */
+	public static Feedforward load() {
+		File file = new File(Filesystem.getOperatingDirectory(), kFileName);
+		if (!file.exists())
+			return null;
+
+		Properties props = new Properties();
+		try (InputStream in = new FileInputStream(file)) {
+			props.load(in);
+			return new Feedforward(Double.parseDouble(props.getProperty("kS")),
+					Double.parseDouble(props.getProperty("kV")),
+					Double.parseDouble(props.getProperty("kA")),
+					Double.parseDouble(props.getProperty("rSquared", "0")),
+					Integer.parseInt(props.getProperty("samples", "0")));
+		} catch (IOException | RuntimeException e) {
+			System.out.println("Feedforward: could not read " + file + ", " + e);
+			return null;
+		}
+	}
+
+	/** Save the fit so load() finds it next boot */
+	public void save() {
+		File file = new File(Filesystem.getOperatingDirectory(), kFileName);
+		Properties props = new Properties();
+		props.setProperty("kS", Double.toString(kS));
+		props.setProperty("kV", Double.toString(kV));
+		props.setProperty("kA", Double.toString(kA));
+		props.setProperty("rSquared", Double.toString(rSquared));
+		props.setProperty("samples", Integer.toString(samples));
+		try (OutputStream out = new FileOutputStream(file)) {
+			props.store(out, "Drivetrain feedforward from FeedforwardCharacterizer");
+		} catch (IOException e) {
+			System.out.println("Feedforward: could not write " + file + ", " + e);
+		}
+	}
+}
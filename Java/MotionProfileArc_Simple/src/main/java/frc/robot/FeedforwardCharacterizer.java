@@ -0,0 +1,242 @@
+package frc.robot;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.IMotorController;
+
+/**
+ * Runs the drivetrain through characterization tests and fits a Feedforward.
+ *
+ * Four tests, with the robot coasting to a stop in between...
+ * [1] Quasi-static forward, voltage ramps up slowly so acceleration is ~0 and
+ * 		the samples pin down kS and kV.
+ * [2] Quasi-static reverse.
+ * [3] Step forward, a fixed voltage from standstill, so the samples are mostly
+ * 		acceleration and pin down kA.
+ * [4] Step reverse, which also brings the robot back near where it started.
+ *
+ * Each test stops early once the robot has traveled kMaxTravelRot.  Give it room.
+ *
+ * Every loop adds one sample (voltage, velocity, acceleration) to the least
+ * squares fit of volts = kS * sign(v) + kV * v + kA * a.  Only the sums of the
+ * normal equations are kept, so there are no sample arrays to size.  Samples
+ * slower than kMinVelocityRPS are skipped, the robot is still stuck in static
+ * friction there.
+ */
+public class FeedforwardCharacterizer {
+
+	public static final double kRampVoltsPerSec = 1.0;
+	public static final double kMaxRampVolts = 4.0;
+	public static final double kStepVolts = 6.0;
+	public static final double kStepSec = 1.5;
+	public static final double kRestSec = 2.0;
+	public static final double kMaxTravelRot = 20.0;
+	public static final double kMinVelocityRPS = 0.1;
+
+	private static final int kIdle = 0;
+	private static final int kQuasiForward = 1;
+	private static final int kQuasiReverse = 2;
+	private static final int kStepForward = 3;
+	private static final int kStepReverse = 4;
+	private static final int kDone = 5;
+
+	private final IMotorController _master;
+	private final IMotorController _follower;
+
+	private int _test = kIdle;
+	private boolean _resting = false;
+	private double _phaseStartSec;
+	private double _startPositionRot;
+
+	/* previous sample, the voltage is the one that was applied since then */
+	private boolean _havePrev = false;
+	private double _prevSec;
+	private double _prevVelocityRPS;
+	private double _prevVolts;
+
+	/* normal equations, X'X and X'y for x = [sign(v), v, a] */
+	private final double[][] _xtx = new double[3][3];
+	private final double[] _xty = new double[3];
+	private final double[] _x = new double[3];
+	private double _yty;
+	private double _ySum;
+	private int _samples;
+
+	/**
+	 * @param master	Talon whose primary sensor measures the drive distance
+	 * @param follower	other side, driven with the same voltage, can be null
+	 */
+	public FeedforwardCharacterizer(IMotorController master, IMotorController follower) {
+		_master = master;
+		_follower = follower;
+	}
+
+	/** Clear the fit and start at the first test */
+	public void start(double nowSec) {
+		for (int i = 0; i < 3; ++i) {
+			_xty[i] = 0;
+			for (int j = 0; j < 3; ++j)
+				_xtx[i][j] = 0;
+		}
+		_yty = _ySum = 0;
+		_samples = 0;
+		beginTest(kQuasiForward, nowSec);
+	}
+
+	/**
+	 * Call every loop while characterizing.
+	 *
+	 * @param nowSec	FPGA time
+	 * @return true once every test is done, call fit()
+	 */
+	public boolean loop(double nowSec) {
+		if (_test == kIdle || _test == kDone) {
+			drive(0);
+			return _test == kDone;
+		}
+
+		double elapsed = nowSec - _phaseStartSec;
+		if (_resting) {
+			/* coast to a stop before the next test */
+			drive(0);
+			if (elapsed >= kRestSec)
+				beginTest(_test + 1, nowSec);
+			return _test == kDone;
+		}
+
+		double positionRot = _master.getSelectedSensorPosition(0) / (double) Constants.kSensorUnitsPerRot;
+		double velocityRPS = _master.getSelectedSensorVelocity(0) * 10.0 / Constants.kSensorUnitsPerRot;
+		sample(nowSec, velocityRPS);
+
+		double volts;
+		boolean finished;
+		switch (_test) {
+			case kQuasiForward:
+			case kQuasiReverse:
+				volts = Math.min(kRampVoltsPerSec * elapsed, kMaxRampVolts);
+				finished = elapsed >= kMaxRampVolts / kRampVoltsPerSec;
+				break;
+			default:
+				volts = kStepVolts;
+				finished = elapsed >= kStepSec;
+				break;
+		}
+		if (_test == kQuasiReverse || _test == kStepReverse)
+			volts = -volts;
+		if (Math.abs(positionRot - _startPositionRot) >= kMaxTravelRot)
+			finished = true;
+
+		if (finished) {
+			_resting = true;
+			_phaseStartSec = nowSec;
+			_havePrev = false;
+			drive(0);
+		} else {
+			drive(volts);
+			_prevVolts = volts;
+		}
+		return false;
+	}
+
+	/** Stop driving and forget where we were, e.g. when the button is released */
+	public void abort() {
+		_test = kIdle;
+		drive(0);
+	}
+
+	/** @return the least squares fit of every sample so far, or null if there is not enough data */
+	public Feedforward fit() {
+		double[][] a = new double[3][4];
+		for (int i = 0; i < 3; ++i) {
+			for (int j = 0; j < 3; ++j)
+				a[i][j] = _xtx[i][j];
+			a[i][3] = _xty[i];
+		}
+
+		/* Gaussian elimination with partial pivoting, it's only 3x3 */
+		for (int col = 0; col < 3; ++col) {
+			int pivot = col;
+			for (int row = col + 1; row < 3; ++row) {
+				if (Math.abs(a[row][col]) > Math.abs(a[pivot][col]))
+					pivot = row;
+			}
+			if (Math.abs(a[pivot][col]) < 1e-9) {
+				System.out.println("FeedforwardCharacterizer: not enough data to fit, " + _samples + " samples");
+				return null;
+			}
+			double[] tmp = a[col];
+			a[col] = a[pivot];
+			a[pivot] = tmp;
+			for (int row = 0; row < 3; ++row) {
+				if (row == col)
+					continue;
+				double f = a[row][col] / a[col][col];
+				for (int k = col; k < 4; ++k)
+					a[row][k] -= f * a[col][k];
+			}
+		}
+		double[] b = { a[0][3] / a[0][0], a[1][3] / a[1][1], a[2][3] / a[2][2] };
+
+		/* residual sum of squares from the sums, SSE = y'y - 2 b'X'y + b'X'X b */
+		double sse = _yty;
+		for (int i = 0; i < 3; ++i) {
+			sse -= 2 * b[i] * _xty[i];
+			for (int j = 0; j < 3; ++j)
+				sse += b[i] * _xtx[i][j] * b[j];
+		}
+		double sst = _yty - _ySum * _ySum / _samples;
+		double r2 = (sst > 0) ? 1 - sse / sst : 0;
+		return new Feedforward(b[0], b[1], b[2], r2, _samples);
+	}
+
+	public boolean isRunning() {
+		return _test != kIdle && _test != kDone;
+	}
+
+	public int getSamples() {
+		return _samples;
+	}
+
+	private void beginTest(int test, double nowSec) {
+		_test = test;
+		_resting = false;
+		_phaseStartSec = nowSec;
+		_havePrev = false;
+		_startPositionRot = _master.getSelectedSensorPosition(0) / (double) Constants.kSensorUnitsPerRot;
+		if (test == kDone)
+			drive(0);
+	}
+
+	private void sample(double nowSec, double velocityRPS) {
+		if (_havePrev) {
+			double dt = nowSec - _prevSec;
+			double v = (velocityRPS + _prevVelocityRPS) * 0.5;
+			if (dt > 0 && Math.abs(v) >= kMinVelocityRPS) {
+				double[] x = _x;
+				x[0] = Math.signum(v);
+				x[1] = v;
+				x[2] = (velocityRPS - _prevVelocityRPS) / dt;
+				double y = _prevVolts;
+				for (int i = 0; i < 3; ++i) {
+					_xty[i] += x[i] * y;
+					for (int j = 0; j < 3; ++j)
+						_xtx[i][j] += x[i] * x[j];
+				}
+				_yty += y * y;
+				_ySum += y;
+				++_samples;
+			}
+		}
+		_havePrev = true;
+		_prevSec = nowSec;
+		_prevVelocityRPS = velocityRPS;
+	}
+
+	/** Same voltage to both sides, scaled by the battery so the test is repeatable */
+	private void drive(double volts) {
+		double bus = _master.getBusVoltage();
+		double percent = (bus > 1) ? volts / bus : 0;
+		_master.set(ControlMode.PercentOutput, percent);
+		if (_follower != null)
+			_follower.set(ControlMode.PercentOutput, percent);
+	}
+}
@@ -1,10 +1,12 @@
 package frc.robot;
 
 import com.ctre.phoenix.motion.MotionProfileStatus;
-import com.ctre.phoenix.motorcontrol.can.TalonSRX;
 
 /**
  * Routines for printing to console (FRC Message log).
+ * 
+ * Every loop the MP status is also appended to the FlightRecorder file, whether or not
+ * values are being printed.  Decode it with FlightRecorderDecoder after a match.
  */
 public class Instrum {
 
@@ -16,7 +18,13 @@ public class Instrum {
 		System.out.println(s);
 	}
 
-	public static void loop(boolean bPrintValues, TalonSRX talon) {
+	public static void loop(boolean bPrintValues, DeviceSnapshot snapshot) {
+		/* status was read once this loop, record it, this is just a binary append */
+		DeviceSnapshot.Record record = snapshot.get(4);
+		MotionProfileStatus status = record.getStatus();
+		FlightRecorder.record(status, record.getTrajectoryPosition(0), record.getTrajectoryVelocity(0),
+				record.getTrajectoryPosition(1));
+
 		if (!_bPrintValues && bPrintValues) {
 			/* user just pressed button, immediete print */
 			_loops = 999;
@@ -32,24 +40,24 @@ public class Instrum {
 		/* build string and print if button is down */
 		if (++_loops >= 10) {
 			_loops = 0;
-			/* get status info */
-			MotionProfileStatus status = new MotionProfileStatus();
-			talon.getMotionProfileStatus(status);
-
-			String line = "";
-			line += "  topBufferRem: " + status.topBufferRem + "\n";
-			line += "  topBufferCnt: " + status.topBufferCnt + "\n";
-			line += "  btmBufferCnt: " + status.btmBufferCnt + "\n";
-			line += "  hasUnderrun: " + status.hasUnderrun + "\n";
-			line += "  isUnderrun: " + status.isUnderrun + "\n";
-			line += "  activePointValid: " + status.activePointValid + "\n";
-			line += "  isLast: " + status.isLast + "\n";
-			line += "  profileSlotSelect0: " + status.profileSlotSelect + "\n";
-			line += "  profileSlotSelect1: " + status.profileSlotSelect1 + "\n";
-			line += "  outputEnable: " + status.outputEnable.toString() + "\n";
-			line += "  timeDurMs: " + status.timeDurMs + "\n";
-
-			printLine(line);
+			printLine(format(status));
 		}
 	}
+
+	/** One print of the MP status, separate from loop() so the formatting can be benchmarked */
+	static String format(MotionProfileStatus status) {
+		String line = "";
+		line += "  topBufferRem: " + status.topBufferRem + "\n";
+		line += "  topBufferCnt: " + status.topBufferCnt + "\n";
+		line += "  btmBufferCnt: " + status.btmBufferCnt + "\n";
+		line += "  hasUnderrun: " + status.hasUnderrun + "\n";
+		line += "  isUnderrun: " + status.isUnderrun + "\n";
+		line += "  activePointValid: " + status.activePointValid + "\n";
+		line += "  isLast: " + status.isLast + "\n";
+		line += "  profileSlotSelect0: " + status.profileSlotSelect + "\n";
+		line += "  profileSlotSelect1: " + status.profileSlotSelect1 + "\n";
+		line += "  outputEnable: " + status.outputEnable.toString() + "\n";
+		line += "  timeDurMs: " + status.timeDurMs + "\n";
+		return line;
+	}
 }
@@ -0,0 +1,248 @@
+/**
+ * Where the time of each robot loop goes, as a latency histogram per phase.
+ *
+ * Robot overrides loopFunc() so every periodic method is inside the loop...
+ *
+ *	protected void loopFunc() {
+ *		_profiler.beginLoop();
+ *		super.loopFunc();
+ *		_profiler.endLoop();
+ *	}
+ *
+ * and marks the end of each phase as it goes...
+ *
+ *	_snapshot.update();
+ *	_profiler.mark(_phaseRead);		// the time since the last mark was spent reading sensors
+ *
+ * A phase marked more than once in a loop gets the sum.  The time after the last mark
+ * is "framework", whatever IterativeRobotBase does after the periodic methods.  "loop"
+ * is the whole loop, and a loop longer than the period is an overrun.  "period" is
+ * start to start, which shows a loop that started late.
+ *
+ * Histograms are log-linear like HdrHistogram: exact below 32us, then 32 buckets per
+ * power of two, so a percentile is within ~3% of the real value.  They are allocated
+ * up front and record() is a few shifts and an increment.
+ *
+ * Every kPublishPeriodMs, p50, p99 and max of each phase over that window, and the
+ * overrun count, go to SmartDashboard as loop/<phase>/p50_us and so on.  toString()
+ * has the same over every loop since boot.
+ *
+ * Loop thread only.
+ */
+package frc.robot;
+
+import java.util.Arrays;
+
+public class LoopProfiler {
+
+	/** Most phases marked by the robot */
+	public static final int kMaxPhases = 12;
+	/** How often the window's stats are published, and the window restarted */
+	public static final int kPublishPeriodMs = 1000;
+
+	/** Latency histogram in microseconds */
+	public static class Histogram {
+		private static final int kSubBits = 5;
+		private static final int kSubCount = 1 << kSubBits;
+		/* values up to 2^25 us, ~33 s, bigger ones land in the last bucket */
+		private static final int kMaxExponent = 24;
+		private static final int kBuckets = (kMaxExponent - kSubBits + 2) * kSubCount;
+
+		private final long[] _counts = new long[kBuckets];
+		private long _count = 0;
+		private long _max = 0;
+
+		public void record(long us) {
+			++_counts[index(us)];
+			++_count;
+			if (us > _max)
+				_max = us;
+		}
+
+		/**
+		 * @param q	fraction [0, 1], 0.99 for p99
+		 * @return highest value in the bucket holding the q'th value, 0 if empty
+		 */
+		public long percentile(double q) {
+			long target = Math.max(1, (long) Math.ceil(q * _count));
+			long seen = 0;
+			for (int i = 0; i < kBuckets; ++i) {
+				seen += _counts[i];
+				if (seen >= target)
+					return Math.min(highest(i), _max);
+			}
+			return 0;
+		}
+
+		public long getMax() {
+			return _max;
+		}
+
+		public long getCount() {
+			return _count;
+		}
+
+		public void reset() {
+			Arrays.fill(_counts, 0);
+			_count = 0;
+			_max = 0;
+		}
+
+		private static int index(long us) {
+			if (us < kSubCount)
+				return (int) Math.max(0, us);
+			int exponent = 63 - Long.numberOfLeadingZeros(us);
+			if (exponent > kMaxExponent)
+				return kBuckets - 1;
+			return (exponent - kSubBits + 1) * kSubCount + (int) ((us >>> (exponent - kSubBits)) & (kSubCount - 1));
+		}
+
+		private static long highest(int index) {
+			if (index < kSubCount)
+				return index;
+			int exponent = index / kSubCount + kSubBits - 1;
+			long sub = index % kSubCount;
+			return ((kSubCount + sub + 1) << (exponent - kSubBits)) - 1;
+		}
+	}
+
+	/* rows, the first three are the profiler's own */
+	private static final int kLoop = 0;
+	private static final int kPeriod = 1;
+	private static final int kFramework = 2;
+	private static final int kRows = kMaxPhases + 3;
+
+	private final String[] _names = new String[kRows];
+	private final Histogram[] _window = new Histogram[kRows];
+	private final Histogram[] _total = new Histogram[kRows];
+	private final long[] _loopNs = new long[kRows];
+	private final boolean[] _marked = new boolean[kRows];
+	private final int[] _keys = new int[kRows * 3];
+	private int _rows = 0;
+
+	private final long _periodUs;
+	private final TelemetryPublisher _publisher = new TelemetryPublisher(kRows * 3 + 1);
+	private final int _keyOverruns;
+
+	private long _beginNs = 0;
+	private long _lastMarkNs = 0;
+	private long _lastPublishMs = 0;
+	private long _overruns = 0;
+	private long _windowOverruns = 0;
+
+	/** @param periodSec	robot loop period, TimedRobot's getPeriod() */
+	public LoopProfiler(double periodSec) {
+		_periodUs = (long) (periodSec * 1e6);
+		addRow("loop");
+		addRow("period");
+		addRow("framework");
+		_keyOverruns = _publisher.add("loop/overruns", 0, 1000.0 / kPublishPeriodMs);
+	}
+
+	/**
+	 * Add a phase, once, outside the loop.
+	 *
+	 * @param name	shown in the stats, and in the SmartDashboard keys
+	 * @return handle for mark(), -1 if there is no room
+	 */
+	public int phase(String name) {
+		if (_rows >= kRows) {
+			System.out.println("LoopProfiler: no room for phase " + name);
+			return -1;
+		}
+		return addRow(name);
+	}
+
+	/** Start of the loop, first thing in loopFunc() */
+	public void beginLoop() {
+		long now = System.nanoTime();
+		if (_beginNs != 0)
+			record(kPeriod, (now - _beginNs) / 1000);
+		_beginNs = now;
+		_lastMarkNs = now;
+	}
+
+	/** The time since the last mark, or beginLoop(), was spent in phase */
+	public void mark(int phase) {
+		long now = System.nanoTime();
+		if (phase >= kFramework && phase < _rows) {
+			_loopNs[phase] += now - _lastMarkNs;
+			_marked[phase] = true;
+		}
+		_lastMarkNs = now;
+	}
+
+	/** End of the loop, last thing in loopFunc() */
+	public void endLoop() {
+		mark(kFramework);
+		long loopUs = (_lastMarkNs - _beginNs) / 1000;
+		record(kLoop, loopUs);
+		if (loopUs > _periodUs) {
+			++_overruns;
+			++_windowOverruns;
+		}
+		for (int row = kFramework; row < _rows; ++row) {
+			if (_marked[row])
+				record(row, _loopNs[row] / 1000);
+			_loopNs[row] = 0;
+			_marked[row] = false;
+		}
+
+		long nowMs = _lastMarkNs / 1000000;
+		if (nowMs - _lastPublishMs >= kPublishPeriodMs) {
+			_lastPublishMs = nowMs;
+			publish(nowMs);
+		}
+	}
+
+	/** @return loops longer than the period, since boot */
+	public long getOverruns() {
+		return _overruns;
+	}
+
+	/** p50 / p99 / max of every phase since boot */
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("LoopProfiler: %d loops, %d overruns of %d us%n", _total[kLoop].getCount(), _overruns, _periodUs));
+		sb.append(String.format("  %-28s %8s %8s %8s %8s%n", "phase", "loops", "p50 us", "p99 us", "max us"));
+		for (int row = 0; row < _rows; ++row) {
+			Histogram h = _total[row];
+			sb.append(String.format("  %-28s %8d %8d %8d %8d%n", _names[row], h.getCount(), h.percentile(0.50),
+					h.percentile(0.99), h.getMax()));
+		}
+		return sb.toString();
+	}
+
+	private int addRow(String name) {
+		int row = _rows++;
+		_names[row] = name;
+		_window[row] = new Histogram();
+		_total[row] = new Histogram();
+		double rateHz = 1000.0 / kPublishPeriodMs;
+		_keys[row * 3] = _publisher.add("loop/" + name + "/p50_us", 0, rateHz);
+		_keys[row * 3 + 1] = _publisher.add("loop/" + name + "/p99_us", 0, rateHz);
+		_keys[row * 3 + 2] = _publisher.add("loop/" + name + "/max_us", 0, rateHz);
+		return row;
+	}
+
+	private void record(int row, long us) {
+		_window[row].record(us);
+		_total[row].record(us);
+	}
+
+	/* the window's stats, then start a new window */
+	private void publish(long nowMs) {
+		for (int row = 0; row < _rows; ++row) {
+			Histogram h = _window[row];
+			if (h.getCount() == 0)
+				continue;
+			_publisher.set(_keys[row * 3], h.percentile(0.50));
+			_publisher.set(_keys[row * 3 + 1], h.percentile(0.99));
+			_publisher.set(_keys[row * 3 + 2], h.getMax());
+			h.reset();
+		}
+		_publisher.set(_keyOverruns, _windowOverruns);
+		_windowOverruns = 0;
+		_publisher.flush(nowMs);
+	}
+}
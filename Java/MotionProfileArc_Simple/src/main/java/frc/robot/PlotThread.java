@@ -1,74 +1,195 @@
 package frc.robot;
 
 import com.ctre.phoenix.motorcontrol.ControlMode;
-import com.ctre.phoenix.motorcontrol.can.TalonSRX;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 /**
- * Quick and dirty threaded plotter class
+ * Threaded plotter class.
+ *
+ * The sampler thread copies the Talon signals from the loop's DeviceSnapshot into a
+ * preallocated TelemetryBuffer, once per loop while the Talon is in MotionProfileArc.
+ * Outside the MP only sen_pos_drv and sen_pos_turn are sampled, every kIdlePeriodMs,
+ * so the sensors can still be checked while driving normally (see Robot's Steps).
+ * A lower priority publisher thread drains the buffer in batches
+ * and hands the newest sample to a TelemetryPublisher, along with how long each
+ * sample took to read.  The publisher only sends values that changed, so a robot
+ * sitting still costs almost no NetworkTables bandwidth.
  */
 class PlotThread implements Runnable {
 
-	private TalonSRX _talon;
+	/** How often to sample while the MP is running */
+	static final int kSamplePeriodMs = 5;
+	/** How often to sample the sensor positions while the MP is not running */
+	static final int kIdlePeriodMs = 100;
+	/** How often the publisher drains the buffer */
+	static final int kPublishPeriodMs = 50;
+	/** Samples the buffer can hold, several publish periods worth */
+	static final int kCapacity = 256;
+
+	/* channels of each sample */
+	static final int kSenPosDrv = 0;
+	static final int kSenVelDrv = 1;
+	static final int kTrgtPosDrv = 2;
+	static final int kTrgtVelDrv = 3;
+	static final int kTrgtArbFDrv = 4;
+	static final int kSenPosTurn = 5;
+	static final int kTrgtPosTurn = 6;
+	static final int kTrgtVelTurn = 7;
+	static final int kTrgtArbFTurn = 8;
+	static final int kSampleCostUs = 9;
+	static final int kNumChannels = 10;
+
+	/** Channels not sampled outside the MP */
+	private static final int[] kIdleSkipped = { kSenVelDrv, kTrgtPosDrv, kTrgtVelDrv, kTrgtArbFDrv,
+												kTrgtPosTurn, kTrgtVelTurn, kTrgtArbFTurn };
+
+	/** SmartDashboard keys, one per channel before kSampleCostUs */
+	private static final String[] kKeys = { "sen_pos_drv", "sen_vel_drv", "trgt_pos_drv", "trgt_vel_drv", "trgt_arbF_drv",
+											"sen_pos_turn", "trgt_pos_turn", "trgt_vel_turn", "trgt_arbF_turn" };
+	/** Smallest change worth sending, per key, in sensor units (fraction of output for arbF) */
+	private static final double[] kDeadbands = { 2, 1, 2, 1, 0.001, 2, 2, 1, 0.001 };
+	/** Most updates per second of any one key */
+	private static final double kMaxRateHz = 20;
+
+	private DeviceSnapshot _snapshot;
+	/* cycle of the last sample taken */
+	private long _lastCycle = -1;
 	private Thread _thread;
+	private Thread _publisher;
+	private volatile boolean _running = true;
 
-	/* some temps for plotting */
-	double sen_pos_drv, sen_vel_drv, trgt_pos_drv, trgt_vel_drv, trgt_arbF_drv;
-	double sen_pos_turn, trgt_pos_turn, trgt_vel_turn, trgt_arbF_turn;
+	private TelemetryBuffer _buffer = new TelemetryBuffer(kNumChannels, kCapacity);
 
-	public PlotThread(TalonSRX talon)
+	/* only used by the publisher thread */
+	private TelemetryPublisher _telemetry = new TelemetryPublisher(kKeys.length + 5);
+	private int[] _handles = new int[kKeys.length];
+	private int _usAvg, _usMax, _dropped, _bytesPerSec, _updatesPerSec;
+
+	public PlotThread(DeviceSnapshot snapshot)
 	{
-		_talon = talon;
+		_snapshot = snapshot;
 
-		_thread= new Thread(this);
+		_thread = new Thread(this, "PlotThread");
+		_thread.setDaemon(true);
 		_thread.start();
+
+		_publisher = new Thread(new Runnable() {
+			public void run() {
+				publish();
+			}
+		}, "PlotPublisher");
+		_publisher.setDaemon(true);
+		_publisher.setPriority(Thread.MIN_PRIORITY);
+		_publisher.start();
+	}
+
+	/** Stop both threads, they exit on their next wakeup */
+	public void stop() {
+		_running = false;
 	}
-	
+
 	public void run() {
-		/**
-		 * Speed up network tables, this is a test project so eat up all of the network
-		 * possible for the purpose of this test.
-		 */
+		while (_running) {
+			/* sample everything while the MP is running, only the sensor positions otherwise */
+			DeviceSnapshot.Record record = _snapshot.get(1);
+			boolean active = (record.getControlMode() == ControlMode.MotionProfileArc);
+			if (active)
+				_snapshot.addSaved(9); /* the nine signals below, we used to read them every sample */
+			else
+				_snapshot.addSaved(2);
+
+			if (active && record.getCycle() != _lastCycle && _buffer.claim()) {
+				long start = System.nanoTime();
+				_lastCycle = record.getCycle();
+
+				/* Grab the latest signal update from our 1ms frame update */
+				_buffer.put(kSenPosDrv, record.getSensorPosition(0));
+				_buffer.put(kSenVelDrv, record.getSensorVelocity(0));
+				_buffer.put(kSenPosTurn, record.getSensorPosition(1));
+
+				_buffer.put(kTrgtPosDrv, record.getTrajectoryPosition(0));
+				_buffer.put(kTrgtVelDrv, record.getTrajectoryVelocity(0));
+				_buffer.put(kTrgtArbFDrv, record.getTrajectoryArbFeedFwd(0));
+
+				_buffer.put(kTrgtPosTurn, record.getTrajectoryPosition(1));
+				_buffer.put(kTrgtVelTurn, record.getTrajectoryVelocity(1));
+				_buffer.put(kTrgtArbFTurn, record.getTrajectoryArbFeedFwd(1));
+
+				_buffer.put(kSampleCostUs, (System.nanoTime() - start) / 1000.0);
+				_buffer.commit();
+			} else if (!active && record.getCycle() != _lastCycle && _buffer.claim()) {
+				long start = System.nanoTime();
+				_lastCycle = record.getCycle();
+
+				_buffer.put(kSenPosDrv, record.getSensorPosition(0));
+				_buffer.put(kSenPosTurn, record.getSensorPosition(1));
+
+				/* NaN leaves the dashboard holding the last MP's values */
+				for (int ch : kIdleSkipped)
+					_buffer.put(ch, Double.NaN);
+
+				_buffer.put(kSampleCostUs, (System.nanoTime() - start) / 1000.0);
+				_buffer.commit();
+			}
 
-		while (true) {
 			/* Yield for a Ms or so - this is not meant to be accurate */
 			try {
-				Thread.sleep(5);
+				Thread.sleep(active ? kSamplePeriodMs : kIdlePeriodMs);
 			} catch (Exception e) {
 				/* Do Nothing */
 			}
+		}
+	}
 
-			ControlMode mode = _talon.getControlMode();
-
+	/** Publisher loop, drains whatever the sampler has collected every kPublishPeriodMs */
+	private void publish() {
+		for (int ch = 0; ch < kKeys.length; ++ch)
+			_handles[ch] = _telemetry.add(kKeys[ch], kDeadbands[ch], kMaxRateHz);
+		_usAvg = _telemetry.add("plot_sample_us_avg", 0.5, 2);
+		_usMax = _telemetry.add("plot_sample_us_max", 0.5, 2);
+		_dropped = _telemetry.add("plot_dropped", 0, 1);
+		_bytesPerSec = _telemetry.add("telemetry_bytes_per_sec", 10, 1);
+		_updatesPerSec = _telemetry.add("telemetry_updates_per_sec", 1, 1);
 
-			/* Grab the latest signal update from our 1ms frame update */
-			sen_pos_drv = _talon.getSelectedSensorPosition(0);
-			sen_vel_drv = _talon.getSelectedSensorVelocity(0);
+		while (_running) {
+			try {
+				Thread.sleep(kPublishPeriodMs);
+			} catch (Exception e) {
+				/* Do Nothing */
+			}
 
-			sen_pos_turn = _talon.getSelectedSensorPosition(1);
+			int count = _buffer.available();
+			if (count > 0)
+				collect(count);
 
-			if (mode == ControlMode.MotionProfileArc) {
-				trgt_pos_drv = _talon.getActiveTrajectoryPosition(0);
-				trgt_vel_drv = _talon.getActiveTrajectoryVelocity(0);
-				trgt_arbF_drv = _talon.getActiveTrajectoryArbFeedFwd(0);
-			}
-			
-			if (mode == ControlMode.MotionProfileArc) {
-				trgt_pos_turn = _talon.getActiveTrajectoryPosition(1);
-				trgt_vel_turn = _talon.getActiveTrajectoryVelocity(1);
-				trgt_arbF_turn = _talon.getActiveTrajectoryArbFeedFwd(1);
-			}
+			/* send what changed, values that didn't are held back */
+			_telemetry.set(_bytesPerSec, _telemetry.getBytesPerSec());
+			_telemetry.set(_updatesPerSec, _telemetry.getUpdatesPerSec());
+			_telemetry.flush(System.nanoTime() / 1000000);
+		}
+	}
 
-			SmartDashboard.putNumber("sen_pos_drv", sen_pos_drv);
-			SmartDashboard.putNumber("sen_vel_drv", sen_vel_drv);
-			SmartDashboard.putNumber("trgt_pos_drv", trgt_pos_drv);
-			SmartDashboard.putNumber("trgt_vel_drv", trgt_vel_drv);
-			SmartDashboard.putNumber("trgt_arbF_drv", trgt_arbF_drv);
+	/** Take the newest of count samples, and the cost of them all */
+	private void collect(int count) {
+		/* cost of every sample in the batch */
+		double sumUs = 0, maxUs = 0;
+		for (int i = 0; i < count; ++i) {
+			double us = _buffer.get(kSampleCostUs, i);
+			sumUs += us;
+			if (us > maxUs)
+				maxUs = us;
+		}
 
-			SmartDashboard.putNumber("sen_pos_turn", sen_pos_turn);
-			SmartDashboard.putNumber("trgt_pos_turn", trgt_pos_turn);
-			SmartDashboard.putNumber("trgt_vel_turn", trgt_vel_turn);
-			SmartDashboard.putNumber("trgt_arbF_turn", trgt_arbF_turn);
+		/* dashboard only shows the latest value, so send the newest sample */
+		int newest = count - 1;
+		for (int ch = 0; ch < kKeys.length; ++ch) {
+			double value = _buffer.get(ch, newest);
+			if (!Double.isNaN(value)) /* not sampled outside the MP */
+				_telemetry.set(_handles[ch], value);
 		}
+		_telemetry.set(_usAvg, sumUs / count);
+		_telemetry.set(_usMax, maxUs);
+		_telemetry.set(_dropped, _buffer.getDropped());
+
+		_buffer.release(count);
 	}
-}
\ No newline at end of file
+}
@@ -35,19 +35,22 @@
  * This application is a TimedRobot project to demonstrate a minimal implementation not requiring the command 
  * framework, however these code excerpts could be moved into a command-based project.
  * 
- * The project also includes instrumentation.java which simply has debug printfs, and a MotionProfile.java which is generated
+ * The project also includes instrumentation.java which simply has debug printfs, and a profile file in src/main/deploy which is generated
  * in @link https://docs.google.com/spreadsheets/d/1PgT10EeQiR92LNXEOEe3VGn737P7WDP4t0CQxQgC8k0/edit#gid=1813770630&vpid=A1
- * or find Motion Profile Generator.xlsx in the Project folder.
+ * or find Motion Profile Generator.xlsx in the Project folder.  Export the points as .csv and convert with ProfileFileWriter.
  * 
  * Controls:
  * Button 1: When held, streams and fires the MP.  When released, contorl is back to PercentOutput Mode.
  * Button 2: Prints MP status to the console when held.
+ * Button 4: Same as Button 1, but turns the other way (-90 deg).
+ * Button 3: When held, characterizes the drivetrain (see FeedforwardCharacterizer), about 25 seconds and
+ * 	20 rotations each way, so give it room.  The fit is saved and used for every MP after that.
  * Left Joystick Y-Axis: Throttle Talon SRX forward and reverse when not running MP.
  * Gains for Motion Profile may need to be adjusted in Constants.java
  * 
  * Steps:
  * Drive the robot normally and confirm:
- *  - Open SmartDash (or similar) to see signal values.
+ *  - Open SmartDash (or similar) to see signal values, sen_pos_drv and sen_pos_turn update every 100ms outside the MP.
  *  - Talon LEDs are green when robot moves straight forward (both sides)
  *  - sen_pos_drv moves in a positive direction when robot drives straight forward.  Or use Right Talon self-test (watch PID0 sensor pos)
  *  - sen_pos_turn moves in a positive direction when robot turns left.  Or use Right Talon self-test (watch PID1 aux sensor pos)
@@ -62,6 +65,8 @@ import com.ctre.phoenix.sensors.PigeonIMU;
 import com.ctre.phoenix.motion.*;
 import edu.wpi.first.wpilibj.Joystick;
 import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
+
 import edu.wpi.first.wpilibj.buttons.JoystickButton;
 
 public class Robot extends TimedRobot {
@@ -79,20 +84,49 @@ public class Robot extends TimedRobot {
     /** gamepad for control */
     Joystick _joy = new Joystick(0);
 
-    /** new class type in 2019 for holding MP buffer. */
-    BufferedTrajectoryPointStream _bufferedStream = new BufferedTrajectoryPointStream();
+    /** new class type in 2019 for holding MP buffer, one per path, built in the background. */
+    TrajectoryStreamPool _paths = new TrajectoryStreamPool(MotionProfile.kPoints);
+    static final int kPathLeft = 0;
+    static final int kPathRight = 1;
+
+    /** path being fired */
+    int _pathId = kPathLeft;
 
     /* talon _config. */
     TalonSRXConfiguration _config= new TalonSRXConfiguration(); // factory default settings
     
+    /** every signal of the master, both PIDs, read once per loop and shared */
+    DeviceSnapshot _snapshot = new DeviceSnapshot(_rightMaster, 2);
+
     /* quick and dirty plotter to smartdash */
-    PlotThread _plotThread = new PlotThread(_rightMaster);
+    PlotThread _plotThread = new PlotThread(_snapshot);
 
-    public void robotInit() {
+    /** where each loop's time goes, published to smartdash once a second */
+    LoopProfiler _profiler = new LoopProfiler(getPeriod());
+    int _phaseRead = _profiler.phase("read sensors");
+    int _phaseGamepad = _profiler.phase("read gamepad");
+    int _phaseStateMachine = _profiler.phase("update MP state machine");
+    int _phasePrint = _profiler.phase("print");
 
-        /* fill our buffer object with the excel points, 
-            lets do a 90 deg turn while using the profile for the robot drive*/
-        initBuffer(MotionProfile.Points, MotionProfile.kNumPoints, 90.0);
+    /* drivetrain feedforward, null until the robot has been characterized.  The paths are rebuilt when it changes */
+    volatile Feedforward _feedforward = Feedforward.load();
+    FeedforwardCharacterizer _characterizer = new FeedforwardCharacterizer(_rightMaster, _leftAuxFollower);
+
+    /** tracking error and settle time of each MP, printed at the end so feedforwards can be compared.  Settled is within 2% of a rotation */
+    TrackingStats _tracking = new TrackingStats(Constants.kSensorUnitsPerRot * 0.02);
+
+    public void robotInit() {
+        /* create the flight recorder file now, instead of in the first loop */
+        FlightRecorder.open();
+
+        /* fill our buffer objects with the excel points (or an S-curve, see MotionProfile.kGenerate),
+            lets do a 90 deg turn each way while using the profile for the robot drive.
+            This happens on the pool's thread, the paths are ready long before the match starts */
+        ProfileFile profile = MotionProfile.load();
+        _paths.define(kPathLeft, (trajectory, stream) -> initBuffer(trajectory, stream, profile, +90.0));
+        _paths.define(kPathRight, (trajectory, stream) -> initBuffer(trajectory, stream, profile, -90.0));
+        if (_feedforward != null)
+            Instrum.printLine("Feedforward " + _feedforward);
 
         /* -------------- config the master specific settings ----------------- */
         /* remote 0 will capture Pigeon IMU */
@@ -111,7 +145,7 @@ public class Robot extends TimedRobot {
         _config.auxiliaryPID.selectedFeedbackSensor = FeedbackDevice.RemoteSensor0;
         /* rest of the configs */
         _config.neutralDeadband = Constants.kNeutralDeadband; /* 0.1 % super small for best low-speed control */
-        _config.slot0.kF = Constants.kGains_MotProf.kF;
+        _config.slot0.kF = (_feedforward == null) ? Constants.kGains_MotProf.kF : 0; /* feedforward's kV replaces kF */
         _config.slot0.kP = Constants.kGains_MotProf.kP;
         _config.slot0.kI = Constants.kGains_MotProf.kI;
         _config.slot0.kD = Constants.kGains_MotProf.kD;
@@ -142,17 +176,47 @@ public class Robot extends TimedRobot {
         _rightMaster.setStatusFramePeriod(StatusFrame.Status_12_Feedback1, 20); /* plotthread is polling aux-pid-sensor-pos */
         _rightMaster.setStatusFramePeriod(StatusFrame.Status_10_Targets, 20);
         _rightMaster.setStatusFramePeriod(StatusFrame.Status_17_Targets1, 20);
+        _rightMaster.setStatusFramePeriod(StatusFrame.Status_13_Base_PIDF0, 20); /* closed loop error, see TrackingStats */
+    }
+
+    public void disabledInit() {
+        /* save what the flight recorder captured while enabled */
+        FlightRecorder.flush();
+        /* paths ready to fire, and the memory they hold */
+        Instrum.printLine(_paths.toString());
+        Instrum.printLine(_snapshot.toString());
+        Instrum.printLine(_profiler.toString());
+    }
+
+    /** every periodic method runs in here, time the whole loop */
+    protected void loopFunc() {
+        _profiler.beginLoop();
+        super.loopFunc();
+        _profiler.endLoop();
     }
 
     public void robotPeriodic() {
+        /* read the Talon once, the plotter and the prints use the same values */
+        _snapshot.update();
+        _profiler.mark(_phaseRead);
+
         /* get joystick button and stick */
         boolean bPrintValues = _joy.getRawButton(2);
         boolean bFireMp = _joy.getRawButton(1);
+        boolean bFireMpRight = _joy.getRawButton(4);
+        boolean bCharacterize = _joy.getRawButton(3);
         double axis = -1.0 * _joy.getRawAxis(1); /* forward stick should be positive */
         double turn = -1.0 * _joy.getRawAxis(2); /* turn stick should be positive for turning left */
+        _profiler.mark(_phaseGamepad);
 
         /* if button is up, just drive the motor in PercentOutput */
-        if (bFireMp == false) {
+        if (bFireMp == false && bFireMpRight == false && bCharacterize == false) {
+            if (_characterizer.isRunning())
+                _characterizer.abort();
+            if (_state != 0)
+                _paths.release();
+            if (_tracking.isSettling())
+                Instrum.printLine(_tracking.toString()); /* let go before it settled */
             _state = 0;
         }
 
@@ -163,88 +227,118 @@ public class Robot extends TimedRobot {
 	             * alternative ways to do this */
 	            _rightMaster.set(ControlMode.PercentOutput, axis, DemandType.ArbitraryFeedForward, +turn);
 	            _leftAuxFollower.set(ControlMode.PercentOutput, axis, DemandType.ArbitraryFeedForward, -turn);
-	            if (bFireMp == true) {
+	            if (bFireMp == true || bFireMpRight == true) {
 	                /* go to MP logic */
+	                _pathId = bFireMp ? kPathLeft : kPathRight;
 	                _state = 1;
+	            } else if (bCharacterize == true) {
+	                /* go to characterization */
+	                _characterizer.start(Timer.getFPGATimestamp());
+	                _state = 4;
+	                Instrum.printLine("Characterization started");
 	            }
 	            break;
 	
 	        /* fire the MP, and stop calling set() since that will cancel the MP */
 	        case 1:
+	            /* the path is already in a buffer, just pick it */
+	            BufferedTrajectoryPointStream stream = _paths.select(_pathId);
+	            if (stream == null) {
+	                Instrum.printLine("MP path " + _pathId + " is not built yet");
+	                _state = 3;
+	                break;
+	            }
 	            ZeroAllSensors();
 	            _leftAuxFollower.follow(_rightMaster, FollowerType.AuxOutput1);
-	            _rightMaster.startMotionProfile(_bufferedStream, 10, ControlMode.MotionProfileArc);
+	            _rightMaster.startMotionProfile(stream, 10, ControlMode.MotionProfileArc);
+	            _tracking.begin((_feedforward != null) ? "kS/kV/kA" : "kF only");
 	            _state = 2;
                 Instrum.printLine("MP started");
 	            break;
 	
 	        /* wait for MP to finish */
 	        case 2:
+	            _tracking.sample(trackingError());
 	            if (_rightMaster.isMotionProfileFinished()) {
                     Instrum.printLine("MP finished");
+	                _tracking.finished(Timer.getFPGATimestamp());
+	                _paths.release();
 	                _state = 3;
 	            }
 	            break;
 	
-	        /* MP is finished, nothing to do */
+	        /* MP is finished, holding the last point until it settles */
 	        case 3:
+	            if (_tracking.settle(Timer.getFPGATimestamp(), trackingError()))
+	                Instrum.printLine(_tracking.toString());
+	            break;
+
+	        /* run the characterization tests, then fit and save */
+	        case 4:
+	            if (_characterizer.loop(Timer.getFPGATimestamp())) {
+	                Feedforward ff = _characterizer.fit();
+	                if (ff != null) {
+	                    _feedforward = ff;
+	                    _feedforward.save();
+	                    /* kV now comes from each point's arbFeedFwd */
+	                    _config.slot0.kF = 0;
+	                    _rightMaster.configAllSettings(_config);
+	                    _paths.rebuildAll();
+	                    Instrum.printLine("Feedforward " + _feedforward);
+	                }
+	                _state = 3;
+	            }
 	            break;
         }
+        _profiler.mark(_phaseStateMachine);
 
         /* print MP values */
-        Instrum.loop(bPrintValues, _rightMaster);
+        Instrum.loop(bPrintValues, _snapshot);
+        _profiler.mark(_phasePrint);
     }
 
     /**
-     * Fill _bufferedStream with points from csv/generated-table.
+     * Fill a stream with points from the profile file.  Runs on the pool's thread.
      *
-     * @param profile  generated array from excel
-     * @param totalCnt num points in profile
+     * @param trajectory  scratch for the conversion
+     * @param stream  stream to fill, already cleared
+     * @param profile  profile converted from excel, see ProfileFileWriter
+     * @param finalTurnDeg  heading at the end of the profile
+     * @return points written
      */
-    private void initBuffer(double[][] profile, int totalCnt, double finalTurnDeg) {
+    private int initBuffer(TrajectoryBuffer trajectory, BufferedTrajectoryPointStream stream, ProfileFile profile, double finalTurnDeg) {
 
         boolean forward = true; // set to false to drive in opposite direction of profile (not really needed
                                 // since you can use negative numbers in profile).
 
+        /* whole profile in rotations and RPM, each step below is one pass over one array */
+        trajectory.load(profile);
+        Feedforward ff = _feedforward;
+        if (ff != null)
+            ff.apply(trajectory); /* kS, kV, kA from the characterization */
+        trajectory.scale(Constants.kSensorUnitsPerRot, Constants.kSensorUnitsPerRot / 600.0); // Rotations => sensor units, RPM => units per 100ms
+        if (!forward)
+            trajectory.mirror();
+        /* to get the turn target, lets just scale from 0 deg to caller's final deg linearizly */
+        trajectory.rampAuxiliary(finalTurnDeg * Constants.kTurnUnitsPerDeg); // Convert deg to remote sensor units
+
         TrajectoryPoint point = new TrajectoryPoint(); // temp for for loop, since unused params are initialized
                                                        // automatically, you can alloc just one
+        point.auxiliaryVel = 0; // advanced teams can also provide the target velocity
+        point.auxiliaryArbFeedFwd = 0; // good place for kS, kV, kA, etc...
+        point.profileSlotSelect0 = Constants.kPrimaryPIDSlot; /* which set of gains would you like to use [0,3]? */
+        point.profileSlotSelect1 = Constants.kAuxPIDSlot; /* auxiliary PID [0,1], leave zero */
+        point.useAuxPID = true; /* tell MPB that we are using both pids */
+
+        /* Insert every point into buffer, no limit on size.
+            don't reset sensor, this is done elsewhere since we have multiple sensors */
+        trajectory.write(stream, point, false);
+        return trajectory.size();
+    }
 
-        /* clear the buffer, in case it was used elsewhere */
-        _bufferedStream.Clear();
-
-        /* Insert every point into buffer, no limit on size */
-        for (int i = 0; i < totalCnt; ++i) {
-
-            double direction = forward ? +1 : -1;
-            /* use the generated profile to figure out the forward arc path (translation)*/
-            double positionRot = profile[i][0];
-            double velocityRPM = profile[i][1];
-            int durationMilliseconds = (int) profile[i][2];
-
-            /* to get the turn target, lets just scale from 0 deg to caller's final deg linearizly */
-            double targetTurnDeg = finalTurnDeg * (i + 1) / totalCnt;
-
-            /* for each point, fill our structure and pass it to API */
-            point.timeDur = durationMilliseconds;
-
-            /* drive part */
-            point.position = direction * positionRot * Constants.kSensorUnitsPerRot; // Rotations => sensor units
-            point.velocity = direction * velocityRPM * Constants.kSensorUnitsPerRot / 600.0; // RPM => units per 100ms
-            point.arbFeedFwd = 0; // good place for kS, kV, kA, etc...
-
-            /* turn part */
-            point.auxiliaryPos = targetTurnDeg * Constants.kTurnUnitsPerDeg; // Convert deg to remote sensor units
-            point.auxiliaryVel = 0; // advanced teams can also provide the target velocity
-            point.auxiliaryArbFeedFwd = 0; // good place for kS, kV, kA, etc...
-
-            point.profileSlotSelect0 = Constants.kPrimaryPIDSlot; /* which set of gains would you like to use [0,3]? */
-            point.profileSlotSelect1 = Constants.kAuxPIDSlot; /* auxiliary PID [0,1], leave zero */
-            point.zeroPos = false; /* don't reset sensor, this is done elsewhere since we have multiple sensors */
-            point.isLastPoint = ((i + 1) == totalCnt); /* set this to true on the last point */
-            point.useAuxPID = true; /* tell MPB that we are using both pids */
-
-            _bufferedStream.Write(point);
-        }
+    /** drive PID's error, computed in the Talon so target and sensor are from the same instant */
+    double trackingError() {
+        return _rightMaster.getClosedLoopError(0);
     }
 
     void ZeroAllSensors() {
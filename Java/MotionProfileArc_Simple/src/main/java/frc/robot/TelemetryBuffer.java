@@ -0,0 +1,88 @@
+package frc.robot;
+
+/**
+ * Fixed capacity ring of telemetry samples, stored as one double[] per channel.
+ * Nothing is allocated after construction.
+ *
+ * Meant for exactly one producer thread (claim/put/commit) and one consumer
+ * thread (available/get/release).  If the consumer falls behind, new samples
+ * are dropped and counted instead of overwriting ones being read.
+ */
+class TelemetryBuffer {
+
+	private final double[][] _data;
+	private final int _mask;
+
+	/** total samples committed, only written by the producer */
+	private volatile long _head = 0;
+	/** total samples released, only written by the consumer */
+	private volatile long _tail = 0;
+	/** slot being filled by the producer */
+	private int _slot = 0;
+	/** samples thrown away because the ring was full */
+	private volatile long _dropped = 0;
+
+	/**
+	 * @param channels	number of doubles in each sample
+	 * @param capacity	samples the ring can hold, rounded up to a power of two
+	 */
+	public TelemetryBuffer(int channels, int capacity) {
+		int size = Integer.highestOneBit(Math.max(capacity, 1) - 1) << 1;
+		if (size <= 0)
+			size = 1;
+		_mask = size - 1;
+		_data = new double[channels][size];
+	}
+
+	/* ---------- producer ---------- */
+
+	/** @return true if a slot was claimed for a new sample, false if the ring is full */
+	public boolean claim() {
+		if (_head - _tail > _mask) {
+			_dropped = _dropped + 1;
+			return false;
+		}
+		_slot = (int) (_head & _mask);
+		return true;
+	}
+
+	/** Set one channel of the claimed sample */
+	public void put(int channel, double value) {
+		_data[channel][_slot] = value;
+	}
+
+	/** Make the claimed sample visible to the consumer */
+	public void commit() {
+		_head = _head + 1;
+	}
+
+	/* ---------- consumer ---------- */
+
+	/** @return number of samples ready to be read */
+	public int available() {
+		return (int) (_head - _tail);
+	}
+
+	/**
+	 * @param channel	channel to read
+	 * @param index		sample index, 0 is the oldest available
+	 */
+	public double get(int channel, int index) {
+		return _data[channel][(int) ((_tail + index) & _mask)];
+	}
+
+	/** Free the oldest count samples */
+	public void release(int count) {
+		_tail = _tail + count;
+	}
+
+	/** @return samples dropped because the ring was full */
+	public long getDropped() {
+		return _dropped;
+	}
+
+	/** @return number of samples the ring can hold */
+	public int getCapacity() {
+		return _mask + 1;
+	}
+}
@@ -0,0 +1,178 @@
+/**
+ * SmartDashboard numbers sent only when they change, no faster than each key allows.
+ *
+ * set() only records the newest value of a key, nothing goes out until flush().
+ * flush() is called on a fixed cadence and sends each key whose value moved more
+ * than its deadband since it was last sent, and whose minimum interval has passed.
+ * A value that changes ten times between flushes is sent once.  A key held back by
+ * its rate keeps its newest value and goes out on a later flush.
+ *
+ * kMaxBytesPerSec caps the total of every TelemetryPublisher together (PlotThread and
+ * LoopProfiler share it), the budget builds up between flushes to at most a second's
+ * worth.  Keys that don't fit in a flush wait for the next one, and the next flush
+ * starts where the last one stopped so every key gets a turn.  Byte counts are
+ * estimates of the NetworkTables entry update for a double.
+ *
+ * Not thread safe, set() and flush() from the same thread.  Different instances can
+ * flush from different threads, flush() times must all come from System.nanoTime().
+ */
+package frc.robot;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+public class TelemetryPublisher {
+
+	/** Most bytes per second over every key of every instance */
+	public static final int kMaxBytesPerSec = 4000;
+	/** NetworkTables entry update for a double: type, id, sequence, value type, value */
+	public static final int kBytesPerUpdate = 14;
+
+	/* updates every instance may still send, starts full so the first flush isn't starved */
+	private static final Object _budgetLock = new Object();
+	private static double _budget = kMaxBytesPerSec / (double) kBytesPerUpdate;
+	private static long _budgetMs = Long.MIN_VALUE;
+
+	private final String[] _keys;
+	private final double[] _deadband;
+	private final long[] _minIntervalMs;
+	private final double[] _value;
+	private final double[] _sentValue;
+	private final long[] _sentMs;
+	private final boolean[] _pending;
+	private int _count = 0;
+	/* first key to look at on the next flush */
+	private int _start = 0;
+
+	/* stats, per second over the last window */
+	private long _windowStartMs = -1;
+	private int _windowUpdates = 0;
+	private int _windowSuppressed = 0;
+	private double _updatesPerSec = 0;
+	private double _bytesPerSec = 0;
+	private double _suppressedPerSec = 0;
+
+	/** @param capacity	most keys */
+	public TelemetryPublisher(int capacity) {
+		_keys = new String[capacity];
+		_deadband = new double[capacity];
+		_minIntervalMs = new long[capacity];
+		_value = new double[capacity];
+		_sentValue = new double[capacity];
+		_sentMs = new long[capacity];
+		_pending = new boolean[capacity];
+	}
+
+	/**
+	 * Add a key.
+	 *
+	 * @param key		SmartDashboard key
+	 * @param deadband	smallest change worth sending, 0 to send every change
+	 * @param maxRateHz	most updates per second for this key
+	 * @return handle for set(), -1 if there is no room
+	 */
+	public int add(String key, double deadband, double maxRateHz) {
+		if (_count >= _keys.length) {
+			System.out.println("TelemetryPublisher: no room for " + key);
+			return -1;
+		}
+		int handle = _count++;
+		_keys[handle] = key;
+		_deadband[handle] = deadband;
+		_minIntervalMs[handle] = (long) Math.ceil(1000.0 / maxRateHz);
+		_sentValue[handle] = Double.NaN; /* first value always goes out */
+		_sentMs[handle] = Long.MIN_VALUE / 2;
+		return handle;
+	}
+
+	/** Record the newest value of a key, sent on a later flush() if it changed enough */
+	public void set(int handle, double value) {
+		if (handle < 0)
+			return;
+		_value[handle] = value;
+		double sent = _sentValue[handle];
+		boolean changed = Double.isNaN(sent) || Math.abs(value - sent) > _deadband[handle];
+		if (!changed)
+			++_windowSuppressed;
+		_pending[handle] = changed;
+	}
+
+	/**
+	 * Send whatever is due.
+	 *
+	 * @param nowMs	current time
+	 * @return keys sent
+	 */
+	public int flush(long nowMs) {
+		int budget = takeBudget(nowMs);
+
+		int sent = 0;
+		int i = _start;
+		for (int n = 0; n < _count && sent < budget; ++n, i = (i + 1) % _count) {
+			if (!_pending[i] || nowMs - _sentMs[i] < _minIntervalMs[i])
+				continue;
+			send(_keys[i], _value[i]);
+			_sentValue[i] = _value[i];
+			_sentMs[i] = nowMs;
+			_pending[i] = false;
+			++sent;
+		}
+		if (_count > 0)
+			_start = i % _count;
+		returnBudget(budget - sent);
+		_windowUpdates += sent;
+
+		/* roll the stats once a second */
+		if (_windowStartMs < 0)
+			_windowStartMs = nowMs;
+		long windowMs = nowMs - _windowStartMs;
+		if (windowMs >= 1000) {
+			_updatesPerSec = _windowUpdates * 1000.0 / windowMs;
+			_bytesPerSec = _updatesPerSec * kBytesPerUpdate;
+			_suppressedPerSec = _windowSuppressed * 1000.0 / windowMs;
+			_windowUpdates = 0;
+			_windowSuppressed = 0;
+			_windowStartMs = nowMs;
+		}
+		return sent;
+	}
+
+	/** Refill the shared budget for the time since any instance last flushed, and take all of it */
+	private static int takeBudget(long nowMs) {
+		synchronized (_budgetLock) {
+			double perSec = kMaxBytesPerSec / (double) kBytesPerUpdate;
+			if (_budgetMs != Long.MIN_VALUE && nowMs > _budgetMs)
+				_budget = Math.min(perSec, _budget + perSec * (nowMs - _budgetMs) / 1000.0);
+			_budgetMs = Math.max(_budgetMs, nowMs);
+			int taken = (int) _budget;
+			_budget -= taken;
+			return taken;
+		}
+	}
+
+	/** Give back what a flush didn't send */
+	private static void returnBudget(int updates) {
+		synchronized (_budgetLock) {
+			_budget += updates;
+		}
+	}
+
+	/** Send one value, separate so it can be replaced off the robot */
+	protected void send(String key, double value) {
+		SmartDashboard.putNumber(key, value);
+	}
+
+	/** @return updates sent per second, over the last second */
+	public double getUpdatesPerSec() {
+		return _updatesPerSec;
+	}
+
+	/** @return estimated bytes sent per second, over the last second */
+	public double getBytesPerSec() {
+		return _bytesPerSec;
+	}
+
+	/** @return values per second that were inside their deadband and not sent */
+	public double getSuppressedPerSec() {
+		return _suppressedPerSec;
+	}
+}
@@ -0,0 +1,112 @@
+package frc.robot;
+
+/**
+ * How well the last MP tracked, to compare kS/kV/kA feedforward against kF alone.
+ *
+ * While the MP runs, sample() takes the drive PID's getClosedLoopError(0) every
+ * loop, for the max and RMS.  Once the Talon is holding the last point, settle()
+ * times how long it takes the error to stay within the tolerance for kSettleLoops
+ * loops in a row.  toString() is the report, printed by Robot at the end of each MP.
+ */
+public class TrackingStats {
+
+	/** Loops in a row within tolerance to count as settled */
+	public static final int kSettleLoops = 5;
+
+	private final double _toleranceUnits;
+	private String _label = "";
+
+	private double _maxError = 0;
+	private double _sumSquares = 0;
+	private int _samples = 0;
+
+	private boolean _settling = false;
+	private double _finishedSec = 0;
+	private double _withinSinceSec = 0;
+	private int _withinLoops = 0;
+	/* ms from the last point to settled, -1 if not (yet) */
+	private double _settleMs = -1;
+	private double _lastSec = 0;
+
+	/** @param toleranceUnits	error, sensor units, the drive has to stay within to count as settled */
+	public TrackingStats(double toleranceUnits) {
+		_toleranceUnits = toleranceUnits;
+	}
+
+	/**
+	 * An MP is starting.
+	 *
+	 * @param label		shown in the report, say which feedforward is in use
+	 */
+	public void begin(String label) {
+		_label = label;
+		_maxError = 0;
+		_sumSquares = 0;
+		_samples = 0;
+		_settling = false;
+		_withinLoops = 0;
+		_settleMs = -1;
+	}
+
+	/** Every loop while the MP runs */
+	public void sample(double error) {
+		_maxError = Math.max(_maxError, Math.abs(error));
+		_sumSquares += error * error;
+		++_samples;
+	}
+
+	/** The last point is active, start timing the settle */
+	public void finished(double nowSec) {
+		_settling = true;
+		_finishedSec = nowSec;
+		_lastSec = nowSec;
+		_withinLoops = 0;
+	}
+
+	/**
+	 * Every loop while holding the last point.
+	 *
+	 * @return true once, the loop it settles
+	 */
+	public boolean settle(double nowSec, double error) {
+		if (!_settling)
+			return false;
+		_lastSec = nowSec;
+		if (Math.abs(error) > _toleranceUnits) {
+			_withinLoops = 0;
+			return false;
+		}
+		if (_withinLoops++ == 0)
+			_withinSinceSec = nowSec;
+		if (_withinLoops < kSettleLoops)
+			return false;
+		_settleMs = (_withinSinceSec - _finishedSec) * 1000.0;
+		_settling = false;
+		return true;
+	}
+
+	/** @return true while the settle is being timed */
+	public boolean isSettling() {
+		return _settling;
+	}
+
+	public double getMaxError() {
+		return _maxError;
+	}
+
+	public double getRmsError() {
+		return (_samples == 0) ? 0 : Math.sqrt(_sumSquares / _samples);
+	}
+
+	/** @return ms from the last point to settled, -1 if it hasn't */
+	public double getSettleMs() {
+		return _settleMs;
+	}
+
+	public String toString() {
+		String settle = (_settleMs >= 0) ? String.format("settled in %.0f ms", _settleMs)
+				: String.format("not settled after %.0f ms", (_lastSec - _finishedSec) * 1000.0);
+		return String.format("MP tracking (%s): max %.0f, rms %.1f units over %d loops, %s (within %.0f units)", _label,
+				_maxError, getRmsError(), _samples, settle, _toleranceUnits);
+	}
+}
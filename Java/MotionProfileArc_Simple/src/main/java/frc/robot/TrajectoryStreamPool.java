@@ -0,0 +1,235 @@
+/**
+ * Paths already written into BufferedTrajectoryPointStreams, ready to fire by id.
+ *
+ * Filling a stream takes a while for a long path, too long to do in the loop
+ * between picking a path and firing it.  Instead each path is defined once with
+ * a Builder, and a background thread writes it into a stream while the robot is
+ * disabled.  select() is then an array lookup.
+ *
+ * Each path has two streams.  A rebuild (say after the gains or the feedforward
+ * changed) is written into the back stream and swapped in when it is done, so the
+ * front stream is never touched while it might be firing.  If the back stream is
+ * the one firing, the rebuild waits for release().
+ *
+ * Memory is bounded by kMaxPaths and kMaxPoints, counted over every stream the pool
+ * holds once a build is swapped in.  The old version of the path doesn't count if
+ * the swap frees it (it isn't firing).  A build that would go over kMaxPoints is
+ * dropped with a message and the old version of the path stays.  kMaxPoints is a soft
+ * cap: a builder's points are only known once it has written them, so while a build
+ * is being checked the pool briefly holds it on top of everything else.  getBytes()
+ * is an estimate, the streams live in the native library.
+ */
+package frc.robot;
+
+import com.ctre.phoenix.motion.BufferedTrajectoryPointStream;
+
+public class TrajectoryStreamPool implements Runnable {
+
+	/** Most paths, ids are [0, kMaxPaths) */
+	public static final int kMaxPaths = 8;
+	/** Most points held over every stream */
+	public static final int kMaxPoints = 8192;
+	/** Rough native size of one buffered point */
+	public static final int kBytesPerPoint = 64;
+
+	/** Writes one path */
+	public interface Builder {
+		/**
+		 * Called on the pool's thread.
+		 *
+		 * @param trajectory	scratch, only this builder is using it
+		 * @param stream		already cleared, write every point of the path
+		 * @return points written
+		 */
+		int build(TrajectoryBuffer trajectory, BufferedTrajectoryPointStream stream);
+	}
+
+	private static class Path {
+		Builder builder;
+		BufferedTrajectoryPointStream front = new BufferedTrajectoryPointStream();
+		BufferedTrajectoryPointStream back = new BufferedTrajectoryPointStream();
+		int frontPoints = 0;
+		int backPoints = 0;
+		boolean ready = false;
+		boolean dirty = false;
+	}
+
+	private final Path[] _paths = new Path[kMaxPaths];
+	private final TrajectoryBuffer _trajectory;
+	private final Thread _thread;
+
+	/* stream handed out by select(), null once released */
+	private BufferedTrajectoryPointStream _firing = null;
+	private int _points = 0;
+	private int _builds = 0;
+
+	/** @param capacity	points the scratch TrajectoryBuffer starts with */
+	public TrajectoryStreamPool(int capacity) {
+		_trajectory = new TrajectoryBuffer(capacity);
+
+		_thread = new Thread(this, "TrajectoryStreamPool");
+		_thread.setDaemon(true);
+		_thread.setPriority(Thread.MIN_PRIORITY);
+		_thread.start();
+	}
+
+	/**
+	 * Define a path, or replace its builder, and build it in the background.
+	 *
+	 * @return false if id is out of range
+	 */
+	public synchronized boolean define(int id, Builder builder) {
+		if (id < 0 || id >= kMaxPaths) {
+			System.out.println("TrajectoryStreamPool: path " + id + " is out of range [0, " + kMaxPaths + ")");
+			return false;
+		}
+		if (_paths[id] == null)
+			_paths[id] = new Path();
+		_paths[id].builder = builder;
+		_paths[id].dirty = true;
+		notifyAll();
+		return true;
+	}
+
+	/** Build every path again, e.g. after something its builder uses changed */
+	public synchronized void rebuildAll() {
+		for (Path path : _paths) {
+			if (path != null)
+				path.dirty = true;
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Pick a path to fire.
+	 *
+	 * @return the path's stream, or null if it has not been built yet
+	 */
+	public synchronized BufferedTrajectoryPointStream select(int id) {
+		if (id < 0 || id >= kMaxPaths || _paths[id] == null || !_paths[id].ready)
+			return null;
+		_firing = _paths[id].front;
+		return _firing;
+	}
+
+	/** The selected stream is done firing, or was never fired */
+	public synchronized void release() {
+		BufferedTrajectoryPointStream released = _firing;
+		_firing = null;
+		/* if it was rebuilt while firing, the old version isn't needed anymore */
+		for (Path path : _paths) {
+			if (path != null && path.back == released && path.backPoints > 0) {
+				path.back.Clear();
+				_points -= path.backPoints;
+				path.backPoints = 0;
+			}
+		}
+		/* a rebuild may have been waiting on it */
+		notifyAll();
+	}
+
+	/** @return true if the path has been built at least once */
+	public synchronized boolean isReady(int id) {
+		return id >= 0 && id < kMaxPaths && _paths[id] != null && _paths[id].ready;
+	}
+
+	/** @return true if nothing is waiting to be built */
+	public synchronized boolean isIdle() {
+		for (Path path : _paths) {
+			if (path != null && path.dirty)
+				return false;
+		}
+		return true;
+	}
+
+	/** @return points held over every stream */
+	public synchronized int getPoints() {
+		return _points;
+	}
+
+	/** @return estimated memory held by the streams */
+	public synchronized int getBytes() {
+		return _points * kBytesPerPoint;
+	}
+
+	public synchronized int getBuilds() {
+		return _builds;
+	}
+
+	public synchronized String toString() {
+		StringBuilder sb = new StringBuilder("TrajectoryStreamPool: ");
+		for (int id = 0; id < kMaxPaths; ++id) {
+			Path path = _paths[id];
+			if (path == null)
+				continue;
+			sb.append("[").append(id).append("] ");
+			sb.append(path.ready ? path.frontPoints + " pts" : "not built").append("  ");
+		}
+		sb.append("total ").append(_points).append("/").append(kMaxPoints).append(" pts, ~");
+		sb.append(getBytes() / 1024).append(" KB, ").append(_builds).append(" builds");
+		return sb.toString();
+	}
+
+	/** Build thread, one path at a time */
+	public void run() {
+		while (true) {
+			Path path;
+			Builder builder;
+			BufferedTrajectoryPointStream stream;
+			synchronized (this) {
+				while ((path = nextDirty()) == null) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				path.dirty = false;
+				builder = path.builder;
+				stream = path.back;
+				_points -= path.backPoints;
+				path.backPoints = 0;
+			}
+
+			/* the slow part, outside the lock so select() never waits on it */
+			stream.Clear();
+			int points = builder.build(_trajectory, stream);
+
+			synchronized (this) {
+				/* the swap frees the old front, unless it is firing */
+				int freed = (path.front != _firing) ? path.frontPoints : 0;
+				if (_points - freed + points > kMaxPoints) {
+					System.out.println("TrajectoryStreamPool: " + points + " more points would exceed "
+							+ kMaxPoints + ", path not rebuilt");
+					stream.Clear();
+					continue;
+				}
+				/* swap, the old front becomes the back */
+				path.back = path.front;
+				path.backPoints = path.frontPoints;
+				path.front = stream;
+				path.frontPoints = points;
+				path.ready = true;
+				_points += points;
+				++_builds;
+
+				/* nothing needs the old version unless it is firing */
+				if (path.back != _firing) {
+					path.back.Clear();
+					_points -= path.backPoints;
+					path.backPoints = 0;
+				}
+			}
+			System.out.println(this);
+		}
+	}
+
+	/* a dirty path whose back stream is free to write, call holding the lock */
+	private Path nextDirty() {
+		for (Path path : _paths) {
+			if (path != null && path.dirty && path.back != _firing)
+				return path;
+		}
+		return null;
+	}
+}
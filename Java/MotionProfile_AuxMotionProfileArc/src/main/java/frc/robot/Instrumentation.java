@@ -18,6 +18,9 @@
  * Hold            2048            0               0               1                                                                               5.0             0.0
  * 
  * ...where the columns are reprinted occasionally so you know whats up.
+ * 
+ * The printout only shows one sample every 200ms.  Every sample is also appended to the
+ * FlightRecorder file, decode it with FlightRecorderDecoder to look for underruns after a match.
  */
 package frc.robot;
 
@@ -49,6 +52,9 @@ public class Instrumentation {
 
 	public static void process(MotionProfileStatus status, double pos,
 			double vel, double heading) {
+		/* keep every sample, this is just a binary append */
+		FlightRecorder.record(status, pos, vel, heading);
+
 		double now = edu.wpi.first.wpilibj.Timer.getFPGATimestamp();
 
 		if ((now - timeout) > 0.2) {
@@ -1,554 +1,32 @@
 /**
  * Select the Green highlighted cells and pasted into a .csv file.
  * No need to copy the blank lines at the bottom.
- * This can be pasted into an array for direct use in c++ and Java.
+ * Convert the .csv with ProfileFileWriter into src/main/deploy so it's loaded at runtime.
  */
 package frc.robot;
 
 public class MotionProfile {
-	/* Number of points in motion profile */
-	public static final int kNumPoints =541;
+	/* Profile file in src/main/deploy, 541 points */
 	//Position (rotations) | Velocity (RPM)	| Duration (ms)
-	public static final double[][] Points = new double[][]{		
-	{0,	0	,10},
-	{1.54320987654321E-06,	0.018518519	,10},
-	{6.94444444444444E-06,	0.046296296	,10},
-	{1.77469135802469E-05,	0.083333333	,10},
-	{3.54938271604938E-05,	0.12962963	,10},
-	{6.17283950617284E-05,	0.185185185	,10},
-	{9.79938271604938E-05,	0.25		,10},
-	{0.000145833333333333,	0.324074074	,10},
-	{0.00020679012345679,	0.407407407	,10},
-	{0.000282407407407407,	0.5			,10},
-	{0.000374228395061728,	0.601851852	,10},
-	{0.000483796296296296,	0.712962963	,10},
-	{0.000612654320987654,	0.833333333	,10},
-	{0.000762345679012346,	0.962962963	,10},
-	{0.000934413580246914,	1.101851852	,10},
-	{0.0011304012345679,	1.25		,10},
-	{0.00135185185185185,	1.407407407	,10},
-	{0.00160030864197531,	1.574074074	,10},
-	{0.00187731481481481,	1.75		,10},
-	{0.00218441358024691,	1.935185185	,10},
-	{0.00252314814814815,	2.12962963	,10},
-	{0.00289506172839506,	2.333333333	,10},
-	{0.0033016975308642,	2.546296296	,10},
-	{0.0037445987654321,	2.768518519	,10},
-	{0.00422530864197531,	3			,10},
-	{0.00474537037037037,	3.240740741	,10},
-	{0.00530632716049383,	3.490740741	,10},
-	{0.00590972222222222,	3.75		,10},
-	{0.0065570987654321,	4.018518519	,10},
-	{0.00725,				4.296296296	,10},
-	{0.00798996913580247,	4.583333333	,10},
-	{0.00877854938271605,	4.87962963	,10},
-	{0.00961728395061729,	5.185185185	,10},
-	{0.0105077160493827,	5.5			,10},
-	{0.0114513888888889,	5.824074074	,10},
-	{0.0124498456790123,	6.157407407	,10},
-	{0.0135046296296296,	6.5			,10},
-	{0.0146172839506173,	6.851851852	,10},
-	{0.0157893518518519,	7.212962963	,10},
-	{0.0170223765432099,	7.583333333	,10},
-	{0.0183179012345679,	7.962962963	,10},
-	{0.0196774691358025,	8.351851852	,10},
-	{0.0211026234567901,	8.75		,10},
-	{0.0225949074074074,	9.157407407	,10},
-	{0.0241558641975309,	9.574074074	,10},
-	{0.025787037037037,		10			,10},
-	{0.0274899691358025,	10.43518519	,10},
-	{0.0292662037037037,	10.87962963	,10},
-	{0.0311172839506173,	11.33333333	,10},
-	{0.0330447530864198,	11.7962963	,10},
-	{0.0350501543209877,	12.26851852	,10},
-	{0.0371350308641975,	12.75		,10},
-	{0.0393009259259259,	13.24074074	,10},
-	{0.0415493827160494,	13.74074074	,10},
-	{0.0438819444444445,	14.25		,10},
-	{0.0463001543209877,	14.76851852	,10},
-	{0.0488055555555556,	15.2962963	,10},
-	{0.0513996913580247,	15.83333333	,10},
-	{0.0540841049382716,	16.37962963	,10},
-	{0.0568603395061729,	16.93518519	,10},
-	{0.059729938271605,		17.5		,10},
-	{0.0626944444444445,	18.07407407	,10},
-	{0.0657554012345679,	18.65740741	,10},
-	{0.0689143518518519,	19.25		,10},
-	{0.0721728395061729,	19.85185185	,10},
-	{0.0755324074074074,	20.46296296	,10},
-	{0.0789945987654321,	21.08333333	,10},
-	{0.0825609567901235,	21.71296296	,10},
-	{0.086233024691358,		22.35185185	,10},
-	{0.0900123456790124,	23			,10},
-	{0.093900462962963,		23.65740741	,10},
-	{0.0978989197530864,	24.32407407	,10},
-	{0.102009259259259,	25			,10},
-	{0.106233024691358,	25.68518519	,10},
-	{0.110571759259259,	26.37962963	,10},
-	{0.11502700617284,	27.08333333	,10},
-	{0.119600308641975,	27.7962963	,10},
-	{0.124293209876543,	28.51851852	,10},
-	{0.12910725308642,	29.25		,10},
-	{0.134043981481482,	29.99074074	,10},
-	{0.139104938271605,	30.74074074	,10},
-	{0.144290895061728,	31.49074074	,10},
-	{0.149601851851852,	32.24074074	,10},
-	{0.155037808641975,	32.99074074	,10},
-	{0.160598765432099,	33.74074074	,10},
-	{0.166284722222222,	34.49074074	,10},
-	{0.172095679012346,	35.24074074	,10},
-	{0.178031635802469,	35.99074074	,10},
-	{0.184092592592593,	36.74074074	,10},
-	{0.190278549382716,	37.49074074	,10},
-	{0.196589506172839,	38.24074074	,10},
-	{0.203025462962963,	38.99074074	,10},
-	{0.209586419753086,	39.74074074	,10},
-	{0.21627237654321,	40.49074074	,10},
-	{0.223083333333333,	41.24074074	,10},
-	{0.230019290123457,	41.99074074	,10},
-	{0.23708024691358,	42.74074074	,10},
-	{0.244266203703704,	43.49074074	,10},
-	{0.251577160493827,	44.24074074	,10},
-	{0.259013117283951,	44.99074074	,10},
-	{0.266574074074074,	45.74074074	,10},
-	{0.274260030864197,	46.49074074	,10},
-	{0.282070987654321,	47.24074074	,10},
-	{0.290006944444444,	47.99074074	,10},
-	{0.298067901234568,	48.74074074	,10},
-	{0.306253858024691,	49.49074074	,10},
-	{0.314564814814815,	50.24074074	,10},
-	{0.323000771604938,	50.99074074	,10},
-	{0.331561728395062,	51.74074074	,10},
-	{0.340247685185185,	52.49074074	,10},
-	{0.349058641975309,	53.24074074	,10},
-	{0.357994598765432,	53.99074074	,10},
-	{0.367055555555555,	54.74074074	,10},
-	{0.376241512345679,	55.49074074	,10},
-	{0.385552469135802,	56.24074074	,10},
-	{0.394988425925926,	56.99074074	,10},
-	{0.404549382716049,	57.74074074	,10},
-	{0.414235339506173,	58.49074074	,10},
-	{0.424046296296296,	59.24074074	,10},
-	{0.433982253086419,	59.99074074	,10},
-	{0.444043209876543,	60.74074074	,10},
-	{0.454229166666666,	61.49074074	,10},
-	{0.46454012345679,	62.24074074	,10},
-	{0.474976080246913,	62.99074074	,10},
-	{0.485537037037037,	63.74074074	,10},
-	{0.49622299382716,	64.49074074	,10},
-	{0.507033950617284,	65.24074074	,10},
-	{0.517969907407407,	65.99074074	,10},
-	{0.52903086419753,	66.74074074	,10},
-	{0.540216820987654,	67.49074074	,10},
-	{0.551527777777777,	68.24074074	,10},
-	{0.562963734567901,	68.99074074	,10},
-	{0.574524691358024,	69.74074074	,10},
-	{0.586210648148148,	70.49074074	,10},
-	{0.598021604938271,	71.24074074	,10},
-	{0.609957561728394,	71.99074074	,10},
-	{0.622018518518518,	72.74074074	,10},
-	{0.634204475308641,	73.49074074	,10},
-	{0.646515432098765,	74.24074074	,10},
-	{0.658951388888888,	74.99074074	,10},
-	{0.671512345679012,	75.74074074	,10},
-	{0.684198302469135,	76.49074074	,10},
-	{0.697009259259258,	77.24074074	,10},
-	{0.709945216049382,	77.99074074	,10},
-	{0.723006172839505,	78.74074074	,10},
-	{0.736192129629629,	79.49074074	,10},
-	{0.749503086419752,	80.24074074	,10},
-	{0.762939043209876,	80.99074074	,10},
-	{0.776499999999999,	81.74074074	,10},
-	{0.790185956790122,	82.49074074	,10},
-	{0.803996913580246,	83.24074074	,10},
-	{0.817932870370369,	83.99074074	,10},
-	{0.831993827160493,	84.74074074	,10},
-	{0.846179783950616,	85.49074074	,10},
-	{0.86049074074074,	86.24074074	,10},
-	{0.874926697530863,	86.99074074	,10},
-	{0.889487654320987,	87.74074074	,10},
-	{0.90417361111111,	88.49074074	,10},
-	{0.918984567901233,	89.24074074	,10},
-	{0.933920524691357,	89.99074074	,10},
-	{0.94898148148148,	90.74074074	,10},
-	{0.964165895061727,	91.47222222	,10},
-	{0.979471450617283,	92.19444444	,10},
-	{0.99489660493827,	92.90740741	,10},
-	{1.01043981481481,	93.61111111	,10},
-	{1.02609953703704,	94.30555556	,10},
-	{1.04187422839506,	94.99074074	,10},
-	{1.05776234567901,	95.66666667	,10},
-	{1.07376234567901,	96.33333333	,10},
-	{1.08987268518518,	96.99074074	,10},
-	{1.10609182098765,	97.63888889	,10},
-	{1.12241820987654,	98.27777778	,10},
-	{1.13885030864197,	98.90740741	,10},
-	{1.15538657407407,	99.52777778	,10},
-	{1.17202546296296,	100.1388889	,10},
-	{1.18876543209876,	100.7407407	,10},
-	{1.2056049382716,	101.3333333	,10},
-	{1.2225424382716,	101.9166667	,10},
-	{1.23957638888889,	102.4907407	,10},
-	{1.25670524691358,	103.0555556	,10},
-	{1.2739274691358,	103.6111111	,10},
-	{1.29124151234568,	104.1574074	,10},
-	{1.30864583333333,	104.6944444	,10},
-	{1.32613888888889,	105.2222222	,10},
-	{1.34371913580247,	105.7407407	,10},
-	{1.3613850308642,	106.25		,10},
-	{1.3791350308642,	106.75		,10},
-	{1.39696759259259,	107.2407407	,10},
-	{1.4148811728395,	107.7222222	,10},
-	{1.43287422839506,	108.1944444	,10},
-	{1.45094521604938,	108.6574074	,10},
-	{1.46909259259259,	109.1111111	,10},
-	{1.48731481481481,	109.5555556	,10},
-	{1.50561033950617,	109.9907407	,10},
-	{1.52397762345679,	110.4166667	,10},
-	{1.54241512345679,	110.8333333	,10},
-	{1.56092129629629,	111.2407407	,10},
-	{1.57949459876543,	111.6388889	,10},
-	{1.59813348765432,	112.0277778	,10},
-	{1.61683641975308,	112.4074074	,10},
-	{1.63560185185185,	112.7777778	,10},
-	{1.65442824074074,	113.1388889	,10},
-	{1.67331404320987,	113.4907407	,10},
-	{1.69225771604938,	113.8333333	,10},
-	{1.71125771604938,	114.1666667	,10},
-	{1.7303125,			114.4907407	,10},
-	{1.74942052469136,	114.8055556	,10},
-	{1.76858024691358,	115.1111111	,10},
-	{1.78779012345679,	115.4074074	,10},
-	{1.80704861111111,	115.6944444	,10},
-	{1.82635416666666,	115.9722222	,10},
-	{1.84570524691358,	116.2407407	,10},
-	{1.86510030864197,	116.5		,10},
-	{1.88453780864197,	116.75		,10},
-	{1.9040162037037,	116.9907407	,10},
-	{1.92353395061728,	117.2222222	,10},
-	{1.94308950617284,	117.4444444	,10},
-	{1.96268132716049,	117.6574074	,10},
-	{1.98230787037037,	117.8611111	,10},
-	{2.00196759259259,	118.0555556	,10},
-	{2.02165895061728,	118.2407407	,10},
-	{2.04138040123456,	118.4166667	,10},
-	{2.06113040123456,	118.5833333	,10},
-	{2.0809074074074,	118.7407407	,10},
-	{2.10070987654321,	118.8888889	,10},
-	{2.1205362654321,	119.0277778	,10},
-	{2.14038503086419,	119.1574074	,10},
-	{2.16025462962963,	119.2777778	,10},
-	{2.18014351851852,	119.3888889	,10},
-	{2.20005015432098,	119.4907407	,10},
-	{2.21997299382716,	119.5833333	,10},
-	{2.23991049382716,	119.6666667	,10},
-	{2.25986111111111,	119.7407407	,10},
-	{2.27982330246913,	119.8055556	,10},
-	{2.29979552469135,	119.8611111	,10},
-	{2.3197762345679,	119.9074074	,10},
-	{2.33976388888889,	119.9444444	,10},
-	{2.35975694444444,	119.9722222	,10},
-	{2.37975385802469,	119.9907407	,10},
-	{2.39975308641975,	120	,10},
-	{2.41975308641975,	120	,10},
-	{2.43975308641975,	120	,10},
-	{2.45975308641975,	120	,10},
-	{2.47975308641975,	120	,10},
-	{2.49975308641975,	120	,10},
-	{2.51975308641975,	120	,10},
-	{2.53975308641975,	120	,10},
-	{2.55975308641975,	120	,10},
-	{2.57975308641975,	120	,10},
-	{2.59975308641975,	120	,10},
-	{2.61975308641975,	120	,10},
-	{2.63975308641975,	120	,10},
-	{2.65975308641975,	120	,10},
-	{2.67975308641975,	120	,10},
-	{2.69975308641975,	120	,10},
-	{2.71975308641975,	120	,10},
-	{2.73975308641975,	120	,10},
-	{2.75975308641975,	120	,10},
-	{2.77975308641975,	120	,10},
-	{2.79975308641975,	120	,10},
-	{2.81975308641975,	120	,10},
-	{2.83975308641975,	120	,10},
-	{2.85975308641975,	120	,10},
-	{2.87975308641975,	120	,10},
-	{2.89975308641975,	120	,10},
-	{2.91975308641975,	120	,10},
-	{2.93975308641975,	120	,10},
-	{2.95975308641975,	120	,10},
-	{2.97975308641975,	120	,10},
-	{2.99975308641975,	120	,10},
-	{3.01975308641975,	120	,10},
-	{3.03975308641975,	120	,10},
-	{3.05975308641975,	120	,10},
-	{3.07975308641975,	120	,10},
-	{3.09975308641975,	120	,10},
-	{3.11975308641975,	120	,10},
-	{3.13975308641975,	120	,10},
-	{3.15975308641975,	120	,10},
-	{3.17975308641975,	120	,10},
-	{3.19975308641975,	120	,10},
-	{3.21975308641975,	120	,10},
-	{3.23975308641975,	120	,10},
-	{3.25975308641975,	120	,10},
-	{3.27975308641975,	120	,10},
-	{3.29975308641975,	120	,10},
-	{3.31975308641975,	120	,10},
-	{3.33975308641975,	120	,10},
-	{3.35975308641975,	120	,10},
-	{3.37975308641975,	120	,10},
-	{3.39975308641975,	120	,10},
-	{3.41975308641975,	120	,10},
-	{3.43975308641975,	120	,10},
-	{3.45975308641975,	120	,10},
-	{3.47975308641975,	120	,10},
-	{3.49975308641975,	120	,10},
-	{3.51975308641975,	120	,10},
-	{3.53975308641975,	120	,10},
-	{3.55975308641975,	120	,10},
-	{3.57975308641975,	120	,10},
-	{3.59975308641975,	120	,10},
-	{3.61975308641975,	120	,10},
-	{3.63975154320987,	119.9814815	,10},
-	{3.65974614197531,	119.9537037	,10},
-	{3.67973533950617,	119.9166667	,10},
-	{3.69971759259259,	119.8703704	,10},
-	{3.71969135802469,	119.8148148	,10},
-	{3.73965509259259,	119.75		,10},
-	{3.75960725308642,	119.6759259	,10},
-	{3.77954629629629,	119.5925926	,10},
-	{3.79947067901234,	119.5		,10},
-	{3.81937885802469,	119.3981481	,10},
-	{3.83926929012345,	119.287037	,10},
-	{3.85914043209876,	119.1666667	,10},
-	{3.87899074074074,	119.037037	,10},
-	{3.8988186728395,	118.8981481	,10},
-	{3.91862268518518,	118.75		,10},
-	{3.9384012345679,	118.5925926	,10},
-	{3.95815277777778,	118.4259259	,10},
-	{3.97787577160494,	118.25		,10},
-	{3.9975686728395,	118.0648148	,10},
-	{4.0172299382716,	117.8703704	,10},
-	{4.03685802469136,	117.6666667	,10},
-	{4.05645138888889,	117.4537037	,10},
-	{4.07600848765432,	117.2314815	,10},
-	{4.09552777777778,	117			,10},
-	{4.11500771604938,	116.7592593	,10},
-	{4.13444675925926,	116.5092593	,10},
-	{4.15384336419753,	116.25		,10},
-	{4.17319598765432,	115.9814815	,10},
-	{4.19250308641975,	115.7037037	,10},
-	{4.21176311728395,	115.4166667	,10},
-	{4.23097453703704,	115.1203704	,10},
-	{4.25013580246913,	114.8148148	,10},
-	{4.26924537037037,	114.5		,10},
-	{4.28830169753086,	114.1759259	,10},
-	{4.30730324074074,	113.8425926	,10},
-	{4.32624845679012,	113.5		,10},
-	{4.34513580246913,	113.1481481	,10},
-	{4.3639637345679,	112.787037	,10},
-	{4.38273070987654,	112.4166667	,10},
-	{4.40143518518518,	112.037037	,10},
-	{4.42007561728395,	111.6481481	,10},
-	{4.43865046296296,	111.25		,10},
-	{4.45715817901234,	110.8425926	,10},
-	{4.47559722222222,	110.4259259	,10},
-	{4.49396604938271,	110			,10},
-	{4.51226311728395,	109.5648148	,10},
-	{4.53048688271605,	109.1203704	,10},
-	{4.54863580246913,	108.6666667	,10},
-	{4.56670833333333,	108.2037037	,10},
-	{4.58470293209876,	107.7314815	,10},
-	{4.60261805555555,	107.25		,10},
-	{4.62045216049382,	106.7592593	,10},
-	{4.6382037037037,	106.2592593	,10},
-	{4.65587114197531,	105.75		,10},
-	{4.67345293209876,	105.2314815	,10},
-	{4.69094753086419,	104.7037037	,10},
-	{4.70835339506173,	104.1666667	,10},
-	{4.72566898148148,	103.6203704	,10},
-	{4.74289274691358,	103.0648148	,10},
-	{4.76002314814814,	102.5		,10},
-	{4.77705864197531,	101.9259259	,10},
-	{4.79399768518518,	101.3425926	,10},
-	{4.8108387345679,	100.75		,10},
-	{4.82758024691358,	100.1481481	,10},
-	{4.84422067901234,	99.53703704	,10},
-	{4.86075848765432,	98.91666667	,10},
-	{4.87719212962963,	98.28703704	,10},
-	{4.89352006172839,	97.64814815	,10},
-	{4.90974074074074,	97			,10},
-	{4.92585262345679,	96.34259259	,10},
-	{4.94185416666666,	95.67592593	,10},
-	{4.95774382716049,	95			,10},
-	{4.97352006172839,	94.31481481	,10},
-	{4.98918132716049,	93.62037037	,10},
-	{5.00472608024691,	92.91666667	,10},
-	{5.02015277777777,	92.2037037	,10},
-	{5.03545987654321,	91.48148148	,10},
-	{5.05064583333333,	90.75		,10},
-	{5.06570910493827,	90.00925926	,10},
-	{5.08064814814814,	89.25925926	,10},
-	{5.09546219135802,	88.50925926	,10},
-	{5.1101512345679,	87.75925926	,10},
-	{5.12471527777777,	87.00925926	,10},
-	{5.13915432098765,	86.25925926	,10},
-	{5.15346836419753,	85.50925926	,10},
-	{5.1676574074074,	84.75925926	,10},
-	{5.18172145061728,	84.00925926	,10},
-	{5.19566049382716,	83.25925926	,10},
-	{5.20947453703703,	82.50925926	,10},
-	{5.22316358024691,	81.75925926	,10},
-	{5.23672762345679,	81.00925926	,10},
-	{5.25016666666666,	80.25925926	,10},
-	{5.26348070987654,	79.50925926	,10},
-	{5.27666975308642,	78.75925926	,10},
-	{5.28973379629629,	78.00925926	,10},
-	{5.30267283950617,	77.25925926	,10},
-	{5.31548688271605,	76.50925926	,10},
-	{5.32817592592592,	75.75925926	,10},
-	{5.3407399691358,	75.00925926	,10},
-	{5.35317901234568,	74.25925926	,10},
-	{5.36549305555555,	73.50925926	,10},
-	{5.37768209876543,	72.75925926	,10},
-	{5.3897461419753,	72.00925926	,10},
-	{5.40168518518518,	71.25925926	,10},
-	{5.41349922839506,	70.50925926	,10},
-	{5.42518827160493,	69.75925926	,10},
-	{5.43675231481481,	69.00925926	,10},
-	{5.44819135802469,	68.25925926	,10},
-	{5.45950540123456,	67.50925926	,10},
-	{5.47069444444444,	66.75925926	,10},
-	{5.48175848765432,	66.00925926	,10},
-	{5.49269753086419,	65.25925926	,10},
-	{5.50351157407407,	64.50925926	,10},
-	{5.51420061728395,	63.75925926	,10},
-	{5.52476466049382,	63.00925926	,10},
-	{5.5352037037037,	62.25925926	,10},
-	{5.54551774691358,	61.50925926	,10},
-	{5.55570679012345,	60.75925926	,10},
-	{5.56577083333333,	60.00925926	,10},
-	{5.57570987654321,	59.25925926	,10},
-	{5.58552391975308,	58.50925926	,10},
-	{5.59521296296296,	57.75925926	,10},
-	{5.60477700617284,	57.00925926	,10},
-	{5.61421604938271,	56.25925926	,10},
-	{5.62353009259259,	55.50925926	,10},
-	{5.63271913580247,	54.75925926	,10},
-	{5.64178317901234,	54.00925926	,10},
-	{5.65072222222222,	53.25925926	,10},
-	{5.6595362654321,	52.50925926	,10},
-	{5.66822530864197,	51.75925926	,10},
-	{5.67678935185185,	51.00925926	,10},
-	{5.68522839506173,	50.25925926	,10},
-	{5.6935424382716,	49.50925926	,10},
-	{5.70173148148148,	48.75925926	,10},
-	{5.70979552469136,	48.00925926	,10},
-	{5.71773456790123,	47.25925926	,10},
-	{5.72554861111111,	46.50925926	,10},
-	{5.73323765432099,	45.75925926	,10},
-	{5.74080169753086,	45.00925926	,10},
-	{5.74824074074074,	44.25925926	,10},
-	{5.75555478395062,	43.50925926	,10},
-	{5.76274382716049,	42.75925926	,10},
-	{5.76980787037037,	42.00925926	,10},
-	{5.77674691358025,	41.25925926	,10},
-	{5.78356095679012,	40.50925926	,10},
-	{5.79025,			39.75925926	,10},
-	{5.79681404320988,	39.00925926	,10},
-	{5.80325308641975,	38.25925926	,10},
-	{5.80956712962963,	37.50925926	,10},
-	{5.8157561728395,	36.75925926	,10},
-	{5.82182021604938,	36.00925926	,10},
-	{5.82775925925926,	35.25925926	,10},
-	{5.83357330246913,	34.50925926	,10},
-	{5.83926234567901,	33.75925926	,10},
-	{5.84482638888889,	33.00925926	,10},
-	{5.85026543209876,	32.25925926	,10},
-	{5.85557947530864,	31.50925926	,10},
-	{5.86076851851852,	30.75925926	,10},
-	{5.86583256172839,	30.00925926	,10},
-	{5.87077160493827,	29.25925926	,10},
-	{5.87558719135802,	28.52777778	,10},
-	{5.88028163580247,	27.80555556	,10},
-	{5.88485648148148,	27.09259259	,10},
-	{5.88931327160494,	26.38888889	,10},
-	{5.89365354938271,	25.69444444	,10},
-	{5.89787885802469,	25.00925926	,10},
-	{5.90199074074074,	24.33333333	,10},
-	{5.90599074074074,	23.66666667	,10},
-	{5.90988040123457,	23.00925926	,10},
-	{5.9136612654321,	22.36111111	,10},
-	{5.91733487654321,	21.72222222	,10},
-	{5.92090277777778,	21.09259259	,10},
-	{5.92436651234568,	20.47222222	,10},
-	{5.92772762345679,	19.86111111	,10},
-	{5.93098765432099,	19.25925926	,10},
-	{5.93414814814815,	18.66666667	,10},
-	{5.93721064814815,	18.08333333	,10},
-	{5.94017669753087,	17.50925926	,10},
-	{5.94304783950617,	16.94444444	,10},
-	{5.94582561728395,	16.38888889	,10},
-	{5.94851157407408,	15.84259259	,10},
-	{5.95110725308642,	15.30555556	,10},
-	{5.95361419753087,	14.77777778	,10},
-	{5.95603395061729,	14.25925926	,10},
-	{5.95836805555556,	13.75		,10},
-	{5.96061805555556,	13.25		,10},
-	{5.96278549382716,	12.75925926	,10},
-	{5.96487191358025,	12.27777778	,10},
-	{5.96687885802469,	11.80555556	,10},
-	{5.96880787037037,	11.34259259	,10},
-	{5.97066049382716,	10.88888889	,10},
-	{5.97243827160494,	10.44444444	,10},
-	{5.97414274691358,	10.00925926	,10},
-	{5.97577546296296,	9.583333333	,10},
-	{5.97733796296296,	9.166666667	,10},
-	{5.97883179012346,	8.759259259	,10},
-	{5.98025848765432,	8.361111111	,10},
-	{5.98161959876543,	7.972222222	,10},
-	{5.98291666666667,	7.592592593	,10},
-	{5.9841512345679,	7.222222222	,10},
-	{5.98532484567901,	6.861111111	,10},
-	{5.98643904320988,	6.509259259	,10},
-	{5.98749537037037,	6.166666667	,10},
-	{5.98849537037037,	5.833333333	,10},
-	{5.98944058641975,	5.509259259	,10},
-	{5.9903325617284,	5.194444444	,10},
-	{5.99117283950617,	4.888888889	,10},
-	{5.99196296296296,	4.592592593	,10},
-	{5.99270447530864,	4.305555556	,10},
-	{5.99339891975309,	4.027777778	,10},
-	{5.99404783950617,	3.759259259	,10},
-	{5.99465277777778,	3.5			,10},
-	{5.99521527777778,	3.25		,10},
-	{5.99573688271605,	3.009259259	,10},
-	{5.99621913580247,	2.777777778	,10},
-	{5.99666358024692,	2.555555556	,10},
-	{5.99707175925926,	2.342592593	,10},
-	{5.99744521604938,	2.138888889	,10},
-	{5.99778549382716,	1.944444444	,10},
-	{5.99809413580247,	1.759259259	,10},
-	{5.99837268518519,	1.583333333	,10},
-	{5.99862268518519,	1.416666667	,10},
-	{5.99884567901235,	1.259259259	,10},
-	{5.99904320987655,	1.111111111	,10},
-	{5.99921682098766,	0.972222222	,10},
-	{5.99936805555556,	0.842592593	,10},
-	{5.99949845679013,	0.722222222	,10},
-	{5.99960956790124,	0.611111111	,10},
-	{5.99970293209877,	0.509259259	,10},
-	{5.99978009259259,	0.416666667	,10},
-	{5.99984259259259,	0.333333333	,10},
-	{5.99989197530864,	0.259259259	,10},
-	{5.99992978395062,	0.194444444	,10},
-	{5.9999575617284,	0.138888889	,10},
-	{5.99997685185185,	0.092592593	,10},
-	{5.99998919753087,	0.055555556	,10},
-	{5.99999614197531,	0.027777778	,10},
-	{5.99999922839506,	0.009259259	,10},
-	{6,	3.71359E-15	,10},
-	{6,	0			,10}};
+	public static final String kFileName = "MotionProfile.mp";
+
+	/**
+	 * Set to true to build an S-curve on the robot instead of loading kFileName.
+	 * The parameters below roughly match the shipped file.
+	 */
+	public static final boolean kGenerate = false;
+	public static final double kDistanceRot = 6;
+	public static final double kVelocityRPM = 120;
+	public static final double kAccelRPMPerSec = 75;
+	public static final double kJerkRPMPerSec2 = 750;
+	public static final int kDurationMs = 10;
+
+	private static SCurveGenerator _generator = new SCurveGenerator(541);
+
+	/** @return the profile to fire, generated or from the deploy directory */
+	public static ProfileFile load() {
+		if (kGenerate)
+			return _generator.generate(kDistanceRot, kVelocityRPM, kAccelRPMPerSec, kJerkRPMPerSec2, kDurationMs);
+		return ProfileFile.open(kFileName);
+	}
 }
@@ -14,14 +14,23 @@
  * processMotionProfileBuffer()  	// To push/clear, and process the trajectory points.
  * getControlMode,					// To check if we are in Motion Profile Control mode.
  * 
+ * Points are not pushed all at once.  Every control() call tops off the Talon's top buffer with only as
+ * many points as topBufferRem says will fit (capped at kMaxPointsPerLoop), so pushMotionProfileTrajectory()
+ * is called continuously while the Talon executes the motion profile.  The profile can be any length and
+ * the time spent in the robot loop stays bounded.
+ * 
+ * processMotionProfileBuffer() is called by a MotionProfilePump, which runs only as fast as the profile
+ * drains, parks itself when there is nothing to transfer, and picks how many points to buffer before
+ * the MP is enabled.
+ * 
+ * Points are converted once per profile, direction and end heading and kept in a TrajectoryCache, so
+ * feed() only pushes them.  Call warmCache() while disabled so the first press doesn't convert either.
+ * 
  * Example of advanced features not demonstrated here...
- * [1] Calling pushMotionProfileTrajectory() continuously while the Talon executes the motion profile, thereby keeping it going indefinitely.
- * [2] Instead of setting the sensor position to zero at the start of each MP, the program could offset the MP's position based on current position. 
+ * [1] Instead of setting the sensor position to zero at the start of each MP, the program could offset the MP's position based on current position. 
  */
 package frc.robot;
 
-import edu.wpi.first.wpilibj.Notifier;
-
 import com.ctre.phoenix.motion.*;
 import com.ctre.phoenix.motorcontrol.ControlMode;
 import com.ctre.phoenix.motorcontrol.IMotorController;
@@ -74,29 +83,48 @@ public class MotionProfileExample {
 	 */
 	private SetValueMotionProfile _setValue = SetValueMotionProfile.Disable;
 	/**
-	 * How many trajectory points do we wait for before firing the motion
-	 * profile.
+	 * How long the buffered points should last before firing the motion
+	 * profile, to start with.  The pump adapts it (20 points of 10ms).
 	 */
-	private static final int kMinPointsInTalon = 20;
+	private static final int kInitialLeadMs = 200;
 	/**
 	 * Just a state timeout to make sure we don't get stuck anywhere. Each loop
 	 * is about 20ms.
 	 */
 	private static final int kNumLoopsTimeout = 10;
+
+	/** Profile to fire, mapped once (or generated, see MotionProfile.kGenerate) and decoded as it's streamed */
+	private ProfileFile _profile = MotionProfile.load();
+
+	/**
+	 * Most points to push into the top buffer in one control() call.  This bounds
+	 * how long the feeder can hold up the robot loop.  Each loop is about 20ms, so
+	 * this only has to beat the profile's point rate by a comfortable margin.
+	 */
+	private static final int kMaxPointsPerLoop = 64;
+
+	/** Converted profiles, a few headings in each direction plus whatever the driver picks */
+	private static final int kCacheCapacity = 16;
+	/** End headings to convert ahead of time, Pigeon units (straight, 45 and 90 deg each way) */
+	private static final double[] kWarmHeadings = {
+		0,
+		+Constants.kPigeonUnitsPerRotation * 0.125, -Constants.kPigeonUnitsPerRotation * 0.125,
+		+Constants.kPigeonUnitsPerRotation * 0.25, -Constants.kPigeonUnitsPerRotation * 0.25,
+	};
+	private TrajectoryCache _cache = new TrajectoryCache(kCacheCapacity);
+
+	/** Converted points of the active profile, null when all are sent */
+	private TrajectoryPoint[] _feedPoints = null;
+	/** Index of the next point to push, and total points in the active profile */
+	private int _feedIndex = 0;
+	private int _feedTotal = 0;
 	
 	/**
-	 * Lets create a periodic task to funnel our trajectory points into our talon.
-	 * It doesn't need to be very accurate, just needs to keep pace with the motion
-	 * profiler executer.  Now if you're trajectory points are slow, there is no need
-	 * to do this, just call _talon.processMotionProfileBuffer() in your teleop loop.
-	 * Generally speaking you want to call it at least twice as fast as the duration
-	 * of your trajectory points.  So if they are firing every 20ms, you should call 
-	 * every 10ms.
+	 * Periodic task to funnel our trajectory points into our talon.  It keeps
+	 * pace with the motion profile executer (at least twice as fast as the
+	 * points are used) only while there is something to funnel.
 	 */
-	class PeriodicRunnable implements java.lang.Runnable {
-	    public void run() {  _motorController.processMotionProfileBuffer();    }
-	}
-	Notifier _notifer = new Notifier(new PeriodicRunnable());
+	private MotionProfilePump _pump;
 	
 
 	/**
@@ -107,12 +135,8 @@ public class MotionProfileExample {
 	 */
 	public MotionProfileExample(IMotorController motorController) {
 		_motorController = motorController;
-		/*
-		 * since our MP is 10ms per point, set the control frame rate and the
-		 * notifer to half that
-		 */
-		_motorController.changeMotionControlFramePeriod(5);
-		_notifer.startPeriodic(0.005);
+		/* the pump sets the control frame rate to match its own, parked until an MP starts */
+		_pump = new MotionProfilePump(kInitialLeadMs, motorController);
 	}
 
 	/**
@@ -128,6 +152,9 @@ public class MotionProfileExample {
 		_motorController.clearMotionProfileTrajectories();
 		/* When we do re-enter motionProfile control mode, stay disabled. */
 		_setValue = SetValueMotionProfile.Disable;
+		/* Nothing left to stream */
+		_feedPoints = null;
+		_pump.park();
 		/* When we do start running our state machine start at the beginning. */
 		_state = 0;
 		_loopTimeout = -1;
@@ -177,6 +204,8 @@ public class MotionProfileExample {
 			 */
 			_state = 0;
 			_loopTimeout = -1;
+			_feedPoints = null;
+			_pump.park();
 		} else {
 			/*
 			 * we are in MP control mode. That means: starting Mps, checking Mp
@@ -204,7 +233,7 @@ public class MotionProfileExample {
 					 * points
 					 */
 					/* do we have a minimum numberof points in Talon */
-					if (_status.btmBufferCnt > kMinPointsInTalon) {
+					if (_status.btmBufferCnt > _pump.getStartThreshold()) {
 						/* start (once) the motion profile */
 						_setValue = SetValueMotionProfile.Enable;
 						/* MP will start once the control frame gets scheduled */
@@ -237,10 +266,19 @@ public class MotionProfileExample {
 						_setValue = SetValueMotionProfile.Hold;
 						_state = 0;
 						_loopTimeout = -1;
+						/* adapt the start threshold for next time, and stop pumping */
+						_pump.onFinished(_status.hasUnderrun);
 					}
 					break;
 			}
 
+			/* Top off the Talon's buffer with whatever is left of the profile */
+			feed();
+
+			/* pump as fast as the profile needs, _status is from this loop once we are past state 0 */
+			if (_state != 0)
+				_pump.update(_status, _feedPoints == null && _status.topBufferCnt == 0);
+
 			/* Get the motion profile status every loop */
 			_heading = _motorController.getActiveTrajectoryHeading();
 			_pos = _motorController.getActiveTrajectoryPosition();
@@ -254,13 +292,10 @@ public class MotionProfileExample {
 	/** Start filling the MPs to all of the involved Talons. */
 	private void startFilling() {
 		/* since this example only has one talon, just update that one */
-		startFilling(MotionProfile.Points, MotionProfile.kNumPoints);
+		startFilling(_profile);
 	}
 
-	private void startFilling(double[][] profile, int totalCnt) {
-
-		/* create an empty point */
-		TrajectoryPoint point = new TrajectoryPoint();
+	private void startFilling(ProfileFile profile) {
 
 		/* did we get an underrun condition since last time we checked ? */
 		if (_status.hasUnderrun) {
@@ -280,34 +315,44 @@ public class MotionProfileExample {
 
 		/* set the base trajectory period to zero, use the individual trajectory period below */
 		_motorController.configMotionProfileTrajectoryPeriod(Constants.kBaseTrajPeriodMs, Constants.kTimeoutMs);
-		
-		/* squirell away the final target distance, we will use this for heading generation */
-		double finalPositionRot = profile[totalCnt-1][0];
-		
-		/* This is fast since it's just into our TOP buffer */
-		for (int i = 0; i < totalCnt; ++i) {
-			double direction = _bForward ? +1 : -1;
-			double positionRot = profile[i][0];
-			double velocityRPM = profile[i][1];
-			double heading = _endHeading * positionRot / finalPositionRot; /* scale heading progress to position progress */
 
-			/* for each point, fill our structure and pass it to API */
-			point.position = direction * positionRot * Constants.kSensorUnitsPerRotation * 2; 		//Convert Revolutions to Units
-			point.velocity = direction * velocityRPM * Constants.kSensorUnitsPerRotation / 600.0; 	//Convert RPM to Units/100ms
-			point.auxiliaryPos = heading; /* scaled such that 3600 => 360 deg */
-			point.profileSlotSelect0 = Constants.kSlot_MotProf; /* which set of gains would you like to use [0,3]? */
-			point.profileSlotSelect1 = Constants.kSlot_Turning; /* auxiliary PID [0,1], leave zero */
-			point.timeDur = (int)profile[i][2];		// Trajectory Duration is no longer a thing...
-			point.zeroPos = false;
-			if (i == 0)
-				point.zeroPos = true; /* set this to true on the first point */
-			point.useAuxPID = true;
+		/* points already in sensor units with direction and heading applied, converted now on a miss */
+		_feedPoints = _cache.get(profile, _bForward, _endHeading);
+
+		/* start streaming from the first point, feed() sends the rest as room frees up */
+		_motorController.getMotionProfileStatus(_status);
+		_feedIndex = 0;
+		_feedTotal = _feedPoints.length;
+		_pump.onFill(_feedTotal, (_feedTotal > 0) ? _feedPoints[0].timeDur : 0);
+		feed();
+	}
+
+	/**
+	 * Push as many of the remaining points as fit in the top buffer.  Uses the
+	 * topBufferRem from the last getMotionProfileStatus() call, minus whatever
+	 * we pushed since then, so we never overfill.
+	 */
+	private void feed() {
+		if (_feedPoints == null) {
+			/* nothing to send */
+			return;
+		}
+
+		int room = Math.min(_status.topBufferRem, kMaxPointsPerLoop);
+		while (room > 0 && _feedIndex < _feedTotal) {
+			/* already converted, see TrajectoryCache */
+			_motorController.pushMotionProfileTrajectory(_feedPoints[_feedIndex]);
 
-			point.isLastPoint = false;
-			if ((i + 1) == totalCnt)
-				point.isLastPoint = true; /* set this to true on the last point  */
+			++_feedIndex;
+			--room;
+			/* account for the push until the next getMotionProfileStatus() */
+			--_status.topBufferRem;
+			++_status.topBufferCnt;
+		}
 
-			_motorController.pushMotionProfileTrajectory(point);
+		if (_feedIndex >= _feedTotal) {
+			/* whole profile is in the Talon */
+			_feedPoints = null;
 		}
 	}
 
@@ -318,7 +363,16 @@ public class MotionProfileExample {
 	void start(double endHeading, boolean bForward) {
 		_bStart = true;
 		_bForward = bForward;
-		_endHeading = endHeading;
+		/* snapped to TrajectoryCache.kHeadingStep so repeat presses hit the cache */
+		_endHeading = TrajectoryCache.snapHeading(endHeading);
+	}
+
+	/**
+	 * Convert the profile for the usual directions and headings so firing it is
+	 * only pushes.  Call while disabled, converting allocates.
+	 */
+	void warmCache() {
+		_cache.warm(_profile, kWarmHeadings);
 	}
 
 	/**
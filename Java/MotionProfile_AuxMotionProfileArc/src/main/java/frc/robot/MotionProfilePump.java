@@ -0,0 +1,216 @@
+/**
+ * Calls processMotionProfileBuffer() only as often as the profile needs it, and
+ * decides how many points have to be in the Talon before the MP is enabled.
+ *
+ * processMotionProfileBuffer() moves points from the API's top buffer to the
+ * Talon's bottom buffer, and the Talon drains the bottom buffer at one point per
+ * point duration.  Instead of a Notifier that fires every 5ms forever, the pump...
+ *
+ * [1] Measures the drain rate every loop from the duration of the point the Talon
+ * 	is executing (MotionProfileStatus.timeDurMs), and runs kHeadroom times faster
+ * 	than that.  Until the MP is running it goes by the first point's duration.
+ * [2] Runs as fast as it can whenever the bottom buffer is below the start threshold
+ * 	or the Talon reports an underrun, to catch back up.
+ * [3] Sets the motion control frame period to match, so the CAN frame that carries
+ * 	the points is not sent any more often than points are transferred.
+ * [4] Parks (stops the Notifier) once every point is in every Talon, and whenever no
+ * 	profile is running.
+ *
+ * The start threshold is kept as lead time rather than points.  It doubles after a
+ * profile that underran, and shrinks again after kCleanProfilesToShrink clean ones,
+ * so it settles at the smallest lead that doesn't underrun on this robot.
+ *
+ * Call onFill() when a profile starts streaming, update() every loop while it runs,
+ * and onFinished() or park() when it is done.
+ */
+package frc.robot;
+
+import com.ctre.phoenix.motion.MotionProfileStatus;
+import com.ctre.phoenix.motion.SetValueMotionProfile;
+import com.ctre.phoenix.motorcontrol.IMotorController;
+
+import edu.wpi.first.wpilibj.Notifier;
+
+public class MotionProfilePump {
+	/** Fastest and slowest the pump runs, ms */
+	public static final int kMinPeriodMs = 2;
+	public static final int kMaxPeriodMs = 20;
+	/** Transfer points this many times faster than the Talon uses them */
+	public static final double kHeadroom = 2.0;
+	/** Range of the lead time buffered before the MP is enabled, ms */
+	public static final int kMinLeadMs = 20;
+	public static final int kMaxLeadMs = 640;
+	/** Clean profiles in a row before the lead is shrunk */
+	public static final int kCleanProfilesToShrink = 5;
+	/** Points the Talon's bottom buffer can hold */
+	public static final int kBottomBufferSize = 128;
+	/** Weight of each new drain rate sample */
+	private static final double kRateFilter = 0.25;
+
+	private final IMotorController[] _talons;
+	private Notifier _notifier = null;
+
+	/* current period, 0 when parked */
+	private int _periodMs = 0;
+	private int _leadMs;
+	private int _cleanProfiles = 0;
+
+	/* active profile */
+	private int _pointDurationMs = 10;
+	private int _totalPoints = 0;
+	private boolean _underrun = false;
+	/* points per ms, 0 until the MP is running */
+	private double _drainRate = 0;
+
+	/* Counters for tuning */
+	private int _underrunProfiles = 0;
+	private int _periodChanges = 0;
+
+	/**
+	 * @param initialLeadMs	lead time to start with, kMinPointsInTalon x point duration
+	 * @param talons		every Talon streamed together, they are pumped together
+	 */
+	public MotionProfilePump(int initialLeadMs, IMotorController... talons) {
+		_talons = talons;
+		_leadMs = Math.max(kMinLeadMs, Math.min(kMaxLeadMs, initialLeadMs));
+	}
+
+	/** Notifier callback */
+	private void pump() {
+		for (IMotorController talon : _talons)
+			talon.processMotionProfileBuffer();
+	}
+
+	/**
+	 * A profile started streaming, unpark and pump fast until it is running.
+	 *
+	 * @param totalPoints		points in the profile
+	 * @param pointDurationMs	duration of the first point
+	 */
+	public void onFill(int totalPoints, int pointDurationMs) {
+		_totalPoints = totalPoints;
+		_pointDurationMs = Math.max(1, pointDurationMs);
+		_underrun = false;
+		_drainRate = 0;
+		setPeriod(clampPeriod(_pointDurationMs / kHeadroom));
+	}
+
+	/**
+	 * Call every loop while the profile is streaming or running.
+	 *
+	 * @param status			status of the Talon with the fewest points in its bottom buffer
+	 * @param allTransferred	true once every point of the profile has been pushed and
+	 * 							no Talon has any left in its top buffer
+	 */
+	public void update(MotionProfileStatus status, boolean allTransferred) {
+		if (status.isUnderrun)
+			_underrun = true;
+
+		/* the Talon uses one point per active point duration */
+		if (status.activePointValid && status.outputEnable == SetValueMotionProfile.Enable && status.timeDurMs > 0) {
+			double rate = 1.0 / status.timeDurMs;
+			_drainRate = (_drainRate == 0) ? rate : _drainRate + (rate - _drainRate) * kRateFilter;
+		}
+
+		if (allTransferred) {
+			/* every point is in every Talon, nothing left to transfer */
+			setPeriod(0);
+		} else if (status.isUnderrun || (_drainRate > 0 && status.btmBufferCnt < getStartThreshold())) {
+			/* running low, catch up */
+			setPeriod(kMinPeriodMs);
+		} else if (_drainRate > 0) {
+			setPeriod(clampPeriod(1.0 / (_drainRate * kHeadroom)));
+		} else {
+			/* not running yet, fill at the profile's own rate */
+			setPeriod(clampPeriod(_pointDurationMs / kHeadroom));
+		}
+	}
+
+	/**
+	 * The profile finished, adapt the lead time and park.
+	 *
+	 * @param hasUnderrun	the Talon's sticky underrun flag
+	 */
+	public void onFinished(boolean hasUnderrun) {
+		if (_underrun || hasUnderrun) {
+			++_underrunProfiles;
+			_cleanProfiles = 0;
+			_leadMs = Math.min(kMaxLeadMs, _leadMs * 2);
+		} else if (++_cleanProfiles >= kCleanProfilesToShrink) {
+			_cleanProfiles = 0;
+			_leadMs = Math.max(kMinLeadMs, _leadMs * 3 / 4);
+		}
+		park();
+	}
+
+	/** Stop pumping, e.g. when leaving MP mode */
+	public void park() {
+		setPeriod(0);
+	}
+
+	/** @return the MP is enabled once the bottom buffer holds more than this many points */
+	public int getStartThreshold() {
+		int points = (_leadMs + _pointDurationMs - 1) / _pointDurationMs;
+		/* a short profile has to be able to start at all, even a single point one */
+		points = Math.min(points, Math.min(_totalPoints - 1, kBottomBufferSize / 2));
+		return Math.max(0, points);
+	}
+
+	// -------------- Properties --------------//
+	public boolean isParked() {
+		return _periodMs == 0;
+	}
+
+	public int getPeriodMs() {
+		return _periodMs;
+	}
+
+	public int getLeadMs() {
+		return _leadMs;
+	}
+
+	/** @return measured drain rate in points per second, 0 until the MP is running */
+	public double getDrainRate() {
+		return _drainRate * 1000.0;
+	}
+
+	public int getUnderrunProfiles() {
+		return _underrunProfiles;
+	}
+
+	public int getPeriodChanges() {
+		return _periodChanges;
+	}
+
+	private static int clampPeriod(double periodMs) {
+		return (int) Math.max(kMinPeriodMs, Math.min(kMaxPeriodMs, Math.floor(periodMs)));
+	}
+
+	private void setPeriod(int periodMs) {
+		if (periodMs == _periodMs)
+			return;
+		_periodMs = periodMs;
+		++_periodChanges;
+		applyPeriod(periodMs);
+	}
+
+	/**
+	 * Start, re-time or stop the Notifier.  Separate so a simulation can drive the
+	 * pump on its own clock.
+	 *
+	 * @param periodMs	new period, 0 to park
+	 */
+	protected void applyPeriod(int periodMs) {
+		if (periodMs == 0) {
+			if (_notifier != null)
+				_notifier.stop();
+			return;
+		}
+		if (_notifier == null)
+			_notifier = new Notifier(this::pump);
+		/* the frame that carries the points doesn't need to go out any faster */
+		for (IMotorController talon : _talons)
+			talon.changeMotionControlFramePeriod(periodMs);
+		_notifier.startPeriodic(periodMs / 1000.0);
+	}
+}
@@ -77,11 +77,14 @@ import com.ctre.phoenix.motorcontrol.FeedbackDevice;
 import com.ctre.phoenix.motorcontrol.FollowerType;
 
 public class Robot extends TimedRobot {
+	/* Count and time every Phoenix call, see CallAccounting. false for the plain device classes */
+	static final boolean kAccountCalls = false;
+
 	/** Hardware */
-	TalonSRX _leftMaster = new TalonSRX(2);
-	TalonSRX _rightMaster = new TalonSRX(1);
-	VictorSPX _tempMaster = new VictorSPX(2);
-	PigeonIMU _pidgey = new PigeonIMU(3);
+	TalonSRX _leftMaster = kAccountCalls ? new CallAccounting.Talon(2) : new TalonSRX(2);
+	TalonSRX _rightMaster = kAccountCalls ? new CallAccounting.Talon(1) : new TalonSRX(1);
+	VictorSPX _tempMaster = kAccountCalls ? new CallAccounting.Victor(2) : new VictorSPX(2);
+	PigeonIMU _pidgey = kAccountCalls ? new CallAccounting.Pigeon(3) : new PigeonIMU(3);
 
 	Joystick _gamepad = new Joystick(0);
 	
@@ -106,7 +109,23 @@ public class Robot extends TimedRobot {
 
 	@Override
 	public void robotInit() {
-		/* Not used in this project */
+		/* Create the flight recorder file now, instead of in the first control loop */
+		FlightRecorder.open();
+	}
+
+	@Override
+	public void disabledInit() {
+		/* Save what the flight recorder captured while enabled */
+		FlightRecorder.flush();
+
+		/* Phoenix calls since the robot was last disabled (since boot the first time), then start over */
+		if (kAccountCalls) {
+			System.out.print(CallAccounting.report());
+			CallAccounting.reset();
+		}
+
+		/* Convert the usual profiles now so pressing Button 6 only streams points */
+		_motProfExample.warmCache();
 	}
 	
 	@Override
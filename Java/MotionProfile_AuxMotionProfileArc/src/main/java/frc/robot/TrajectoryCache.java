@@ -0,0 +1,134 @@
+/**
+ * Small LRU cache of profiles already converted into TrajectoryPoints.
+ *
+ * Converting a profile means scaling every point from rotations/RPM to sensor units,
+ * applying the direction and spreading the end heading over the distance.  Only a
+ * few combinations of profile, direction and heading get used in a match, so each
+ * one is converted once and kept.  Firing a cached profile is then just pushing the
+ * points as they are, with no math per point.
+ *
+ * The end heading comes from a joystick, so it is snapped to kHeadingStep before it
+ * is used as a key, otherwise no two button presses would ever match.
+ *
+ * Call warm() while disabled to convert the combinations you expect.  A miss while
+ * enabled still works, it just converts the profile right then (and allocates).
+ * Evicted entries are never reused in place, so the array returned by get() stays
+ * valid while it is being streamed even if it falls out of the cache.
+ */
+package frc.robot;
+
+import com.ctre.phoenix.motion.TrajectoryPoint;
+
+public class TrajectoryCache {
+
+	/** End headings are snapped to this, 5 deg in Pigeon units */
+	public static final double kHeadingStep = Constants.kPigeonUnitsPerRotation / 72.0;
+
+	private static class Entry {
+		ProfileFile profile;
+		boolean forward;
+		long headingStep;
+		TrajectoryPoint[] points;
+		long lastUsed;
+	}
+
+	private final Entry[] _entries;
+	private final ProfileFile.Point _point = new ProfileFile.Point();
+	private long _useCount = 0;
+	private int _hits = 0;
+	private int _misses = 0;
+
+	/** @param capacity most converted profiles to keep */
+	public TrajectoryCache(int capacity) {
+		_entries = new Entry[Math.max(1, capacity)];
+		for (int i = 0; i < _entries.length; ++i)
+			_entries[i] = new Entry();
+	}
+
+	/** @return endHeading snapped to the heading the cache converts with */
+	public static double snapHeading(double endHeading) {
+		return Math.round(endHeading / kHeadingStep) * kHeadingStep;
+	}
+
+	/**
+	 * Get a converted profile, converting it now if it is not cached.
+	 *
+	 * @param profile		profile to fire, keyed by instance
+	 * @param forward		direction to drive
+	 * @param endHeading	heading at the end of the profile, Pigeon units (snapped)
+	 * @return one point per profile point, ready to push in order
+	 */
+	public TrajectoryPoint[] get(ProfileFile profile, boolean forward, double endHeading) {
+		long step = Math.round(endHeading / kHeadingStep);
+		Entry oldest = _entries[0];
+		for (Entry e : _entries) {
+			if (e.points != null && e.profile == profile && e.forward == forward && e.headingStep == step) {
+				e.lastUsed = ++_useCount;
+				++_hits;
+				return e.points;
+			}
+			/* empty entries have lastUsed 0, so they get filled first */
+			if (e.lastUsed < oldest.lastUsed)
+				oldest = e;
+		}
+
+		++_misses;
+		oldest.profile = profile;
+		oldest.forward = forward;
+		oldest.headingStep = step;
+		oldest.points = convert(profile, forward, step * kHeadingStep);
+		oldest.lastUsed = ++_useCount;
+		return oldest.points;
+	}
+
+	/**
+	 * Convert every combination of direction and heading up front.
+	 * Call from disabledInit(), misses allocate.
+	 */
+	public void warm(ProfileFile profile, double[] endHeadings) {
+		for (double heading : endHeadings) {
+			get(profile, true, heading);
+			get(profile, false, heading);
+		}
+	}
+
+	public int getHits() {
+		return _hits;
+	}
+
+	public int getMisses() {
+		return _misses;
+	}
+
+	public int getCapacity() {
+		return _entries.length;
+	}
+
+	/** Everything feed() used to do per point */
+	private TrajectoryPoint[] convert(ProfileFile profile, boolean forward, double endHeading) {
+		int total = profile.size();
+		TrajectoryPoint[] points = new TrajectoryPoint[total];
+		double direction = forward ? +1 : -1;
+		double finalPositionRot = profile.getFinalPosition();
+
+		for (int i = 0; i < total; ++i) {
+			ProfileFile.Point next = profile.get(i, _point);
+			double positionRot = next.position;
+			double velocityRPM = next.velocity;
+			double heading = endHeading * positionRot / finalPositionRot; /* scale heading progress to position progress */
+
+			TrajectoryPoint point = new TrajectoryPoint();
+			point.position = direction * positionRot * Constants.kSensorUnitsPerRotation * 2; 		//Convert Revolutions to Units
+			point.velocity = direction * velocityRPM * Constants.kSensorUnitsPerRotation / 600.0; 	//Convert RPM to Units/100ms
+			point.auxiliaryPos = heading; /* scaled such that 3600 => 360 deg */
+			point.profileSlotSelect0 = Constants.kSlot_MotProf; /* which set of gains would you like to use [0,3]? */
+			point.profileSlotSelect1 = Constants.kSlot_Turning; /* auxiliary PID [0,1], leave zero */
+			point.timeDur = next.durationMs;
+			point.zeroPos = (i == 0); /* set this to true on the first point */
+			point.useAuxPID = true;
+			point.isLastPoint = ((i + 1) == total); /* set this to true on the last point  */
+			points[i] = point;
+		}
+		return points;
+	}
+}
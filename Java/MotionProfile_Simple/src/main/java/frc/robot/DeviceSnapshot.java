@@ -0,0 +1,158 @@
+/**
+ * One read of a motor controller's signals per control cycle, shared by everyone.
+ *
+ * The state machine, Instrum and PlotThread used to each ask the Talon for the
+ * same signals, each one a JNI call, and each one possibly from a different CAN
+ * frame than the others saw.  Now robotPeriodic() calls update() once, and every
+ * consumer reads the same Record.
+ *
+ * Records are triple buffered: update() fills a spare one and then publishes it,
+ * so a Record from get() is never written while it is the latest.  It is reused
+ * two cycles later, so copy out what is needed instead of holding on to it.
+ *
+ * Every get() says how many signals the caller uses, which is how many JNI calls
+ * it would have made without the snapshot.  getCallsSaved() is the total.
+ */
+package frc.robot;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ctre.phoenix.motion.MotionProfileStatus;
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.IMotorController;
+
+public class DeviceSnapshot {
+
+	/** Signals of one cycle */
+	public static class Record {
+		private long _cycle;
+		private ControlMode _controlMode;
+		private final MotionProfileStatus _status = new MotionProfileStatus();
+		private final double[] _sensorPosition;
+		private final double[] _sensorVelocity;
+		private final double[] _trajectoryPosition;
+		private final double[] _trajectoryVelocity;
+		private final double[] _trajectoryArbFeedFwd;
+
+		private Record(int pidCount) {
+			_sensorPosition = new double[pidCount];
+			_sensorVelocity = new double[pidCount];
+			_trajectoryPosition = new double[pidCount];
+			_trajectoryVelocity = new double[pidCount];
+			_trajectoryArbFeedFwd = new double[pidCount];
+		}
+
+		/** @return update() count when this was read, increases by one every cycle */
+		public long getCycle() {
+			return _cycle;
+		}
+
+		public ControlMode getControlMode() {
+			return _controlMode;
+		}
+
+		/** @return MP status, don't modify it */
+		public MotionProfileStatus getStatus() {
+			return _status;
+		}
+
+		public double getSensorPosition(int pid) {
+			return _sensorPosition[pid];
+		}
+
+		public double getSensorVelocity(int pid) {
+			return _sensorVelocity[pid];
+		}
+
+		public double getTrajectoryPosition(int pid) {
+			return _trajectoryPosition[pid];
+		}
+
+		public double getTrajectoryVelocity(int pid) {
+			return _trajectoryVelocity[pid];
+		}
+
+		public double getTrajectoryArbFeedFwd(int pid) {
+			return _trajectoryArbFeedFwd[pid];
+		}
+	}
+
+	private final IMotorController _device;
+	private final int _pidCount;
+	private final Record[] _records = new Record[3];
+	private int _next = 0;
+	private volatile Record _latest;
+
+	/* JNI calls made by update(), and the ones get() callers didn't have to make */
+	private final int _callsPerUpdate;
+	private long _callsMade = 0;
+	private final AtomicLong _callsSaved = new AtomicLong();
+
+	/**
+	 * @param device	motor controller to read
+	 * @param pidCount	1 for the primary PID only, 2 to include the auxiliary PID
+	 */
+	public DeviceSnapshot(IMotorController device, int pidCount) {
+		_device = device;
+		_pidCount = pidCount;
+		for (int i = 0; i < _records.length; ++i)
+			_records[i] = new Record(pidCount);
+		_latest = _records[0];
+		_callsPerUpdate = 2 + 5 * pidCount;
+	}
+
+	/** Read every signal once, call at the start of each control cycle and from one thread only */
+	public void update() {
+		Record record = _records[_next];
+		_next = (_next + 1) % _records.length;
+
+		record._cycle = _latest._cycle + 1;
+		record._controlMode = _device.getControlMode();
+		_device.getMotionProfileStatus(record._status);
+		for (int pid = 0; pid < _pidCount; ++pid) {
+			record._sensorPosition[pid] = _device.getSelectedSensorPosition(pid);
+			record._sensorVelocity[pid] = _device.getSelectedSensorVelocity(pid);
+			record._trajectoryPosition[pid] = _device.getActiveTrajectoryPosition(pid);
+			record._trajectoryVelocity[pid] = _device.getActiveTrajectoryVelocity(pid);
+			record._trajectoryArbFeedFwd[pid] = _device.getActiveTrajectoryArbFeedFwd(pid);
+		}
+		_callsMade += _callsPerUpdate;
+
+		_latest = record;
+	}
+
+	/**
+	 * @param signals	signals the caller reads from the record, the JNI calls it saves
+	 * @return the latest cycle's signals, any thread
+	 */
+	public Record get(int signals) {
+		_callsSaved.addAndGet(signals);
+		return _latest;
+	}
+
+	/** Count more signals read from a record already gotten */
+	public void addSaved(int signals) {
+		_callsSaved.addAndGet(signals);
+	}
+
+	/** @return JNI calls made by update() */
+	public long getCallsMade() {
+		return _callsMade;
+	}
+
+	/** @return JNI calls the consumers would have made on their own */
+	public long getCallsSaved() {
+		return _callsSaved.get();
+	}
+
+	/** @return JNI calls removed, the ones saved less the ones update() made instead */
+	public long getCallsRemoved() {
+		return getCallsSaved() - _callsMade;
+	}
+
+	public String toString() {
+		long cycles = Math.max(1, _latest._cycle);
+		return String.format("DeviceSnapshot: %d cycles, JNI calls %d made, %d saved, %.1f removed per cycle",
+				_latest._cycle, _callsMade, getCallsSaved(), getCallsRemoved() / (double) cycles);
+	}
+}
@@ -0,0 +1,153 @@
+/**
+ * Binary flight recorder for the motion profile state.
+ *
+ * Every control loop appends one fixed-width record to a memory-mapped file in
+ * /home/lvuser, so nothing is formatted or printed in the loop and no samples are
+ * thrown away.  The file is a ring, once kCapacity records are written the oldest
+ * are overwritten.  Pull the file off the robot after a match and convert it with
+ * FlightRecorderDecoder.
+ *
+ * Each boot starts a new mp_<n>.mpr, about 3MB, n one more than the highest already on
+ * the robot.  The roboRIO's clock is wrong until the Driver Station sets it, so it can't
+ * be used to tell which recording is newest.  open() deletes all but the newest
+ * kKeepFiles of them so the roboRIO doesn't fill up over a season.
+ *
+ * File layout (big endian)...
+ *
+ * int		magic		'MPR1'
+ * int		recordSize	bytes per record
+ * long		count		records written so far (may be larger than kCapacity)
+ * kCapacity x {
+ * 	double	timestamp		FPGA time in seconds
+ * 	int		topBufferRem
+ * 	int		topBufferCnt
+ * 	int		btmBufferCnt
+ * 	int		flags			see kFlag*, bits 8-15 hold outputEnable
+ * 	double	pos				active trajectory position
+ * 	double	vel				active trajectory velocity
+ * 	double	heading			active trajectory heading
+ * }
+ */
+package frc.robot;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import com.ctre.phoenix.motion.MotionProfileStatus;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.Timer;
+
+public class FlightRecorder {
+
+	public static final int kMagic = 0x4D505231;
+	public static final int kHeaderSize = 16;
+	public static final int kRecordSize = 48;
+	/** Records kept in the ring, about 20 minutes of 50Hz loops */
+	public static final int kCapacity = 1 << 16;
+	/** Recordings kept on the robot, counting the one about to be created */
+	public static final int kKeepFiles = 5;
+
+	public static final int kFlagHasUnderrun = 0x01;
+	public static final int kFlagIsUnderrun = 0x02;
+	public static final int kFlagIsLast = 0x04;
+	public static final int kFlagActivePointValid = 0x08;
+
+	private static MappedByteBuffer _buffer = null;
+	private static long _count = 0;
+	/** set if the file could not be created, so we only complain once */
+	private static boolean _failed = false;
+
+	/**
+	 * Create the recording file.  Called on the first record() if not called
+	 * earlier, call it from robotInit to keep the file creation out of the loop.
+	 */
+	public static void open() {
+		if (_buffer != null || _failed)
+			return;
+
+		File dir = Filesystem.getOperatingDirectory();
+		File file = new File(dir, "mp_" + nextIndex(dir) + ".mpr");
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			_buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, kHeaderSize + (long) kCapacity * kRecordSize);
+			_buffer.putInt(0, kMagic);
+			_buffer.putInt(4, kRecordSize);
+			_buffer.putLong(8, 0);
+			_count = 0;
+			System.out.println("Flight recorder writing to " + file);
+		} catch (IOException e) {
+			_failed = true;
+			System.out.println("Flight recorder disabled, could not create " + file + ": " + e.getMessage());
+		}
+	}
+
+	/*
+	 * Index for this boot's recording, one more than the highest on the robot.  Keeps
+	 * the newest kKeepFiles - 1 recordings, making room for the new one.
+	 */
+	private static long nextIndex(File dir) {
+		File[] files = dir.listFiles((d, name) -> name.matches("mp_\\d{1,18}\\.mpr"));
+		if (files == null || files.length == 0)
+			return 0;
+		/* oldest first, by the index in the name */
+		Arrays.sort(files, (a, b) -> Long.compare(indexOf(a), indexOf(b)));
+		for (int i = 0; i <= files.length - kKeepFiles; ++i) {
+			if (!files[i].delete())
+				System.out.println("Flight recorder could not delete " + files[i]);
+		}
+		return indexOf(files[files.length - 1]) + 1;
+	}
+
+	private static long indexOf(File file) {
+		String name = file.getName();
+		return Long.parseLong(name.substring(3, name.length() - 4));
+	}
+
+	/** Append one sample */
+	public static void record(MotionProfileStatus status, double pos, double vel, double heading) {
+		if (_buffer == null) {
+			open();
+			if (_buffer == null)
+				return;
+		}
+
+		int flags = 0;
+		if (status.hasUnderrun)
+			flags |= kFlagHasUnderrun;
+		if (status.isUnderrun)
+			flags |= kFlagIsUnderrun;
+		if (status.isLast)
+			flags |= kFlagIsLast;
+		if (status.activePointValid)
+			flags |= kFlagActivePointValid;
+		if (status.outputEnable != null)
+			flags |= (status.outputEnable.value & 0xFF) << 8;
+
+		int offset = kHeaderSize + (int) (_count % kCapacity) * kRecordSize;
+		_buffer.putDouble(offset, Timer.getFPGATimestamp());
+		_buffer.putInt(offset + 8, status.topBufferRem);
+		_buffer.putInt(offset + 12, status.topBufferCnt);
+		_buffer.putInt(offset + 16, status.btmBufferCnt);
+		_buffer.putInt(offset + 20, flags);
+		_buffer.putDouble(offset + 24, pos);
+		_buffer.putDouble(offset + 32, vel);
+		_buffer.putDouble(offset + 40, heading);
+
+		/* bump the count last so a partially written record is never counted */
+		_buffer.putLong(8, ++_count);
+	}
+
+	/**
+	 * Push everything recorded so far to storage.  This is slow, call it when the
+	 * robot is disabled, not in the control loop.
+	 */
+	public static void flush() {
+		if (_buffer != null)
+			_buffer.force();
+	}
+}
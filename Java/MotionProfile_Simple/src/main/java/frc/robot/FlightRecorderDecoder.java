@@ -0,0 +1,62 @@
+/**
+ * Converts a FlightRecorder file into .csv for post-match analysis.
+ * Run this on the desktop, not on the robot....
+ *
+ * java -cp build/classes/java/main frc.robot.FlightRecorderDecoder mp_1234.mpr mp_1234.csv
+ *
+ * Records come out oldest first.  The underrun columns make it easy to find where
+ * the bottom buffer ran dry and what the top buffer looked like leading up to it.
+ */
+package frc.robot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+public class FlightRecorderDecoder {
+
+	public static void main(String... args) throws IOException {
+		if (args.length != 2) {
+			System.out.println("usage: FlightRecorderDecoder <input.mpr> <output.csv>");
+			return;
+		}
+
+		try (FileChannel channel = FileChannel.open(new File(args[0]).toPath(), StandardOpenOption.READ);
+				PrintWriter out = new PrintWriter(args[1])) {
+			MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (in.capacity() < FlightRecorder.kHeaderSize || in.getInt(0) != FlightRecorder.kMagic) {
+				System.out.println(args[0] + " is not a flight recorder file");
+				return;
+			}
+			int recordSize = in.getInt(4);
+			long count = in.getLong(8);
+			int capacity = (int) ((in.capacity() - FlightRecorder.kHeaderSize) / recordSize);
+
+			/* the ring only holds the last 'capacity' records */
+			long first = Math.max(0, count - capacity);
+
+			out.println("index,timestamp,topBufferRem,topBufferCnt,btmBufferCnt,hasUnderrun,isUnderrun,isLast,activePointValid,outputEnable,pos,vel,heading");
+			for (long i = first; i < count; ++i) {
+				int offset = FlightRecorder.kHeaderSize + (int) (i % capacity) * recordSize;
+				int flags = in.getInt(offset + 20);
+
+				out.println(i + "," + in.getDouble(offset) + ","
+						+ in.getInt(offset + 8) + "," + in.getInt(offset + 12) + "," + in.getInt(offset + 16) + ","
+						+ bit(flags, FlightRecorder.kFlagHasUnderrun) + ","
+						+ bit(flags, FlightRecorder.kFlagIsUnderrun) + ","
+						+ bit(flags, FlightRecorder.kFlagIsLast) + ","
+						+ bit(flags, FlightRecorder.kFlagActivePointValid) + ","
+						+ ((flags >> 8) & 0xFF) + ","
+						+ in.getDouble(offset + 24) + "," + in.getDouble(offset + 32) + "," + in.getDouble(offset + 40));
+			}
+			System.out.println("Wrote " + (count - first) + " records to " + args[1]);
+		}
+	}
+
+	private static int bit(int flags, int mask) {
+		return (flags & mask) != 0 ? 1 : 0;
+	}
+}
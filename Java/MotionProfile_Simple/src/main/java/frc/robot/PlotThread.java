@@ -1,50 +1,161 @@
 package frc.robot;
 
 import com.ctre.phoenix.motorcontrol.ControlMode;
-import com.ctre.phoenix.motorcontrol.can.TalonSRX;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 /**
- * Quick and dirty threaded plotter class
+ * Threaded plotter class.
+ *
+ * The sampler thread copies the Talon signals from the loop's DeviceSnapshot into a
+ * preallocated TelemetryBuffer, once per loop and only while the Talon is in
+ * MotionProfile.  A lower priority publisher thread drains the buffer in batches
+ * and hands the newest sample to a TelemetryPublisher, along with how long each
+ * sample took to read.  The publisher only sends values that changed, so a robot
+ * sitting still costs almost no NetworkTables bandwidth.
  */
 class PlotThread implements Runnable {
 
-	private TalonSRX _talon;
+	/** How often to sample while the MP is running */
+	static final int kSamplePeriodMs = 1;
+	/** How often to check the control mode while the MP is not running */
+	static final int kIdlePeriodMs = 100;
+	/** How often the publisher drains the buffer */
+	static final int kPublishPeriodMs = 50;
+	/** Samples the buffer can hold, several publish periods worth */
+	static final int kCapacity = 256;
+
+	/* channels of each sample */
+	static final int kSenPos = 0;
+	static final int kSenVel = 1;
+	static final int kTrgtPos = 2;
+	static final int kTrgtVel = 3;
+	static final int kTrgtArbF = 4;
+	static final int kSampleCostUs = 5;
+	static final int kNumChannels = 6;
+
+	/** SmartDashboard keys, one per channel before kSampleCostUs */
+	private static final String[] kKeys = { "sen_pos", "sen_vel", "trgt_pos", "trgt_vel", "trgt_arbF" };
+	/** Smallest change worth sending, per key, in sensor units (fraction of output for arbF) */
+	private static final double[] kDeadbands = { 2, 1, 2, 1, 0.001 };
+	/** Most updates per second of any one key */
+	private static final double kMaxRateHz = 20;
+
+	private DeviceSnapshot _snapshot;
+	/* cycle of the last sample taken */
+	private long _lastCycle = -1;
 	private Thread _thread;
+	private Thread _publisher;
+	private volatile boolean _running = true;
+
+	private TelemetryBuffer _buffer = new TelemetryBuffer(kNumChannels, kCapacity);
 
-	public PlotThread(TalonSRX talon)
+	/* only used by the publisher thread */
+	private TelemetryPublisher _telemetry = new TelemetryPublisher(kKeys.length + 5);
+	private int[] _handles = new int[kKeys.length];
+	private int _usAvg, _usMax, _dropped, _bytesPerSec, _updatesPerSec;
+
+	public PlotThread(DeviceSnapshot snapshot)
 	{
-		_talon = talon;
+		_snapshot = snapshot;
 
-		_thread= new Thread(this);
+		_thread = new Thread(this, "PlotThread");
+		_thread.setDaemon(true);
 		_thread.start();
+
+		_publisher = new Thread(new Runnable() {
+			public void run() {
+				publish();
+			}
+		}, "PlotPublisher");
+		_publisher.setDaemon(true);
+		_publisher.setPriority(Thread.MIN_PRIORITY);
+		_publisher.start();
 	}
-	
+
+	/** Stop both threads, they exit on their next wakeup */
+	public void stop() {
+		_running = false;
+	}
+
 	public void run() {
-		/**
-		 * Speed up network tables, this is a test project so eat up all of the network
-		 * possible for the purpose of this test.
-		 */
+		while (_running) {
+			/* only sample while the MP is running, otherwise just check back later */
+			DeviceSnapshot.Record record = _snapshot.get(1);
+			boolean active = (record.getControlMode() == ControlMode.MotionProfile);
+			if (active)
+				_snapshot.addSaved(5); /* the five signals below, we used to read them every sample */
+
+			if (active && record.getCycle() != _lastCycle && _buffer.claim()) {
+				long start = System.nanoTime();
+				_lastCycle = record.getCycle();
+
+				/* Grab the signals of the latest loop */
+				_buffer.put(kSenPos, record.getSensorPosition(0));
+				_buffer.put(kSenVel, record.getSensorVelocity(0));
+				_buffer.put(kTrgtPos, record.getTrajectoryPosition(0));
+				_buffer.put(kTrgtVel, record.getTrajectoryVelocity(0));
+				_buffer.put(kTrgtArbF, record.getTrajectoryArbFeedFwd(0));
+
+				_buffer.put(kSampleCostUs, (System.nanoTime() - start) / 1000.0);
+				_buffer.commit();
+			}
 
-		while (true) {
 			/* Yield for a Ms or so - this is not meant to be accurate */
 			try {
-				Thread.sleep(1);
+				Thread.sleep(active ? kSamplePeriodMs : kIdlePeriodMs);
+			} catch (Exception e) {
+				/* Do Nothing */
+			}
+		}
+	}
+
+	/** Publisher loop, drains whatever the sampler has collected every kPublishPeriodMs */
+	private void publish() {
+		for (int ch = 0; ch < kKeys.length; ++ch)
+			_handles[ch] = _telemetry.add(kKeys[ch], kDeadbands[ch], kMaxRateHz);
+		_usAvg = _telemetry.add("plot_sample_us_avg", 0.5, 2);
+		_usMax = _telemetry.add("plot_sample_us_max", 0.5, 2);
+		_dropped = _telemetry.add("plot_dropped", 0, 1);
+		_bytesPerSec = _telemetry.add("telemetry_bytes_per_sec", 10, 1);
+		_updatesPerSec = _telemetry.add("telemetry_updates_per_sec", 1, 1);
+
+		while (_running) {
+			try {
+				Thread.sleep(kPublishPeriodMs);
 			} catch (Exception e) {
 				/* Do Nothing */
 			}
 
-			/* Grab the latest signal update from our 1ms frame update */
-			double sen_pos = _talon.getSelectedSensorPosition(0);
-			double sen_vel = _talon.getSelectedSensorVelocity(0);
-			double trgt_pos = _talon.getActiveTrajectoryPosition(0);
-			double trgt_vel = _talon.getActiveTrajectoryVelocity(0);
-			double trgt_arbF = _talon.getActiveTrajectoryArbFeedFwd(0);
-			SmartDashboard.putNumber("sen_pos", sen_pos);
-			SmartDashboard.putNumber("sen_vel", sen_vel);
-			SmartDashboard.putNumber("trgt_pos", trgt_pos);
-			SmartDashboard.putNumber("trgt_vel", trgt_vel);
-			SmartDashboard.putNumber("trgt_arbF", trgt_arbF);
+			int count = _buffer.available();
+			if (count > 0)
+				collect(count);
+
+			/* send what changed, values that didn't are held back */
+			_telemetry.set(_bytesPerSec, _telemetry.getBytesPerSec());
+			_telemetry.set(_updatesPerSec, _telemetry.getUpdatesPerSec());
+			_telemetry.flush(System.nanoTime() / 1000000);
+		}
+	}
+
+	/** Take the newest of count samples, and the cost of them all */
+	private void collect(int count) {
+		/* cost of every sample in the batch */
+		double sumUs = 0, maxUs = 0;
+		for (int i = 0; i < count; ++i) {
+			double us = _buffer.get(kSampleCostUs, i);
+			sumUs += us;
+			if (us > maxUs)
+				maxUs = us;
 		}
+
+		/* dashboard only shows the latest value, so send the newest sample */
+		int newest = count - 1;
+		for (int ch = 0; ch < kKeys.length; ++ch) {
+			_telemetry.set(_handles[ch], _buffer.get(ch, newest));
+		}
+		_telemetry.set(_usAvg, sumUs / count);
+		_telemetry.set(_usMax, maxUs);
+		_telemetry.set(_dropped, _buffer.getDropped());
+
+		_buffer.release(count);
 	}
-}
\ No newline at end of file
+}
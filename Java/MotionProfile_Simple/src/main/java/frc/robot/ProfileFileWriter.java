@@ -0,0 +1,67 @@
+/**
+ * Converts the .csv exported from the Motion Profile Generator into a ProfileFile.
+ * Run this on the desktop, not on the robot....
+ *
+ * java -cp build/classes/java/main frc.robot.ProfileFileWriter profile.csv src/main/deploy/MotionProfile.mp
+ *
+ * Each line needs position (rotations), velocity (RPM) and duration (ms).  Commas, tabs
+ * and braces are all treated as separators so rows pasted from an old Points[][] table
+ * can be converted as well.  Lines that don't start with a number are skipped.
+ */
+package frc.robot;
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.BufferedOutputStream;
+import java.util.ArrayList;
+
+public class ProfileFileWriter {
+
+	public static void main(String... args) throws IOException {
+		if (args.length != 2) {
+			System.out.println("usage: ProfileFileWriter <input.csv> <output.mp>");
+			return;
+		}
+		ArrayList<double[]> points = read(args[0]);
+		write(args[1], points);
+		System.out.println("Wrote " + points.size() + " points to " + args[1]);
+	}
+
+	/** Parse every row with three numbers into {position, velocity, duration} */
+	static ArrayList<double[]> read(String fileName) throws IOException {
+		ArrayList<double[]> points = new ArrayList<double[]>();
+		try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] cols = line.trim().split("[,;{}\\s]+");
+				int start = (cols.length > 0 && cols[0].isEmpty()) ? 1 : 0;
+				if (cols.length - start < 3)
+					continue;
+				try {
+					points.add(new double[] {	Double.parseDouble(cols[start]),
+												Double.parseDouble(cols[start + 1]),
+												Double.parseDouble(cols[start + 2]) });
+				} catch (NumberFormatException e) {
+					/* header or comment line */
+				}
+			}
+		}
+		return points;
+	}
+
+	/** Write points out in the ProfileFile layout */
+	static void write(String fileName, ArrayList<double[]> points) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)))) {
+			out.writeInt(ProfileFile.kMagic);
+			out.writeInt(points.size());
+			for (double[] point : points) {
+				out.writeDouble(point[0]);
+				out.writeDouble(point[1]);
+				out.writeInt((int) point[2]);
+			}
+		}
+	}
+}
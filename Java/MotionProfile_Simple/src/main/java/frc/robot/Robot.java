@@ -35,13 +35,14 @@
  * This application is a TimedRobot project to demonstrate a minimal implementation not requiring the command 
  * framework, however these code excerpts could be moved into a command-based project.
  * 
- * The project also includes instrumentation.java which simply has debug printfs, and a MotionProfile.java which is generated
+ * The project also includes instrumentation.java which simply has debug printfs, and a profile file in src/main/deploy which is generated
  * in @link https://docs.google.com/spreadsheets/d/1PgT10EeQiR92LNXEOEe3VGn737P7WDP4t0CQxQgC8k0/edit#gid=1813770630&vpid=A1
- * or find Motion Profile Generator.xlsx in the Project folder.
+ * or find Motion Profile Generator.xlsx in the Project folder.  Export the points as .csv and convert with ProfileFileWriter.
  * 
  * Controls:
  * Button 1: When held, streams and fires the MP.  When released, contorl is back to PercentOutput Mode.
  * Button 2: Prints MP status to the console when held.
+ * Button 4: Same as Button 1, but fires the profile in reverse.
  * Left Joystick Y-Axis: Throttle Talon SRX forward and reverse when not running MP.
  * 
  * Gains for Motion Profile may need to be adjusted in Constants.java
@@ -65,18 +66,38 @@ public class Robot extends TimedRobot {
     /** gamepad for control */
     Joystick _joy = new Joystick(0);
 
-    /** new class type in 2019 for holding MP buffer. */
-    BufferedTrajectoryPointStream _bufferedStream = new BufferedTrajectoryPointStream();
+    /** new class type in 2019 for holding MP buffer, one per path, built in the background. */
+    TrajectoryStreamPool _paths = new TrajectoryStreamPool(MotionProfile.kPoints);
+    static final int kPathForward = 0;
+    static final int kPathReverse = 1;
+
+    /** path being fired */
+    int _pathId = kPathForward;
 
     /* talon configs */
     TalonSRXConfiguration _config = new TalonSRXConfiguration(); // factory default settings
     
+    /** every signal of the master, read once per loop and shared */
+    DeviceSnapshot _snapshot = new DeviceSnapshot(_master, 1);
+
     /* quick and dirty plotter to smartdash */
-    PlotThread _plotThread = new PlotThread(_master);
+    PlotThread _plotThread = new PlotThread(_snapshot);
+
+    /** where each loop's time goes, published to smartdash once a second */
+    LoopProfiler _profiler = new LoopProfiler(getPeriod());
+    int _phaseRead = _profiler.phase("read sensors");
+    int _phaseGamepad = _profiler.phase("read gamepad");
+    int _phaseStateMachine = _profiler.phase("update MP state machine");
+    int _phasePrint = _profiler.phase("print");
 
     public void robotInit() {
-        /* fill our buffer object with the excel points */
-        initBuffer(MotionProfile.Points, MotionProfile.kNumPoints);
+        /* create the flight recorder file now, instead of in the first loop */
+        FlightRecorder.open();
+        /* fill our buffer objects with the excel points, or an S-curve (see MotionProfile.kGenerate).
+            This happens on the pool's thread, the paths are ready long before the match starts */
+        ProfileFile profile = MotionProfile.load();
+        _paths.define(kPathForward, (trajectory, stream) -> initBuffer(trajectory, stream, profile, true));
+        _paths.define(kPathReverse, (trajectory, stream) -> initBuffer(trajectory, stream, profile, false));
 
         /* _config the master specific settings */
         _config.primaryPID.selectedFeedbackSensor = FeedbackDevice.QuadEncoder;
@@ -97,14 +118,38 @@ public class Robot extends TimedRobot {
         _master.setInverted(false);
     }
 
+    public void disabledInit() {
+        /* save what the flight recorder captured while enabled */
+        FlightRecorder.flush();
+        /* paths ready to fire, and the memory they hold */
+        Instrum.printLine(_paths.toString());
+        Instrum.printLine(_snapshot.toString());
+        Instrum.printLine(_profiler.toString());
+    }
+
+    /** every periodic method runs in here, time the whole loop */
+    protected void loopFunc() {
+        _profiler.beginLoop();
+        super.loopFunc();
+        _profiler.endLoop();
+    }
+
     public void robotPeriodic() {
+        /* read the Talon once, the plotter and the prints use the same values */
+        _snapshot.update();
+        _profiler.mark(_phaseRead);
+
         /* get joystick button and stick */
         boolean bPrintValues = _joy.getRawButton(2);
         boolean bFireMp = _joy.getRawButton(1);
+        boolean bFireMpReverse = _joy.getRawButton(4);
         double axis = _joy.getRawAxis(1);
+        _profiler.mark(_phaseGamepad);
 
         /* if button is up, just drive the motor in PercentOutput */
-        if (bFireMp == false) {
+        if (bFireMp == false && bFireMpReverse == false) {
+            if (_state != 0)
+                _paths.release();
             _state = 0;
         }
 
@@ -112,16 +157,24 @@ public class Robot extends TimedRobot {
             /* drive master talon normally */
             case 0:
                 _master.set(ControlMode.PercentOutput, axis);
-                if (bFireMp == true) {
+                if (bFireMp == true || bFireMpReverse == true) {
                     /* go to MP logic */
+                    _pathId = bFireMp ? kPathForward : kPathReverse;
                     _state = 1;
                 }
                 break;
 
             /* fire the MP, and stop calling set() since that will cancel the MP */
             case 1:
+                /* the path is already in a buffer, just pick it */
+                BufferedTrajectoryPointStream stream = _paths.select(_pathId);
+                if (stream == null) {
+                    Instrum.printLine("MP path " + _pathId + " is not built yet");
+                    _state = 3;
+                    break;
+                }
                 /* wait for 10 points to buffer in firmware, then transition to MP */
-                _master.startMotionProfile(_bufferedStream, 10, ControlMode.MotionProfile);
+                _master.startMotionProfile(stream, 10, ControlMode.MotionProfile);
                 _state = 2;
                 Instrum.printLine("MP started");
                 break;
@@ -130,6 +183,7 @@ public class Robot extends TimedRobot {
             case 2:
                 if (_master.isMotionProfileFinished()) {
                     Instrum.printLine("MP finished");
+                    _paths.release();
                     _state = 3;
                 }
                 break;
@@ -138,51 +192,40 @@ public class Robot extends TimedRobot {
             case 3:
                 break;
         }
+        _profiler.mark(_phaseStateMachine);
 
         /* print MP values */
-        Instrum.loop(bPrintValues, _master);
+        Instrum.loop(bPrintValues, _snapshot);
+        _profiler.mark(_phasePrint);
     }
 
     /**
-     * Fill _bufferedStream with points from csv/generated-table.
+     * Fill a stream with points from the profile file.  Runs on the pool's thread.
      *
-     * @param profile  generated array from excel
-     * @param totalCnt num points in profile
+     * @param trajectory  scratch for the conversion
+     * @param stream  stream to fill, already cleared
+     * @param profile  profile converted from excel, see ProfileFileWriter
+     * @param forward  false to drive in opposite direction of profile
+     * @return points written
      */
-    private void initBuffer(double[][] profile, int totalCnt) {
+    private int initBuffer(TrajectoryBuffer trajectory, BufferedTrajectoryPointStream stream, ProfileFile profile, boolean forward) {
 
-        boolean forward = true; // set to false to drive in opposite direction of profile (not really needed
-                                // since you can use negative numbers in profile).
+        /* whole profile in rotations and RPM, each step below is one pass over one array */
+        trajectory.load(profile);
+        trajectory.scale(Constants.kSensorUnitsPerRotation, Constants.kSensorUnitsPerRotation / 600.0); // Convert Revolutions to Units,
+                                                                                                       // RPM to Units/100ms
+        if (!forward)
+            trajectory.mirror();
 
         TrajectoryPoint point = new TrajectoryPoint(); // temp for for loop, since unused params are initialized
                                                        // automatically, you can alloc just one
-
-        /* clear the buffer, in case it was used elsewhere */
-        _bufferedStream.Clear();
-
-        /* Insert every point into buffer, no limit on size */
-        for (int i = 0; i < totalCnt; ++i) {
-
-            double direction = forward ? +1 : -1;
-            double positionRot = profile[i][0];
-            double velocityRPM = profile[i][1];
-            int durationMilliseconds = (int) profile[i][2];
-
-            /* for each point, fill our structure and pass it to API */
-            point.timeDur = durationMilliseconds;
-            point.position = direction * positionRot * Constants.kSensorUnitsPerRotation; // Convert Revolutions to
-                                                                                          // Units
-            point.velocity = direction * velocityRPM * Constants.kSensorUnitsPerRotation / 600.0; // Convert RPM to
-                                                                                                  // Units/100ms
-            point.auxiliaryPos = 0;
-            point.auxiliaryVel = 0;
-            point.profileSlotSelect0 = Constants.kPrimaryPIDSlot; /* which set of gains would you like to use [0,3]? */
-            point.profileSlotSelect1 = 0; /* auxiliary PID [0,1], leave zero */
-            point.zeroPos = (i == 0); /* set this to true on the first point */
-            point.isLastPoint = ((i + 1) == totalCnt); /* set this to true on the last point */
-            point.arbFeedFwd = 0; /* you can add a constant offset to add to PID[0] output here */
-
-            _bufferedStream.Write(point);
-        }
+        point.auxiliaryPos = 0;
+        point.auxiliaryVel = 0;
+        point.profileSlotSelect0 = Constants.kPrimaryPIDSlot; /* which set of gains would you like to use [0,3]? */
+        point.profileSlotSelect1 = 0; /* auxiliary PID [0,1], leave zero */
+
+        /* Insert every point into buffer, no limit on size, zeroPos on the first point */
+        trajectory.write(stream, point, true);
+        return trajectory.size();
     }
 }
@@ -0,0 +1,172 @@
+/**
+ * Jerk-limited (S-curve) motion profile generator, for building profiles on the
+ * robot instead of exporting them from the Motion Profile Generator spreadsheet.
+ *
+ * Give it a distance, cruise velocity, acceleration and jerk, and it returns a
+ * ProfileFile in the same units as the shipped files (rotations, RPM, ms), so
+ * it drops into any of the fill paths that take a ProfileFile.  The profile is
+ * written into a buffer the generator owns and reuses, so generating allocates
+ * nothing once the buffer is big enough, and a 500 point profile takes a few
+ * tens of microseconds.
+ *
+ * The profile has up to seven phases: jerk up, constant acceleration, jerk down,
+ * cruise, and the same three mirrored to stop.  If the distance is too short to
+ * reach the cruise velocity (or the velocity too low to reach the acceleration)
+ * those phases shrink to fit.
+ */
+package frc.robot;
+
+import java.nio.ByteBuffer;
+
+public class SCurveGenerator {
+
+	private ByteBuffer _buffer;
+
+	/* Shape of the accelerating half, all positive, in rotations and seconds */
+	private double _jerk;
+	private double _jerkTime;	// time spent in each jerk phase
+	private double _accelTime;	// time spent at constant acceleration
+	private double _rampTime;	// jerk up + constant + jerk down
+	private double _cruiseVel;
+	private double _cruiseTime;
+	private double _distance;
+	private double _totalTime;
+
+	/** @param maxPoints points to make room for up front, the buffer grows if a profile needs more */
+	public SCurveGenerator(int maxPoints) {
+		_buffer = ByteBuffer.allocate(ProfileFile.kHeaderSize + maxPoints * ProfileFile.kPointSize);
+	}
+
+	/**
+	 * Generate a profile.  The result shares the generator's buffer, so it is only
+	 * valid until the next call to generate().
+	 *
+	 * @param distanceRot	distance to travel in rotations, negative to go backwards
+	 * @param velocityRPM	cruise velocity
+	 * @param accelRPMPerSec	max acceleration
+	 * @param jerkRPMPerSec2	max jerk, rate of change of acceleration
+	 * @param durationMs		time between points
+	 * @return the profile, or an empty profile if an argument is out of range
+	 */
+	public ProfileFile generate(double distanceRot, double velocityRPM, double accelRPMPerSec, double jerkRPMPerSec2, int durationMs) {
+		if (velocityRPM <= 0 || accelRPMPerSec <= 0 || jerkRPMPerSec2 <= 0 || durationMs <= 0) {
+			System.out.println("SCurveGenerator: velocity, acceleration, jerk and duration must be positive");
+			return ProfileFile.empty();
+		}
+
+		/* work in rotations and seconds */
+		double direction = (distanceRot < 0) ? -1 : +1;
+		_distance = Math.abs(distanceRot);
+		_jerk = jerkRPMPerSec2 / 60.0;
+		double accel = accelRPMPerSec / 60.0;
+		double velocity = velocityRPM / 60.0;
+
+		/* shrink the cruise velocity until both ramps fit in the distance */
+		if (rampDistance(velocity, accel) * 2 > _distance) {
+			double lo = 0, hi = velocity;
+			for (int i = 0; i < 50; ++i) {
+				double mid = (lo + hi) * 0.5;
+				if (rampDistance(mid, accel) * 2 > _distance)
+					hi = mid;
+				else
+					lo = mid;
+			}
+			velocity = lo;
+		}
+		shapeRamp(velocity, accel);
+		_cruiseVel = velocity;
+		_cruiseTime = (velocity > 0) ? (_distance - 2 * rampDistance(velocity, accel)) / velocity : 0;
+		if (_cruiseTime < 0)
+			_cruiseTime = 0;
+		_totalTime = 2 * _rampTime + _cruiseTime;
+
+		/* one point per duration, starting at rest and ending exactly at the distance */
+		double dt = durationMs / 1000.0;
+		int count = (int) Math.ceil(_totalTime / dt - 1e-9) + 1;
+		int needed = ProfileFile.kHeaderSize + count * ProfileFile.kPointSize;
+		if (_buffer.capacity() < needed)
+			_buffer = ByteBuffer.allocate(needed);
+
+		_buffer.putInt(0, ProfileFile.kMagic);
+		_buffer.putInt(4, count);
+		int offset = ProfileFile.kHeaderSize;
+		for (int i = 0; i < count; ++i) {
+			double t = Math.min(i * dt, _totalTime);
+			double pos, vel;
+			if (i == count - 1) {
+				pos = _distance;
+				vel = 0;
+			} else if (t <= _rampTime) {
+				pos = rampPosition(t);
+				vel = rampVelocity(t);
+			} else if (t <= _rampTime + _cruiseTime) {
+				pos = rampPosition(_rampTime) + _cruiseVel * (t - _rampTime);
+				vel = _cruiseVel;
+			} else {
+				/* the stop is the start played backwards */
+				double tr = _totalTime - t;
+				pos = _distance - rampPosition(tr);
+				vel = rampVelocity(tr);
+			}
+			_buffer.putDouble(offset, direction * pos);
+			_buffer.putDouble(offset + 8, (vel == 0) ? 0 : direction * vel * 60.0);
+			_buffer.putInt(offset + 16, durationMs);
+			offset += ProfileFile.kPointSize;
+		}
+		return ProfileFile.wrap(_buffer);
+	}
+
+	/** @return total time of the last generated profile in seconds */
+	public double getTotalTime() {
+		return _totalTime;
+	}
+
+	/** Time in each phase to get from rest to the velocity */
+	private void shapeRamp(double velocity, double accel) {
+		if (velocity * _jerk >= accel * accel) {
+			/* reaches full acceleration */
+			_jerkTime = accel / _jerk;
+			_accelTime = velocity / accel - _jerkTime;
+		} else {
+			/* jerk straight up and back down */
+			_jerkTime = Math.sqrt(velocity / _jerk);
+			_accelTime = 0;
+		}
+		_rampTime = 2 * _jerkTime + _accelTime;
+	}
+
+	/** Distance covered getting from rest to the velocity, the ramp is symmetric so it averages half of it */
+	private double rampDistance(double velocity, double accel) {
+		shapeRamp(velocity, accel);
+		return velocity * _rampTime * 0.5;
+	}
+
+	/* Position and velocity t seconds into the accelerating ramp */
+	private double rampVelocity(double t) {
+		double a = _jerk * _jerkTime;
+		double v1 = 0.5 * _jerk * _jerkTime * _jerkTime;
+		if (t < _jerkTime)
+			return 0.5 * _jerk * t * t;
+		t -= _jerkTime;
+		if (t < _accelTime)
+			return v1 + a * t;
+		double v2 = v1 + a * _accelTime;
+		t -= _accelTime;
+		return v2 + a * t - 0.5 * _jerk * t * t;
+	}
+
+	private double rampPosition(double t) {
+		double a = _jerk * _jerkTime;
+		double v1 = 0.5 * _jerk * _jerkTime * _jerkTime;
+		double p1 = _jerk * _jerkTime * _jerkTime * _jerkTime / 6.0;
+		if (t < _jerkTime)
+			return _jerk * t * t * t / 6.0;
+		t -= _jerkTime;
+		if (t < _accelTime)
+			return p1 + v1 * t + 0.5 * a * t * t;
+		double v2 = v1 + a * _accelTime;
+		double p2 = p1 + v1 * _accelTime + 0.5 * a * _accelTime * _accelTime;
+		t -= _accelTime;
+		return p2 + v2 * t + 0.5 * a * t * t - _jerk * t * t * t / 6.0;
+	}
+}
@@ -0,0 +1,194 @@
+/**
+ * A whole profile in trajectory point units, one primitive array per field.
+ *
+ * initBuffer() used to decode each point and fill a TrajectoryPoint field by field,
+ * scaling, mirroring and working out the turn as it went.  Here the profile is loaded
+ * once, and then each transform is one pass over one array, which the JIT can unroll
+ * and vectorize.  Streaming is a tight indexed loop that copies the arrays into one
+ * reused TrajectoryPoint.
+ *
+ * Typical use...
+ *
+ *	buffer.load(profile);										// rotations, RPM, ms
+ *	buffer.scale(kSensorUnitsPerRot, kSensorUnitsPerRot / 600.0);	// => sensor units, units/100ms
+ *	buffer.rampAuxiliary(finalTurnDeg * kTurnUnitsPerDeg);		// turn spread over the profile
+ *	buffer.write(_bufferedStream, point, false);
+ *
+ * Decoding the profile file costs more than all of the transforms together, so when the
+ * same profile is converted more than once, load it once into its own buffer and copy()
+ * that before each conversion.  The copy is a few System.arraycopy() calls.
+ *
+ * The arrays only grow, so loading a profile no longer than the last one allocates nothing.
+ */
+package frc.robot;
+
+import java.util.Arrays;
+
+import com.ctre.phoenix.motion.BufferedTrajectoryPointStream;
+import com.ctre.phoenix.motion.TrajectoryPoint;
+
+public class TrajectoryBuffer {
+
+	private double[] _position;
+	private double[] _velocity;
+	private double[] _auxiliaryPos;
+	private double[] _arbFeedFwd;
+	private int[] _durationMs;
+	private int _size = 0;
+	private final ProfileFile.Point _point = new ProfileFile.Point();
+
+	/** @param capacity	points to allocate for up front */
+	public TrajectoryBuffer(int capacity) {
+		allocate(Math.max(1, capacity));
+	}
+
+	/**
+	 * Load a profile as it is, in rotations, RPM and ms.  auxiliaryPos and
+	 * arbFeedFwd are cleared.
+	 */
+	public void load(ProfileFile profile) {
+		int count = profile.size();
+		if (count > _position.length)
+			allocate(count);
+
+		ProfileFile.Point point = _point;
+		for (int i = 0; i < count; ++i) {
+			profile.get(i, point);
+			_position[i] = point.position;
+			_velocity[i] = point.velocity;
+			_durationMs[i] = point.durationMs;
+		}
+		Arrays.fill(_auxiliaryPos, 0, count, 0);
+		Arrays.fill(_arbFeedFwd, 0, count, 0);
+		_size = count;
+	}
+
+	/** Make this a copy of source, every field */
+	public void copy(TrajectoryBuffer source) {
+		int count = source._size;
+		if (count > _position.length)
+			allocate(count);
+
+		System.arraycopy(source._position, 0, _position, 0, count);
+		System.arraycopy(source._velocity, 0, _velocity, 0, count);
+		System.arraycopy(source._auxiliaryPos, 0, _auxiliaryPos, 0, count);
+		System.arraycopy(source._arbFeedFwd, 0, _arbFeedFwd, 0, count);
+		System.arraycopy(source._durationMs, 0, _durationMs, 0, count);
+		_size = count;
+	}
+
+	/** Multiply every position and velocity, e.g. to convert to sensor units */
+	public void scale(double positionScale, double velocityScale) {
+		double[] position = _position;
+		double[] velocity = _velocity;
+		int count = _size;
+		for (int i = 0; i < count; ++i)
+			position[i] *= positionScale;
+		for (int i = 0; i < count; ++i)
+			velocity[i] *= velocityScale;
+	}
+
+	/** Drive the profile the other way, position, velocity and arbFeedFwd change sign */
+	public void mirror() {
+		scale(-1, -1);
+		double[] arbFeedFwd = _arbFeedFwd;
+		int count = _size;
+		for (int i = 0; i < count; ++i)
+			arbFeedFwd[i] = -arbFeedFwd[i];
+	}
+
+	/** Add to every position, e.g. to start where the last profile ended */
+	public void offsetPosition(double offset) {
+		double[] position = _position;
+		int count = _size;
+		for (int i = 0; i < count; ++i)
+			position[i] += offset;
+	}
+
+	/** Spread auxiliaryPos linearly from 0 to finalValue, reaching it on the last point */
+	public void rampAuxiliary(double finalValue) {
+		double[] auxiliaryPos = _auxiliaryPos;
+		int count = _size;
+		double step = finalValue / count;
+		/* running sum, step * (i + 1) would convert an int to a double every point */
+		double value = 0;
+		for (int i = 0; i < count; ++i) {
+			value += step;
+			auxiliaryPos[i] = value;
+		}
+		if (count > 0)
+			auxiliaryPos[count - 1] = finalValue;
+	}
+
+	/**
+	 * Set arbFeedFwd = kS * sign(v) + kV * v + kA * a, clamped to [-1, 1].
+	 * v is the velocity as it is now, so call this before scale() to work in RPM.
+	 * a is the central difference of the neighboring velocities, per second.
+	 */
+	public void feedforward(double kS, double kV, double kA) {
+		double[] velocity = _velocity;
+		double[] arbFeedFwd = _arbFeedFwd;
+		int last = _size - 1;
+		for (int i = 0; i < _size; ++i) {
+			int before = (i > 0) ? i - 1 : 0;
+			int after = (i < last) ? i + 1 : last;
+			double accel = 0;
+			if (after > before)
+				accel = (velocity[after] - velocity[before]) * 1000.0 / ((after - before) * _durationMs[i]);
+			double v = velocity[i];
+			double ff = kS * Math.signum(v) + kV * v + kA * accel;
+			arbFeedFwd[i] = Math.max(-1, Math.min(1, ff));
+		}
+	}
+
+	/**
+	 * Stream every point.  Only the fields kept here are written, so set the rest
+	 * of point (slots, useAuxPID, auxiliaryVel...) once before calling.
+	 *
+	 * @param stream	stream to write to, not cleared first
+	 * @param point		temp for the loop
+	 * @param zeroPos	set zeroPos on the first point
+	 */
+	public void write(BufferedTrajectoryPointStream stream, TrajectoryPoint point, boolean zeroPos) {
+		for (int i = 0; i < _size; ++i) {
+			get(i, point);
+			point.zeroPos = zeroPos && (i == 0);
+			stream.Write(point);
+		}
+	}
+
+	/**
+	 * Copy one point's fields into point.  zeroPos is left alone.
+	 *
+	 * @param index	point index [0, size)
+	 * @param point	object to fill
+	 * @return point, for convenience
+	 */
+	public TrajectoryPoint get(int index, TrajectoryPoint point) {
+		point.position = _position[index];
+		point.velocity = _velocity[index];
+		point.auxiliaryPos = _auxiliaryPos[index];
+		point.arbFeedFwd = _arbFeedFwd[index];
+		point.timeDur = _durationMs[index];
+		point.isLastPoint = (index + 1) == _size;
+		return point;
+	}
+
+	/** @return points loaded */
+	public int size() {
+		return _size;
+	}
+
+	/** @return points that fit without allocating */
+	public int capacity() {
+		return _position.length;
+	}
+
+	private void allocate(int capacity) {
+		_position = new double[capacity];
+		_velocity = new double[capacity];
+		_auxiliaryPos = new double[capacity];
+		_arbFeedFwd = new double[capacity];
+		_durationMs = new int[capacity];
+	}
+}
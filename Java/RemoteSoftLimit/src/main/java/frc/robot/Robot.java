@@ -80,6 +80,9 @@ public class Robot extends TimedRobot {
     PigeonIMU _imu = new PigeonIMU(3);
     Joystick _joy = new Joystick(0);
 
+    /* Status frame periods, from what each remote sensor setup reads */
+    StatusFramePlanner _frames = new StatusFramePlanner();
+
     /* a couple latched values to detect on-press events for buttons and POV */
     boolean[] _currentBtns = new boolean[Constants.kNumButtonsPlusOne];
     boolean[] _previousBtns = new boolean[Constants.kNumButtonsPlusOne];
@@ -102,11 +105,8 @@ public class Robot extends TimedRobot {
         _motorCntrller.configForwardSoftLimitEnable(true, Constants.kTimeoutMs);
         _motorCntrller.configReverseSoftLimitEnable(true, Constants.kTimeoutMs);
 
-        /* speed up CANifier frames related to signals sunk by Talon/Victor */
-        /* speed up quadrature pos/vel */
-        _canifLimits.setStatusFramePeriod(CANifierStatusFrame.Status_2_General, 10, Constants.kTimeoutMs);
-        /* speed up PWM1 */
-        _canifLimits.setStatusFramePeriod(CANifierStatusFrame.Status_4_PwmInputs1, 10, Constants.kTimeoutMs);
+        /* speed up CANifier frames related to signals sunk by Talon/Victor, declared in robotInit() */
+        _frames.apply(Constants.kTimeoutMs);
 
         /* Pick local quadrature to start with */
         selectSoftLimitSetup(1);
@@ -294,6 +294,20 @@ public class Robot extends TimedRobot {
     }
 
     // ------------------------- Loops -------------------------------//
+    @Override
+    public void robotInit() {
+        /* Every device on the bus, so the planner can predict the load */
+        _frames.add(_motorCntrller, "motorCntrller");
+        _frames.add(_canifLimits, "canifLimits");
+        _frames.add(_talonLimits, "talonLimits");
+        _frames.add(_imu, "imu");
+
+        /* speed up quadrature pos/vel, remote sensor of selectSoftLimitSetup(3) */
+        _frames.require(_canifLimits, CANifierStatusFrame.Status_2_General, 10, "remote CANifier quadrature");
+        /* speed up PWM1, remote sensor of selectSoftLimitSetup(7) */
+        _frames.require(_canifLimits, CANifierStatusFrame.Status_4_PwmInputs1, 10, "remote CANifier PWM1");
+    }
+
     @Override
     public void disabledInit() {
         /**
@@ -0,0 +1,337 @@
+/**
+ * Status frame periods for every CTRE device on the bus, from what each consumer needs.
+ *
+ * Instead of calling setStatusFramePeriod() wherever a signal is used, every device
+ * is added once, and each consumer declares the frames it reads and how old the
+ * data may be.  A frame declared more than once goes at the freshest period asked
+ * for.  Frames nobody declared keep their default period.
+ *
+ * Typical use...
+ *
+ *	_frames.add(_leftMaster, "leftMaster");
+ *	_frames.add(_pidgey, "pidgey");
+ *	_frames.require(_leftMaster, StatusFrame.Status_2_Feedback0, 5, "right Talon sums this sensor");
+ *	_frames.require(_pidgey, PigeonIMU_StatusFrame.CondStatus_9_SixDeg_YPR, 5, "right Talon aux PID");
+ *	_frames.apply(Constants.kTimeoutMs);	// after configFactoryDefault()
+ *
+ * plan() predicts the bus utilization of every status frame plus each motor
+ * controller's control frame, and anything added with addLoad() (PDP, PCM, motion
+ * profile control frames...).  Over kMaxUtilization the plan is still applied, since
+ * the consumers asked for it, but it is printed with the biggest frames first so it
+ * is clear what to slow down.  A device that is not added is not counted, so add
+ * followers too.
+ *
+ * Default periods are the documented 4.x firmware defaults.  Frames only sent in
+ * some modes (motion profile buffer, sensor fusion...) have a default of 0, and
+ * only count once declared.
+ */
+package frc.robot;
+
+import java.util.Arrays;
+
+import com.ctre.phoenix.CANifier;
+import com.ctre.phoenix.CANifierStatusFrame;
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.StatusFrame;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.can.BaseMotorController;
+import com.ctre.phoenix.motorcontrol.can.TalonSRX;
+import com.ctre.phoenix.motorcontrol.can.VictorSPX;
+import com.ctre.phoenix.sensors.PigeonIMU;
+import com.ctre.phoenix.sensors.PigeonIMU_StatusFrame;
+
+public class StatusFramePlanner {
+
+	/** CAN bit rate, bits per second */
+	public static final int kBitRate = 1000000;
+	/** 29-bit id and 8 data bytes is 131 bits, ~160 with worst case bit stuffing */
+	public static final int kBitsPerFrame = 160;
+	/** Warn above this fraction of the bus */
+	public static final double kMaxUtilization = 0.70;
+	/** Fastest and slowest period a status frame can be set to */
+	public static final int kMinPeriodMs = 1;
+	public static final int kMaxPeriodMs = 255;
+	/** Motor controllers get a control frame from the roboRIO this often */
+	public static final int kControlPeriodMs = 10;
+
+	/* frames each kind of device sends, and their default periods */
+	private static final StatusFrameEnhanced[] kTalonFrames = {
+		StatusFrameEnhanced.Status_1_General, StatusFrameEnhanced.Status_2_Feedback0,
+		StatusFrameEnhanced.Status_3_Quadrature, StatusFrameEnhanced.Status_4_AinTempVbat,
+		StatusFrameEnhanced.Status_8_PulseWidth, StatusFrameEnhanced.Status_9_MotProfBuffer,
+		StatusFrameEnhanced.Status_10_Targets, StatusFrameEnhanced.Status_11_UartGadgeteer,
+		StatusFrameEnhanced.Status_12_Feedback1, StatusFrameEnhanced.Status_13_Base_PIDF0,
+		StatusFrameEnhanced.Status_14_Turn_PIDF1, StatusFrameEnhanced.Status_17_Targets1,
+	};
+	private static final int[] kTalonDefaultMs = { 10, 20, 160, 160, 160, 0, 160, 250, 160, 160, 160, 0 };
+
+	private static final StatusFrame[] kVictorFrames = {
+		StatusFrame.Status_1_General, StatusFrame.Status_2_Feedback0,
+		StatusFrame.Status_4_AinTempVbat, StatusFrame.Status_9_MotProfBuffer,
+		StatusFrame.Status_10_Targets, StatusFrame.Status_12_Feedback1,
+		StatusFrame.Status_13_Base_PIDF0, StatusFrame.Status_14_Turn_PIDF1,
+		StatusFrame.Status_17_Targets1,
+	};
+	private static final int[] kVictorDefaultMs = { 10, 20, 160, 0, 160, 160, 160, 160, 0 };
+
+	private static final PigeonIMU_StatusFrame[] kPigeonFrames = {
+		PigeonIMU_StatusFrame.CondStatus_1_General, PigeonIMU_StatusFrame.CondStatus_9_SixDeg_YPR,
+		PigeonIMU_StatusFrame.CondStatus_6_SensorFusion, PigeonIMU_StatusFrame.CondStatus_11_GyroAccum,
+		PigeonIMU_StatusFrame.CondStatus_2_GeneralCompass, PigeonIMU_StatusFrame.CondStatus_3_GeneralAccel,
+		PigeonIMU_StatusFrame.CondStatus_10_SixDeg_Quat, PigeonIMU_StatusFrame.RawStatus_4_Mag,
+		PigeonIMU_StatusFrame.BiasedStatus_2_Gyro, PigeonIMU_StatusFrame.BiasedStatus_4_Mag,
+		PigeonIMU_StatusFrame.BiasedStatus_6_Accel,
+	};
+	private static final int[] kPigeonDefaultMs = { 10, 10, 0, 20, 0, 0, 0, 0, 0, 0, 0 };
+
+	private static final CANifierStatusFrame[] kCANifierFrames = {
+		CANifierStatusFrame.Status_1_General, CANifierStatusFrame.Status_2_General,
+		CANifierStatusFrame.Status_3_PwmInputs0, CANifierStatusFrame.Status_4_PwmInputs1,
+		CANifierStatusFrame.Status_5_PwmInputs2, CANifierStatusFrame.Status_6_PwmInputs3,
+		CANifierStatusFrame.Status_8_Misc,
+	};
+	private static final int[] kCANifierDefaultMs = { 100, 20, 100, 100, 100, 100, 100 };
+
+	private static class Device {
+		String name;
+		Object device;
+		Enum<?>[] frames;
+		int[] defaultMs;
+		/* freshest age asked for, 0 if nobody asked, and who asked for it */
+		int[] requiredMs;
+		String[] requiredBy;
+		int[] plannedMs;
+		int controlPeriodMs;
+	}
+
+	private Device[] _devices = new Device[8];
+	private int _deviceCount = 0;
+	private String[] _loadNames = new String[4];
+	private int[] _loadPeriodMs = new int[4];
+	private int _loadCount = 0;
+	private double _utilization = 0;
+
+	/** Add a Talon, its control frame counts too */
+	public void add(TalonSRX talon, String name) {
+		addDevice(talon, name, kTalonFrames, kTalonDefaultMs, kControlPeriodMs);
+	}
+
+	/** Add a Victor, its control frame counts too */
+	public void add(VictorSPX victor, String name) {
+		addDevice(victor, name, kVictorFrames, kVictorDefaultMs, kControlPeriodMs);
+	}
+
+	public void add(PigeonIMU pigeon, String name) {
+		addDevice(pigeon, name, kPigeonFrames, kPigeonDefaultMs, 0);
+	}
+
+	public void add(CANifier canifier, String name) {
+		addDevice(canifier, name, kCANifierFrames, kCANifierDefaultMs, 0);
+	}
+
+	/**
+	 * Count some other periodic frame, e.g. the PDP, or changeMotionControlFramePeriod()
+	 *
+	 * @param name		shown in the plan
+	 * @param periodMs	how often it is sent
+	 */
+	public void addLoad(String name, int periodMs) {
+		if (_loadCount == _loadNames.length) {
+			_loadNames = Arrays.copyOf(_loadNames, _loadCount * 2);
+			_loadPeriodMs = Arrays.copyOf(_loadPeriodMs, _loadCount * 2);
+		}
+		_loadNames[_loadCount] = name;
+		_loadPeriodMs[_loadCount] = periodMs;
+		++_loadCount;
+	}
+
+	/**
+	 * Declare a frame a consumer reads.
+	 *
+	 * @param maxAgeMs	oldest the data may be, the frame period
+	 * @param who		consumer, shown in the plan
+	 */
+	public void require(BaseMotorController controller, StatusFrame frame, int maxAgeMs, String who) {
+		requireFrame(controller, frame, maxAgeMs, who);
+	}
+
+	public void require(TalonSRX talon, StatusFrameEnhanced frame, int maxAgeMs, String who) {
+		requireFrame(talon, frame, maxAgeMs, who);
+	}
+
+	public void require(PigeonIMU pigeon, PigeonIMU_StatusFrame frame, int maxAgeMs, String who) {
+		requireFrame(pigeon, frame, maxAgeMs, who);
+	}
+
+	public void require(CANifier canifier, CANifierStatusFrame frame, int maxAgeMs, String who) {
+		requireFrame(canifier, frame, maxAgeMs, who);
+	}
+
+	/**
+	 * Work out every frame period and the bus utilization, without touching the devices.
+	 *
+	 * @return predicted fraction of the bus used
+	 */
+	public double plan() {
+		double framesPerSec = 0;
+		for (int d = 0; d < _deviceCount; ++d) {
+			Device device = _devices[d];
+			for (int f = 0; f < device.frames.length; ++f) {
+				int ms = device.defaultMs[f];
+				if (device.requiredMs[f] > 0)
+					ms = Math.max(kMinPeriodMs, Math.min(kMaxPeriodMs, device.requiredMs[f]));
+				device.plannedMs[f] = ms;
+				framesPerSec += perSec(ms);
+			}
+			framesPerSec += perSec(device.controlPeriodMs);
+		}
+		for (int i = 0; i < _loadCount; ++i)
+			framesPerSec += perSec(_loadPeriodMs[i]);
+
+		_utilization = framesPerSec * kBitsPerFrame / kBitRate;
+		return _utilization;
+	}
+
+	/**
+	 * Plan, then set the period of every declared frame.  Call after configFactoryDefault().
+	 *
+	 * @return false if the plan is over kMaxUtilization or a device didn't take it
+	 */
+	public boolean apply(int timeoutMs) {
+		plan();
+		boolean ok = true;
+		for (int d = 0; d < _deviceCount; ++d) {
+			Device device = _devices[d];
+			for (int f = 0; f < device.frames.length; ++f) {
+				if (device.requiredMs[f] == 0)
+					continue;
+				ErrorCode err = setPeriod(device, f, timeoutMs);
+				if (err != ErrorCode.OK) {
+					System.out.println("StatusFramePlanner: " + device.name + " " + device.frames[f] + " not set, " + err);
+					ok = false;
+				}
+			}
+		}
+		System.out.println(this);
+		if (_utilization > kMaxUtilization) {
+			System.out.println(String.format("StatusFramePlanner: WARNING bus at %.0f%%, over the %.0f%% budget.  Biggest frames:",
+					_utilization * 100, kMaxUtilization * 100));
+			printBiggest(5);
+			ok = false;
+		}
+		return ok;
+	}
+
+	/** @return fraction of the bus used by the last plan() */
+	public double getUtilization() {
+		return _utilization;
+	}
+
+	/** Every declared frame with its period and consumer, and the predicted total */
+	public String toString() {
+		StringBuilder sb = new StringBuilder("StatusFramePlanner:\n");
+		for (int d = 0; d < _deviceCount; ++d) {
+			Device device = _devices[d];
+			for (int f = 0; f < device.frames.length; ++f) {
+				if (device.requiredMs[f] == 0)
+					continue;
+				sb.append("  ").append(device.name).append(" ").append(device.frames[f]).append(" ");
+				sb.append(device.plannedMs[f]).append("ms (default ").append(device.defaultMs[f]).append("ms)  ");
+				sb.append(device.requiredBy[f]).append("\n");
+			}
+		}
+		for (int i = 0; i < _loadCount; ++i)
+			sb.append("  ").append(_loadNames[i]).append(" ").append(_loadPeriodMs[i]).append("ms\n");
+		sb.append(String.format("  %d devices, %d other loads, bus %.1f%% of %d kbps",
+				_deviceCount, _loadCount, _utilization * 100, kBitRate / 1000));
+		return sb.toString();
+	}
+
+	private void addDevice(Object obj, String name, Enum<?>[] frames, int[] defaultMs, int controlPeriodMs) {
+		if (find(obj) != null) {
+			System.out.println("StatusFramePlanner: " + name + " already added");
+			return;
+		}
+		Device device = new Device();
+		device.name = name;
+		device.device = obj;
+		device.frames = frames;
+		device.defaultMs = defaultMs;
+		device.requiredMs = new int[frames.length];
+		device.requiredBy = new String[frames.length];
+		device.plannedMs = defaultMs.clone();
+		device.controlPeriodMs = controlPeriodMs;
+		if (_deviceCount == _devices.length)
+			_devices = Arrays.copyOf(_devices, _deviceCount * 2);
+		_devices[_deviceCount++] = device;
+	}
+
+	private void requireFrame(Object obj, Enum<?> frame, int maxAgeMs, String who) {
+		Device device = find(obj);
+		if (device == null) {
+			System.out.println("StatusFramePlanner: " + frame + " required by " + who + " of a device that wasn't added");
+			return;
+		}
+		/* both enums name frame 10 twice, it's one frame */
+		String name = frame.name().equals("Status_10_MotionMagic") ? "Status_10_Targets" : frame.name();
+		for (int f = 0; f < device.frames.length; ++f) {
+			if (!device.frames[f].name().equals(name))
+				continue;
+			if (device.requiredMs[f] == 0 || maxAgeMs < device.requiredMs[f]) {
+				device.requiredMs[f] = maxAgeMs;
+				device.requiredBy[f] = who;
+			} else if (maxAgeMs == device.requiredMs[f]) {
+				device.requiredBy[f] += ", " + who;
+			}
+			return;
+		}
+		System.out.println("StatusFramePlanner: " + device.name + " doesn't send " + frame);
+	}
+
+	private ErrorCode setPeriod(Device device, int f, int timeoutMs) {
+		int ms = device.plannedMs[f];
+		Object obj = device.device;
+		if (obj instanceof TalonSRX)
+			return ((TalonSRX) obj).setStatusFramePeriod((StatusFrameEnhanced) device.frames[f], ms, timeoutMs);
+		if (obj instanceof VictorSPX)
+			return ((VictorSPX) obj).setStatusFramePeriod((StatusFrame) device.frames[f], ms, timeoutMs);
+		if (obj instanceof PigeonIMU)
+			return ((PigeonIMU) obj).setStatusFramePeriod((PigeonIMU_StatusFrame) device.frames[f], ms, timeoutMs);
+		return ((CANifier) obj).setStatusFramePeriod((CANifierStatusFrame) device.frames[f], ms, timeoutMs);
+	}
+
+	/* the n frames using the most of the bus, over every device */
+	private void printBiggest(int n) {
+		/* period in the high half so sorting puts the fastest first, device and frame in the low */
+		long[] keys = new long[_deviceCount * 16];
+		int count = 0;
+		for (int d = 0; d < _deviceCount; ++d) {
+			Device device = _devices[d];
+			for (int f = 0; f < device.frames.length; ++f) {
+				if (device.plannedMs[f] > 0)
+					keys[count++] = ((long) device.plannedMs[f] << 32) | (d << 8) | f;
+			}
+		}
+		Arrays.sort(keys, 0, count);
+		for (int i = 0; i < Math.min(n, count); ++i) {
+			int ms = (int) (keys[i] >>> 32);
+			Device device = _devices[(int) (keys[i] >> 8) & 0xFFFFFF];
+			int f = (int) keys[i] & 0xFF;
+			String who = device.requiredMs[f] > 0 ? device.requiredBy[f] : "default";
+			System.out.println(String.format("  %s %s %dms, %.1f%%  %s", device.name, device.frames[f], ms,
+					perSec(ms) * kBitsPerFrame * 100.0 / kBitRate, who));
+		}
+	}
+
+	private Device find(Object obj) {
+		for (int d = 0; d < _deviceCount; ++d) {
+			if (_devices[d].device == obj)
+				return _devices[d];
+		}
+		return null;
+	}
+
+	private static double perSec(int periodMs) {
+		return periodMs > 0 ? 1000.0 / periodMs : 0;
+	}
+}
@@ -0,0 +1,329 @@
+/**
+ * Console logging off the control loop.
+ *
+ * System.out on the roboRIO is slow, and a println in teleopPeriodic() makes the loop
+ * as slow as the console.  Here the loop only stores the numbers: each call site is
+ * registered once with a printf template, and log() copies its values into a
+ * preallocated ring.  A low priority thread turns them into text and prints them,
+ * everything it found in one print.  log() never allocates, locks or waits.
+ *
+ * Typical use...
+ *
+ *	int _siteSpeed = _log.site("speed: %.1f RPM\terr: %d", 5);	// robotInit, at most 5 per second
+ *	_log.log(_siteSpeed, rpm, err);								// teleopPeriodic
+ *
+ * Values are stored as doubles and converted for the template when printed, so %d
+ * and %x take a whole number and %b is true for anything but 0.  Up to kMaxValues
+ * values per call.
+ *
+ * A call inside its site's interval is dropped at once and counted as suppressed.
+ * If the printing thread falls behind by more than the ring holds, the oldest events
+ * are overwritten and counted as dropped, and a line saying how many goes out.
+ *
+ * Register sites before logging from them.  log() can be called from any thread.
+ * Two calls a full ring apart landing in one slot at the same moment can mix their
+ * values, which takes the printing thread stalling for the whole ring, and losing
+ * those lines anyway.
+ */
+package frc.robot;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class AsyncLogger implements Runnable {
+
+	/** Most values per log() */
+	public static final int kMaxValues = 6;
+	/** How often the printing thread looks for events */
+	public static final int kDrainPeriodMs = 20;
+	/** Most call sites */
+	public static final int kMaxSites = 32;
+
+	private static final Pattern kConversion = Pattern.compile("%[-#+ 0,(]*\\d*(\\.\\d+)?([a-zA-Z%])");
+
+	/* call sites, template, the conversion of each value, and the rate limit */
+	private final String[] _templates = new String[kMaxSites];
+	private final char[][] _conversions = new char[kMaxSites][];
+	private final long[] _minIntervalNs = new long[kMaxSites];
+	private final long[] _lastNs = new long[kMaxSites];
+	private volatile int _siteCount = 0;
+
+	/* the ring, one primitive array per field */
+	private final int _mask;
+	private final int[] _site;
+	private final int[] _count;
+	private final double[] _values;
+	/* 2 * seq + 1 while an event is written, 2 * seq + 2 once it's done */
+	private final AtomicLongArray _stamps;
+	private final AtomicLong _tail = new AtomicLong();
+	/* printing thread only */
+	private long _head = 0;
+
+	private final AtomicLong _logged = new AtomicLong();
+	private final AtomicLong _suppressed = new AtomicLong();
+	private final AtomicLong _dropped = new AtomicLong();
+
+	/** @param capacity	events the ring holds, rounded up to a power of two */
+	public AsyncLogger(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+		_mask = size - 1;
+		_site = new int[size];
+		_count = new int[size];
+		_values = new double[size * kMaxValues];
+		_stamps = new AtomicLongArray(size);
+
+		Thread thread = new Thread(this, "AsyncLogger");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	/**
+	 * Register a call site, once, outside the loop.
+	 *
+	 * @param template	printf format of the line, no trailing newline
+	 * @param maxRateHz	most lines per second from this site, 0 for no limit
+	 * @return handle for log(), -1 if the template is bad or there is no room
+	 */
+	public synchronized int site(String template, double maxRateHz) {
+		if (_siteCount >= kMaxSites) {
+			System.out.println("AsyncLogger: no room for " + template);
+			return -1;
+		}
+		char[] conversions = new char[kMaxValues + 1];
+		int count = 0;
+		Matcher m = kConversion.matcher(template);
+		while (m.find()) {
+			char c = m.group(2).charAt(0);
+			if (c == '%' || c == 'n')
+				continue;
+			if (count == kMaxValues) {
+				System.out.println("AsyncLogger: more than " + kMaxValues + " values in " + template);
+				return -1;
+			}
+			conversions[count++] = c;
+		}
+		int site = _siteCount;
+		_templates[site] = template;
+		_conversions[site] = Arrays.copyOf(conversions, count);
+		_minIntervalNs[site] = (maxRateHz > 0) ? (long) (1e9 / maxRateHz) : 0;
+		_lastNs[site] = Long.MIN_VALUE / 2;
+		_siteCount = site + 1;
+		return site;
+	}
+
+	public boolean log(int site) {
+		long seq = claim(site, 0);
+		if (seq < 0)
+			return false;
+		publish(seq);
+		return true;
+	}
+
+	public boolean log(int site, double a) {
+		long seq = claim(site, 1);
+		if (seq < 0)
+			return false;
+		int i = ((int) seq & _mask) * kMaxValues;
+		_values[i] = a;
+		publish(seq);
+		return true;
+	}
+
+	public boolean log(int site, double a, double b) {
+		long seq = claim(site, 2);
+		if (seq < 0)
+			return false;
+		int i = ((int) seq & _mask) * kMaxValues;
+		_values[i] = a;
+		_values[i + 1] = b;
+		publish(seq);
+		return true;
+	}
+
+	public boolean log(int site, double a, double b, double c) {
+		long seq = claim(site, 3);
+		if (seq < 0)
+			return false;
+		int i = ((int) seq & _mask) * kMaxValues;
+		_values[i] = a;
+		_values[i + 1] = b;
+		_values[i + 2] = c;
+		publish(seq);
+		return true;
+	}
+
+	public boolean log(int site, double a, double b, double c, double d) {
+		long seq = claim(site, 4);
+		if (seq < 0)
+			return false;
+		int i = ((int) seq & _mask) * kMaxValues;
+		_values[i] = a;
+		_values[i + 1] = b;
+		_values[i + 2] = c;
+		_values[i + 3] = d;
+		publish(seq);
+		return true;
+	}
+
+	public boolean log(int site, double a, double b, double c, double d, double e) {
+		long seq = claim(site, 5);
+		if (seq < 0)
+			return false;
+		int i = ((int) seq & _mask) * kMaxValues;
+		_values[i] = a;
+		_values[i + 1] = b;
+		_values[i + 2] = c;
+		_values[i + 3] = d;
+		_values[i + 4] = e;
+		publish(seq);
+		return true;
+	}
+
+	public boolean log(int site, double a, double b, double c, double d, double e, double f) {
+		long seq = claim(site, 6);
+		if (seq < 0)
+			return false;
+		int i = ((int) seq & _mask) * kMaxValues;
+		_values[i] = a;
+		_values[i + 1] = b;
+		_values[i + 2] = c;
+		_values[i + 3] = d;
+		_values[i + 4] = e;
+		_values[i + 5] = f;
+		publish(seq);
+		return true;
+	}
+
+	/** @return events taken by log() */
+	public long getLogged() {
+		return _logged.get();
+	}
+
+	/** @return log() calls dropped by their site's rate limit */
+	public long getSuppressed() {
+		return _suppressed.get();
+	}
+
+	/** @return events overwritten before they could be printed */
+	public long getDropped() {
+		return _dropped.get();
+	}
+
+	public String toString() {
+		return "AsyncLogger: " + getLogged() + " logged, " + getSuppressed() + " suppressed, " + getDropped() + " dropped";
+	}
+
+	/* rate limit, then take the next slot and mark it being written, -1 if not logging */
+	private long claim(int site, int count) {
+		if (site < 0 || site >= _siteCount)
+			return -1;
+		long now = System.nanoTime();
+		if (now - _lastNs[site] < _minIntervalNs[site]) {
+			_suppressed.incrementAndGet();
+			return -1;
+		}
+		_lastNs[site] = now;
+
+		long seq = _tail.getAndIncrement();
+		int slot = (int) seq & _mask;
+		_stamps.set(slot, 2 * seq + 1);
+		/* the mark has to be seen before any of the fields change */
+		VarHandle.storeStoreFence();
+		_site[slot] = site;
+		_count[slot] = count;
+		return seq;
+	}
+
+	private void publish(long seq) {
+		_stamps.lazySet((int) seq & _mask, 2 * seq + 2);
+		_logged.incrementAndGet();
+	}
+
+	/** Printing thread */
+	public void run() {
+		StringBuilder sb = new StringBuilder(1024);
+		Object[] args = new Object[kMaxValues];
+		double[] values = new double[kMaxValues];
+		long reportedDropped = 0;
+		while (true) {
+			try {
+				Thread.sleep(kDrainPeriodMs);
+			} catch (InterruptedException e) {
+				return;
+			}
+
+			long tail = _tail.get();
+			/* anything more than a ring behind is already overwritten */
+			if (tail - _head > _mask + 1) {
+				_dropped.addAndGet(tail - (_mask + 1) - _head);
+				_head = tail - (_mask + 1);
+			}
+			while (_head < tail) {
+				int slot = (int) _head & _mask;
+				long done = 2 * _head + 2;
+				long stamp = _stamps.get(slot);
+				if (stamp < done)
+					break; /* still being written, next time */
+				if (stamp > done) {
+					_dropped.incrementAndGet(); /* a later event took the slot */
+					++_head;
+					continue;
+				}
+				int site = _site[slot];
+				int count = _count[slot];
+				System.arraycopy(_values, slot * kMaxValues, values, 0, kMaxValues);
+				/* and make sure nobody started writing the slot while copying it */
+				VarHandle.loadLoadFence();
+				if (_stamps.get(slot) != done) {
+					_dropped.incrementAndGet();
+					++_head;
+					continue;
+				}
+				++_head;
+				format(sb, site, count, values, args);
+			}
+
+			long dropped = _dropped.get();
+			if (dropped != reportedDropped) {
+				sb.append("AsyncLogger: ").append(dropped - reportedDropped).append(" events dropped\n");
+				reportedDropped = dropped;
+			}
+			if (sb.length() > 0) {
+				System.out.print(sb);
+				sb.setLength(0);
+			}
+		}
+	}
+
+	private void format(StringBuilder sb, int site, int count, double[] values, Object[] args) {
+		char[] conversions = _conversions[site];
+		if (count != conversions.length) {
+			sb.append("AsyncLogger: ").append(count).append(" values for \"").append(_templates[site]).append("\"\n");
+			return;
+		}
+		Object[] used = (count == args.length) ? args : Arrays.copyOf(args, count);
+		for (int i = 0; i < count; ++i) {
+			switch (conversions[i]) {
+				case 'd': case 'x': case 'X': case 'o':
+					used[i] = (long) values[i];
+					break;
+				case 'b': case 'B':
+					used[i] = values[i] != 0;
+					break;
+				default:
+					used[i] = values[i];
+					break;
+			}
+		}
+		try {
+			sb.append(String.format(_templates[site], used)).append('\n');
+		} catch (RuntimeException e) {
+			sb.append("AsyncLogger: ").append(e).append(" for \"").append(_templates[site]).append("\"\n");
+		}
+	}
+}
@@ -57,6 +57,11 @@ public class Robot extends TimedRobot {
 	/* Joystick to control motor */
 	Joystick _joy = new Joystick(0);
 
+	/* Prints from a background thread, so the loop never waits on the console */
+	AsyncLogger _log = new AsyncLogger(64);
+	/* Readings, at most 10 lines per second */
+	int _logReadings = _log.site("Mag encoder is: %s\tTachometer is: %s", 10);
+
 	/**
 	 * This function is run when the robot is first started up and should be
 	 * used for any initialization code.
@@ -115,6 +120,6 @@ public class Robot extends TimedRobot {
 		double tachRPM = tachVel_UnitsPer100ms * 600 / 1024;
 
 		/* Print readings */
-		System.out.println("Mag encoder is: " + magVelRPM + "\t" + "Tachometer is: " + tachRPM);
+		_log.log(_logReadings, magVelRPM, tachRPM);
 	}
 }
@@ -59,11 +59,12 @@ public class Robot extends TimedRobot {
 	TalonSRX _talon = new TalonSRX(1);
     Joystick _joy = new Joystick(0);
     
-    /* String for output */
-    StringBuilder _sb = new StringBuilder();
+    /* Prints from a background thread, so the loop never waits on the console */
+    AsyncLogger _log = new AsyncLogger(64);
     
-    /* Loop tracker for prints */
-	int _loops = 0;
+    /* Output and speed, plus error and target in Velocity Closed Loop, 5 lines per second */
+	int _logOutput = _log.site("\tout:%d%%\tspd:%du", 5);
+	int _logClosedLoop = _log.site("\tout:%d%%\tspd:%du\terr:%d\ttrg:%s", 5);
 
 	public void robotInit() {
         /* Factory Default all hardware to prevent unexpected behaviour */
@@ -103,15 +104,8 @@ public class Robot extends TimedRobot {
 		/* Get Talon/Victor's current output percentage */
 		double motorOutput = _talon.getMotorOutputPercent();
 		
-		/* Prepare line to print */
-		_sb.append("\tout:");
-		/* Cast to int to remove decimal places */
-		_sb.append((int) (motorOutput * 100));
-		_sb.append("%");	// Percent
-
-		_sb.append("\tspd:");
-		_sb.append(_talon.getSelectedSensorVelocity(Constants.kPIDLoopIdx));
-		_sb.append("u"); 	// Native units
+		/* Prepare values to print, output in percent, speed in native units */
+		double speed = _talon.getSelectedSensorVelocity(Constants.kPIDLoopIdx);
 
         /** 
 		 * When button 1 is held, start and run Velocity Closed loop.
@@ -129,23 +123,15 @@ public class Robot extends TimedRobot {
 			/* 500 RPM in either direction */
 			_talon.set(ControlMode.Velocity, targetVelocity_UnitsPer100ms);
 
-			/* Append more signals to print when in speed mode. */
-			_sb.append("\terr:");
-			_sb.append(_talon.getClosedLoopError(Constants.kPIDLoopIdx));
-			_sb.append("\ttrg:");
-			_sb.append(targetVelocity_UnitsPer100ms);
+			/* Print more signals when in speed mode, the site's rate limit keeps it to every 10 loops or so */
+			_log.log(_logClosedLoop, motorOutput * 100, speed,
+					_talon.getClosedLoopError(Constants.kPIDLoopIdx), targetVelocity_UnitsPer100ms);
 		} else {
 			/* Percent Output */
 
 			_talon.set(ControlMode.PercentOutput, leftYstick);
-		}
 
-        /* Print built string every 10 loops */
-		if (++_loops >= 10) {
-			_loops = 0;
-			System.out.println(_sb.toString());
-        }
-        /* Reset built string */
-		_sb.setLength(0);
+			_log.log(_logOutput, motorOutput * 100, speed);
+		}
 	}
 }